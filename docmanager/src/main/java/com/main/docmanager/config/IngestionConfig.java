@@ -0,0 +1,75 @@
+package com.main.docmanager.config;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+@Configuration
+public class IngestionConfig {
+
+    @Value("${docmanager.ingest.concurrency:2}")
+    private int concurrency;
+
+    @Value("${docmanager.ingest.queue-capacity:50}")
+    private int queueCapacity;
+
+    @Value("${docmanager.ingest.batch.parse-threads:4}")
+    private int batchParseThreads;
+
+    @Value("${docmanager.delete.cleanup-queue-capacity:100}")
+    private int cleanupQueueCapacity;
+
+    @Value("${docmanager.extract.pdf.parallelism:0}")
+    private int pdfParallelism;
+
+    /**
+     * Bounded pool for asynchronous uploads. The queue is fixed-size and uses the abort policy so a
+     * full queue surfaces as backpressure to the client instead of tying up servlet threads.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ThreadPoolExecutor ingestionExecutor() {
+        return new ThreadPoolExecutor(concurrency, concurrency, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new CustomizableThreadFactory("ingest-"),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Parse pool for batch uploads. When every thread is busy and the small queue is full, the submitting
+     * request thread parses the file itself, which throttles a single huge batch instead of failing it.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ThreadPoolExecutor batchParseExecutor() {
+        return new ThreadPoolExecutor(batchParseThreads, batchParseThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(batchParseThreads * 2),
+                new CustomizableThreadFactory("batch-parse-"),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * Pool for page-range extraction of large PDFs. Sized to the cores by default; a dedicated pool keeps
+     * these CPU-bound tasks off the common pool that parallel streams elsewhere rely on.
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ForkJoinPool pdfExtractionPool() {
+        return new ForkJoinPool(pdfParallelism > 0 ? pdfParallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Single thread that removes what deleted documents leave behind. When it falls this far behind the
+     * deleting request runs the cleanup itself, which slows a purge down rather than dropping work.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ThreadPoolExecutor cleanupExecutor() {
+        return new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(cleanupQueueCapacity),
+                new CustomizableThreadFactory("cleanup-"),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+}
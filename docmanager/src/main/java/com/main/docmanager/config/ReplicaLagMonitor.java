@@ -0,0 +1,97 @@
+package com.main.docmanager.config;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+/**
+ * Polls the replica for its replay lag on a daemon thread. The replica counts as usable only while the
+ * last check succeeded recently and reported a lag within the limit, so a replica that stops answering
+ * (or a check that hangs) fails over to the primary instead of serving ever older data.
+ */
+public class ReplicaLagMonitor {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+    /**
+     * Seconds behind the primary. A standby that has replayed everything it received is current even if
+     * the primary has been idle, and a server that is not in recovery has no lag at all; NULL means the
+     * standby has not replayed anything yet.
+     */
+    static final String LAG_SQL = "SELECT CASE " +
+            "WHEN NOT pg_is_in_recovery() THEN 0 " +
+            "WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 " +
+            "ELSE EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) END";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Duration maxLag;
+    private final Duration checkInterval;
+    private ScheduledExecutorService scheduler;
+
+    private volatile boolean withinLag;
+    private volatile double lagSeconds = Double.NaN;
+    private volatile long checkedAt;
+
+    public ReplicaLagMonitor(DataSource replica, Duration maxLag, Duration checkInterval) {
+        this.jdbcTemplate = new JdbcTemplate(replica);
+        this.jdbcTemplate.setQueryTimeout((int) Math.max(1, checkInterval.toSeconds()));
+        this.maxLag = maxLag;
+        this.checkInterval = checkInterval;
+    }
+
+    /** Runs the first check right away in the background; until it succeeds reads stay on the primary. */
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(daemonThreads());
+        scheduler.scheduleWithFixedDelay(this::check, 0, checkInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    void check() {
+        boolean wasAvailable = isAvailable();
+        try {
+            Double lag = jdbcTemplate.queryForObject(LAG_SQL, Double.class);
+            lagSeconds = lag == null ? Double.NaN : lag;
+            withinLag = lag != null && lag * 1000 <= maxLag.toMillis();
+            checkedAt = System.nanoTime();
+            if (wasAvailable != withinLag) {
+                logger.info("Replica lag {}s, read-only queries now go to the {}", lagSeconds, withinLag ? "replica" : "primary");
+            }
+        } catch (DataAccessException e) {
+            withinLag = false;
+            lagSeconds = Double.NaN;
+            if (wasAvailable) {
+                logger.warn("Replica lag check failed, read-only queries now go to the primary", e);
+            }
+        }
+    }
+
+    public boolean isAvailable() {
+        // Three missed checks in a row mean the poller itself is stuck
+        return withinLag && System.nanoTime() - checkedAt <= checkInterval.multipliedBy(3).toNanos();
+    }
+
+    /** Last measured lag in seconds, NaN while the replica is unreachable or has not replayed anything. */
+    public double getLagSeconds() {
+        return lagSeconds;
+    }
+
+    private static CustomizableThreadFactory daemonThreads() {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("replica-lag-");
+        threadFactory.setDaemon(true);
+        return threadFactory;
+    }
+}
@@ -0,0 +1,101 @@
+package com.main.docmanager.config;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Splits the connection pool in two when {@code docmanager.datasource.replica.url} is set: the primary
+ * pool from {@code spring.datasource} and a read-only pool on a streaming replica. Without the property
+ * Spring Boot's single auto-configured pool is used as before.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "docmanager.datasource.replica", name = "url")
+public class ReplicaRoutingConfig {
+
+    @Value("${docmanager.datasource.replica.url}")
+    private String replicaUrl;
+
+    @Value("${docmanager.datasource.replica.username:${spring.datasource.username:}}")
+    private String replicaUsername;
+
+    @Value("${docmanager.datasource.replica.password:${spring.datasource.password:}}")
+    private String replicaPassword;
+
+    @Value("${docmanager.datasource.replica.max-lag:PT10S}")
+    private Duration maxLag;
+
+    @Value("${docmanager.datasource.replica.lag-check-interval:PT2S}")
+    private Duration lagCheckInterval;
+
+    @Value("${docmanager.datasource.replica.routed-transactions:com.main.docmanager.service.QaService}")
+    private List<String> routedTransactions;
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    @ConfigurationProperties("docmanager.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = DataSourceBuilder.create().type(HikariDataSource.class)
+                .driverClassName(properties.determineDriverClassName())
+                .url(replicaUrl).username(replicaUsername).password(replicaPassword)
+                .build();
+        dataSource.setPoolName("replica");
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public ReplicaLagMonitor replicaLagMonitor(HikariDataSource replicaDataSource, MeterRegistry meterRegistry) {
+        ReplicaLagMonitor monitor = new ReplicaLagMonitor(replicaDataSource, maxLag, lagCheckInterval);
+        Gauge.builder("docmanager.datasource.replica.lag", monitor, ReplicaLagMonitor::getLagSeconds)
+                .description("Replay lag of the read replica in seconds")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        Gauge.builder("docmanager.datasource.replica.available", monitor, m -> m.isAvailable() ? 1 : 0)
+                .description("1 while read-only queries are routed to the replica")
+                .register(meterRegistry);
+        return monitor;
+    }
+
+    /**
+     * The data source JPA, Flyway and the transaction manager use. The lazy proxy defers fetching the
+     * physical connection to the first statement, by which point the transaction's read-only flag and
+     * name are bound and the router can see them.
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, HikariDataSource replicaDataSource,
+                                 ReplicaLagMonitor replicaLagMonitor, MeterRegistry meterRegistry) {
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(replicaLagMonitor, routedTransactions, meterRegistry);
+        routing.setTargetDataSources(Map.of(
+                ReplicaRoutingDataSource.Route.PRIMARY, primaryDataSource,
+                ReplicaRoutingDataSource.Route.REPLICA, replicaDataSource));
+        routing.setDefaultTargetDataSource(primaryDataSource);
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+}
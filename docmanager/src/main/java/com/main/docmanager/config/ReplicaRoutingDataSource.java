@@ -0,0 +1,65 @@
+package com.main.docmanager.config;
+
+import java.util.List;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Picks the pool for each new connection from the transaction that asks for it. Only read-only
+ * transactions whose name (the {@code @Transactional} method, {@code package.Class.method}) starts with
+ * one of the routed prefixes go to the replica, so repository reads that writes depend on, such as the
+ * dedup lookup or the username check at registration, keep reading their own writes on the primary.
+ * Must sit behind a {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}: the
+ * transaction flags are only bound after the transaction manager has asked for its connection.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Route { PRIMARY, REPLICA }
+
+    private final ReplicaLagMonitor lagMonitor;
+    private final List<String> routedTransactions;
+    private final Counter primaryConnections;
+    private final Counter replicaConnections;
+    private final Counter fallbackConnections;
+
+    public ReplicaRoutingDataSource(ReplicaLagMonitor lagMonitor, List<String> routedTransactions, MeterRegistry meterRegistry) {
+        this.lagMonitor = lagMonitor;
+        this.routedTransactions = routedTransactions;
+        this.primaryConnections = routeCounter(meterRegistry, "primary");
+        this.replicaConnections = routeCounter(meterRegistry, "replica");
+        this.fallbackConnections = routeCounter(meterRegistry, "fallback");
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!isReplicaRead()) {
+            primaryConnections.increment();
+            return Route.PRIMARY;
+        }
+        if (!lagMonitor.isAvailable()) {
+            fallbackConnections.increment();
+            return Route.PRIMARY;
+        }
+        replicaConnections.increment();
+        return Route.REPLICA;
+    }
+
+    boolean isReplicaRead() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return false;
+        }
+        String name = TransactionSynchronizationManager.getCurrentTransactionName();
+        return name != null && routedTransactions.stream().anyMatch(prefix -> name.startsWith(prefix + "."));
+    }
+
+    private static Counter routeCounter(MeterRegistry meterRegistry, String route) {
+        return Counter.builder("docmanager.datasource.routing")
+                .description("Connections handed out by the routing data source")
+                .tag("route", route)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,194 @@
+package com.main.docmanager.config;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.main.docmanager.dto.ErrorResponse;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Gives each workload its own share of the connection pool. With open-in-view a request keeps its
+ * connection until the response is written, so capping concurrent requests per workload caps the
+ * connections it can hold. When a budget is used up the request is answered 503 after a short wait
+ * instead of queueing on Hikari for the full connection timeout, and a storm of slow searches leaves
+ * the auth and ingest shares free. Runs ahead of Spring Security because the JWT filter already loads
+ * the user from the database.
+ * <p>
+ * A permit covers the work, not the network transfer: a multipart upload is received in full before
+ * its permit is taken, and resumable upload chunks, which only write to disk, take none at all.
+ * <p>
+ * Background work outside any request takes no permit, so the budgets leave part of the pool unshared.
+ */
+@Component
+@Order(SecurityProperties.DEFAULT_FILTER_ORDER - 1)
+public class WorkloadAdmissionFilter extends OncePerRequestFilter {
+
+    public enum Workload { AUTH, INGEST, SEARCH }
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${docmanager.db.admission.enabled:true}")
+    private boolean enabled;
+
+    @Value("${docmanager.db.admission.max-wait:50ms}")
+    private Duration maxWait;
+
+    @Value("${docmanager.db.admission.budget.auth:2}")
+    private int authBudget;
+
+    @Value("${docmanager.db.admission.budget.ingest:2}")
+    private int ingestBudget;
+
+    @Value("${docmanager.db.admission.budget.search:3}")
+    private int searchBudget;
+
+    private final Map<Workload, Budget> budgets = new EnumMap<>(Workload.class);
+
+    @PostConstruct
+    void initBudgets() {
+        budgets.put(Workload.AUTH, new Budget(Workload.AUTH, authBudget));
+        budgets.put(Workload.INGEST, new Budget(Workload.INGEST, ingestBudget));
+        budgets.put(Workload.SEARCH, new Budget(Workload.SEARCH, searchBudget));
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || classify(request) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Workload workload = classify(request);
+        if (isMultipart(request)) {
+            receiveParts(request);
+        }
+        Budget budget = budgets.get(workload);
+        if (!budget.tryAcquire()) {
+            reject(response, workload);
+            return;
+        }
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            budget.release();
+        }
+    }
+
+    /** Null for requests that do not touch the database, such as job polling and actuator probes. */
+    static Workload classify(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (path.startsWith("/api/auth/")) {
+            return Workload.AUTH;
+        }
+        if (!path.startsWith("/api/documents/") || path.startsWith("/api/documents/jobs/")) {
+            return null;
+        }
+        if (path.startsWith("/api/documents/uploads/") && HttpMethod.PUT.matches(request.getMethod())) {
+            return null;
+        }
+        // Uploads, resumable upload sessions and deletes write; everything else under /api/documents reads
+        return HttpMethod.GET.matches(request.getMethod()) || HttpMethod.HEAD.matches(request.getMethod())
+                ? Workload.SEARCH : Workload.INGEST;
+    }
+
+    private static boolean isMultipart(HttpServletRequest request) {
+        String contentType = request.getContentType();
+        return contentType != null && contentType.toLowerCase(Locale.ROOT).startsWith("multipart/");
+    }
+
+    // The container spools the parts and keeps them for the multipart resolver, so the body is read once
+    private static void receiveParts(HttpServletRequest request) {
+        try {
+            request.getParts();
+        } catch (IOException | ServletException | IllegalStateException e) {
+            // Reported by the multipart resolver, which sees the same failure again
+        }
+    }
+
+    private void reject(HttpServletResponse response, Workload workload) throws IOException {
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), new ErrorResponse("Service busy",
+                "All database connections for " + workload.name().toLowerCase() + " requests are in use"));
+    }
+
+    private final class Budget {
+
+        private final Semaphore permits;
+        private final Timer wait;
+        private final Counter rejected;
+
+        Budget(Workload workload, int limit) {
+            String tag = workload.name().toLowerCase();
+            this.permits = new Semaphore(limit);
+            this.wait = Timer.builder("docmanager.db.admission.wait")
+                    .description("Time requests waited for a connection budget permit")
+                    .tag("workload", tag)
+                    .register(meterRegistry);
+            this.rejected = Counter.builder("docmanager.db.admission.rejected")
+                    .description("Requests answered 503 because their workload's budget stayed full")
+                    .tag("workload", tag)
+                    .register(meterRegistry);
+            Gauge.builder("docmanager.db.admission.active", permits, p -> limit - p.availablePermits())
+                    .description("Requests currently holding a permit")
+                    .tag("workload", tag)
+                    .register(meterRegistry);
+            Gauge.builder("docmanager.db.admission.limit", () -> limit)
+                    .description("Connection budget of the workload")
+                    .tag("workload", tag)
+                    .register(meterRegistry);
+        }
+
+        boolean tryAcquire() {
+            long start = System.nanoTime();
+            boolean acquired;
+            try {
+                acquired = permits.tryAcquire(maxWait.toNanos(), TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                acquired = false;
+            }
+            wait.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            if (!acquired) {
+                rejected.increment();
+            }
+            return acquired;
+        }
+
+        void release() {
+            permits.release();
+        }
+    }
+}
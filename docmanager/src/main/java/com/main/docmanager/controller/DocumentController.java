@@ -1,19 +1,40 @@
 package com.main.docmanager.controller;
 
+import java.io.IOException;
+import java.net.URI;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
 
+import com.main.docmanager.dto.BulkDeleteRequest;
+import com.main.docmanager.dto.BulkDeleteResponse;
+import com.main.docmanager.dto.IngestionJob;
 import com.main.docmanager.model.Document;
+import com.main.docmanager.service.BlobStore;
 import com.main.docmanager.service.DocumentService;
+import com.main.docmanager.service.IngestionService;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -22,13 +43,26 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 
 @RestController
 @RequestMapping("/api/documents")
 public class DocumentController {
     private static final Logger logger = LoggerFactory.getLogger(DocumentController.class);
+    // Request attributes of Tomcat's sendfile support (the same mechanism its DefaultServlet uses)
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
     @Autowired
     private DocumentService documentService;
+    @Autowired
+    private IngestionService ingestionService;
+    @Autowired
+    private BlobStore blobStore;
+    @Value("${docmanager.blob.sendfile-min-size:48KB}")
+    private DataSize sendfileMinSize;
     @Operation(
             summary = "Upload a document",
             description = "Uploads a document file with an associated author. Requires ADMIN role and JWT authentication.",
@@ -71,6 +105,158 @@ public class DocumentController {
         }
     
     }
+    @Operation(
+            summary = "Upload several documents in one request",
+            description = "Parses the files in parallel and stores them in batched inserts. Requires ADMIN role and JWT authentication.",
+            security = @SecurityRequirement(name = "bearerAuth")
+        )
+        @ApiResponses({
+            @ApiResponse(
+                responseCode = "200",
+                description = "Documents uploaded successfully"
+            ),
+            @ApiResponse(
+                responseCode = "400",
+                description = "Invalid file or parameters",
+                content = @Content
+            )
+        })
+    @PostMapping("/upload/batch")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<Document>> uploadBatch(
+            @Parameter(description = "Files to upload", required = true) @RequestParam("files") List<MultipartFile> files,
+            @Parameter(description = "Author of the documents", required = true) @RequestParam String author
+        ) throws Exception {
+        try {
+            return ResponseEntity.ok(documentService.uploadBatch(files, author));
+        } catch (Exception ex) {
+        	logger.error("Exception occured while uploading the document batch ",ex.getMessage());
+        	throw ex;
+        }
+    }
+
+    @Operation(
+            summary = "Upload a document asynchronously",
+            description = "Queues the document for parsing and returns a job id immediately. Poll /api/documents/jobs/{id} for the result.",
+            security = @SecurityRequirement(name = "bearerAuth")
+        )
+        @ApiResponses({
+            @ApiResponse(
+                responseCode = "202",
+                description = "Document accepted for ingestion",
+                content = @Content(schema = @Schema(implementation = IngestionJob.class))
+            ),
+            @ApiResponse(
+                responseCode = "400",
+                description = "Invalid file or parameters",
+                content = @Content
+            ),
+            @ApiResponse(
+                responseCode = "429",
+                description = "Ingestion queue is full",
+                content = @Content
+            )
+        })
+    @PostMapping("/upload/async")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<IngestionJob> uploadAsync(
+            @Parameter(description = "File to upload", required = true) @RequestParam("file") MultipartFile file,
+            @Parameter(description = "Author of the document", required = true) @RequestParam String author
+        ) throws Exception {
+        IngestionJob job = ingestionService.submit(file, author);
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/documents/jobs/" + job.getId()))
+                .body(job);
+    }
+
+    @Operation(summary = "Get the status of an asynchronous upload")
+    @GetMapping("/jobs/{id}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<IngestionJob> job(@PathVariable String id) {
+        return ingestionService.getJob(id)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @Operation(
+            summary = "Download the original file of a document",
+            description = "Streams the uploaded bytes from the blob store. A single Range (optionally guarded by If-Range) returns 206 with just those bytes.",
+            security = @SecurityRequirement(name = "bearerAuth")
+        )
+        @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Whole file"),
+            @ApiResponse(responseCode = "206", description = "Requested byte range"),
+            @ApiResponse(responseCode = "404", description = "Unknown document, or its original was not kept", content = @Content),
+            @ApiResponse(responseCode = "416", description = "Range lies beyond the end of the file", content = @Content)
+        })
+    @GetMapping("/{id}/file")
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    public void download(@PathVariable Long id, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Optional<Document> document = documentService.findById(id);
+        Optional<BlobStore.Blob> stored = document.isPresent() ? blobStore.find(document.get().getContentHash()) : Optional.empty();
+        if (stored.isEmpty()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        BlobStore.Blob blob = stored.get();
+        // Blobs never change, so the content hash is a strong validator
+        String etag = "\"" + blob.hash() + "\"";
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (etag.equals(request.getHeader(HttpHeaders.IF_NONE_MATCH))) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        long start = 0;
+        long length = blob.size();
+        HttpRange range = requestedRange(request, etag);
+        if (range != null) {
+            start = range.getRangeStart(blob.size());
+            if (start >= blob.size()) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + blob.size());
+                response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            long end = range.getRangeEnd(blob.size());
+            length = end - start + 1;
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + blob.size());
+        }
+        String fileType = document.get().getFileType();
+        response.setContentType(fileType != null ? fileType : MediaType.APPLICATION_OCTET_STREAM_VALUE);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                ContentDisposition.attachment().filename(document.get().getTitle(), StandardCharsets.UTF_8).build().toString());
+        response.setContentLengthLong(length);
+        if ("HEAD".equals(request.getMethod())) {
+            return;
+        }
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED)) && length >= sendfileMinSize.toBytes()) {
+            // Tomcat sends the file from the kernel once this request returns
+            request.setAttribute(SENDFILE_FILENAME, blob.path().toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, start + length);
+            return;
+        }
+        blobStore.transferTo(blob, start, length, Channels.newChannel(response.getOutputStream()));
+    }
+
+    // Only a single range is honoured; multi-range requests and stale If-Range validators get the whole file
+    private static HttpRange requestedRange(HttpServletRequest request, String etag) {
+        String header = request.getHeader(HttpHeaders.RANGE);
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (header == null || (ifRange != null && !ifRange.equals(etag))) {
+            return null;
+        }
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(header);
+            return ranges.size() == 1 ? ranges.get(0) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
     @Operation(summary = "For deleting the document")
     @DeleteMapping("/delete")
     @PreAuthorize("hasRole('ADMIN')")
@@ -83,4 +269,16 @@ public class DocumentController {
             throw ex;
         }
     }
-}
\ No newline at end of file
+
+    @Operation(summary = "Delete documents by id list or by metadata filter",
+            description = "Send either ids or at least one of author, fileType, fromDate, toDate. Rows are removed with set-based "
+                    + "DELETE ... RETURNING in batches; stored text and original files are cleaned up in the background.")
+    @PostMapping("/bulk-delete")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<BulkDeleteResponse> bulkDelete(@RequestBody BulkDeleteRequest request) {
+        List<Long> deleted = request.ids() != null
+                ? documentService.deleteByIds(request.ids())
+                : documentService.deleteMatching(request.author(), request.fileType(), request.fromDate(), request.toDate());
+        return ResponseEntity.ok(new BulkDeleteResponse(deleted.size(), deleted));
+    }
+}
@@ -5,16 +5,23 @@ import java.util.List;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.main.docmanager.dto.CountMode;
+import com.main.docmanager.dto.CursorPage;
 import com.main.docmanager.dto.SearchResultDTO;
 import com.main.docmanager.model.Document;
 import com.main.docmanager.service.QaService;
+import com.main.docmanager.service.SearchCache;
 
 import io.swagger.v3.oas.annotations.Operation;
 
@@ -24,23 +31,76 @@ public class QaController {
 
 	 @Autowired
 	    private QaService qaService;
+
+	 @Autowired
+	    private SearchCache searchCache;
 	 
-	 @Operation(summary = "Search documents by query")
+	 @Operation(summary = "Search documents by query",
+	            description = "count=none (default) skips counting; exact or estimate add an X-Total-Count or X-Total-Count-Estimate header. X-Has-Next tells whether another page follows.")
 	    @GetMapping("/search")
 	    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
 	    public ResponseEntity<List<SearchResultDTO>> search(
-	            @RequestParam String query, Pageable pageable) {
-	        return ResponseEntity.ok(qaService.search(query, pageable));
+	            @RequestParam String query,
+	            @RequestParam(defaultValue = "none") String count,
+	            Pageable pageable) {
+	        Slice<SearchResultDTO> results = searchCache.search(query, pageable, CountMode.from(count));
+	        return ResponseEntity.ok().headers(countHeaders(results, CountMode.from(count))).body(results.getContent());
+	    }
+
+	    @Operation(summary = "Search documents with cursor pagination",
+	            description = "Ordered by relevance like /search when a search engine is configured, otherwise by upload time. "
+	                    + "Pass nextCursor from the previous response as cursor; no total count is computed.")
+	    @GetMapping("/search/cursor")
+	    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+	    public ResponseEntity<CursorPage<SearchResultDTO>> searchCursor(
+	            @RequestParam String query,
+	            @RequestParam(required = false) String cursor,
+	            @RequestParam(defaultValue = "20") int size) {
+	        return ResponseEntity.ok(qaService.searchAfter(query, cursor, size));
 	    }
 
-	    @Operation(summary = "Filter documents by metadata")
+	    @Operation(summary = "Filter documents by metadata with cursor pagination",
+	            description = "Ordered by upload time. Pass nextCursor from the previous response as cursor; no total count is computed.")
+	    @GetMapping("/filter/cursor")
+	    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+	    public ResponseEntity<CursorPage<Document>> filterCursor(@RequestParam(required = false) String author,
+	            @RequestParam(required = false, name = "fileType") String fileType,
+	            @RequestParam(required = false) String fromDate,
+	            @RequestParam(required = false) String toDate,
+	            @RequestParam(required = false) String cursor,
+	            @RequestParam(defaultValue = "20") int size) {
+	        return ResponseEntity.ok(qaService.filterAfter(author, fileType, fromDate, toDate, cursor, size));
+	    }
+
+	    @Operation(summary = "Get the extracted text of a document")
+	    @GetMapping(value = "/{id}/content", produces = MediaType.TEXT_PLAIN_VALUE)
+	    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+	    public ResponseEntity<String> content(@PathVariable Long id) {
+	        return qaService.getContent(id)
+	                .map(ResponseEntity::ok)
+	                .orElseGet(() -> ResponseEntity.notFound().build());
+	    }
+
+	    @Operation(summary = "Filter documents by metadata",
+	            description = "count=exact (default) returns a page with totals; estimate fills them from planner statistics; none returns a slice without totals.")
 	    @GetMapping("/filter")
 	    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
-	    public ResponseEntity<Page<Document>> filter(@RequestParam(required = false) String author,
+	    public ResponseEntity<Slice<Document>> filter(@RequestParam(required = false) String author,
 	            @RequestParam(required = false, name = "fileType") String fileType,
 	            @RequestParam(required = false)  String fromDate,
 	            @RequestParam(required = false)  String toDate,
+	            @RequestParam(defaultValue = "exact") String count,
 	            Pageable pageable) {
-	        return ResponseEntity.ok(qaService.filter(author, fileType,fromDate,toDate, pageable));
+	        Slice<Document> results = qaService.filter(author, fileType, fromDate, toDate, pageable, CountMode.from(count));
+	        return ResponseEntity.ok().headers(countHeaders(results, CountMode.from(count))).body(results);
+	    }
+
+	    private static HttpHeaders countHeaders(Slice<?> results, CountMode countMode) {
+	        HttpHeaders headers = new HttpHeaders();
+	        headers.set("X-Has-Next", String.valueOf(results.hasNext()));
+	        if (results instanceof Page<?> page) {
+	            headers.set(countMode == CountMode.ESTIMATE ? "X-Total-Count-Estimate" : "X-Total-Count", String.valueOf(page.getTotalElements()));
+	        }
+	        return headers;
 	    }
 }
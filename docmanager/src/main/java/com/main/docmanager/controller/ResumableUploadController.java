@@ -0,0 +1,92 @@
+package com.main.docmanager.controller;
+
+import java.net.URI;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.main.docmanager.dto.IngestionJob;
+import com.main.docmanager.dto.UploadSession;
+import com.main.docmanager.service.ResumableUploadService;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import jakarta.servlet.http.HttpServletRequest;
+
+@RestController
+@RequestMapping("/api/documents/uploads")
+public class ResumableUploadController {
+    @Autowired
+    private ResumableUploadService resumableUploadService;
+
+    @Operation(
+            summary = "Start a resumable upload",
+            description = "Creates an upload session for a large file. Send the bytes with PUT /api/documents/uploads/{id} and a Content-Range header.",
+            security = @SecurityRequirement(name = "bearerAuth")
+        )
+    @PostMapping
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<UploadSession> initiate(
+            @Parameter(description = "Original file name", required = true) @RequestParam String fileName,
+            @Parameter(description = "MIME type of the file", required = true) @RequestParam String contentType,
+            @Parameter(description = "Total size in bytes", required = true) @RequestParam long size,
+            @Parameter(description = "Author of the document", required = true) @RequestParam String author
+        ) throws Exception {
+        UploadSession session = resumableUploadService.initiate(fileName, contentType, size, author);
+        return ResponseEntity.created(URI.create("/api/documents/uploads/" + session.getId())).body(session);
+    }
+
+    @Operation(summary = "Upload one byte range of a resumable upload", security = @SecurityRequirement(name = "bearerAuth"))
+    @PutMapping("/{id}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<UploadSession> writeRange(
+            @PathVariable String id,
+            @Parameter(description = "bytes start-end/total", required = true) @RequestHeader(HttpHeaders.CONTENT_RANGE) String contentRange,
+            HttpServletRequest request
+        ) throws Exception {
+        return ResponseEntity.ok(resumableUploadService.writeRange(id, contentRange, request.getInputStream()));
+    }
+
+    @Operation(summary = "Get the received ranges of a resumable upload", security = @SecurityRequirement(name = "bearerAuth"))
+    @GetMapping("/{id}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<UploadSession> status(@PathVariable String id) {
+        return resumableUploadService.getSession(id)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @Operation(
+            summary = "Finish a resumable upload",
+            description = "Queues the assembled file for parsing. Poll /api/documents/jobs/{id} for the result.",
+            security = @SecurityRequirement(name = "bearerAuth")
+        )
+    @PostMapping("/{id}/complete")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<IngestionJob> complete(@PathVariable String id) {
+        IngestionJob job = resumableUploadService.complete(id);
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/documents/jobs/" + job.getId()))
+                .body(job);
+    }
+
+    @Operation(summary = "Abort a resumable upload", security = @SecurityRequirement(name = "bearerAuth"))
+    @DeleteMapping("/{id}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Void> abort(@PathVariable String id) throws Exception {
+        resumableUploadService.abort(id);
+        return ResponseEntity.noContent().build();
+    }
+}
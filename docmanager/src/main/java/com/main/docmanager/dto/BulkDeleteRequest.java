@@ -0,0 +1,7 @@
+package com.main.docmanager.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/** Either a list of ids or a metadata filter; a filter needs at least one criterion. */
+public record BulkDeleteRequest(List<Long> ids, String author, String fileType, LocalDateTime fromDate, LocalDateTime toDate) {}
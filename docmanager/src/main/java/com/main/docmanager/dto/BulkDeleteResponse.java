@@ -0,0 +1,5 @@
+package com.main.docmanager.dto;
+
+import java.util.List;
+
+public record BulkDeleteResponse(int deleted, List<Long> ids) {}
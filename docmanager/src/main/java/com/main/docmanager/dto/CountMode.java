@@ -0,0 +1,20 @@
+package com.main.docmanager.dto;
+
+import java.util.Locale;
+
+/**
+ * How a paged listing reports its total: {@code exact} runs a COUNT over the whole predicate,
+ * {@code estimate} reads the planner's row estimate, and {@code none} only reports whether another
+ * page follows.
+ */
+public enum CountMode {
+    EXACT, ESTIMATE, NONE;
+
+    public static CountMode from(String value) {
+        try {
+            return CountMode.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("count must be one of exact, estimate, none");
+        }
+    }
+}
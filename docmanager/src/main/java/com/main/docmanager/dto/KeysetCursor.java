@@ -0,0 +1,35 @@
+package com.main.docmanager.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position in the {@code (uploaded_at, id)} ordering, carried between requests as an opaque token.
+ * Clients must treat the token as a black box; its encoding may change.
+ */
+public record KeysetCursor(LocalDateTime uploadedAt, long id) {
+
+    /** Sorts before every stored row: upload times are stamped at insert and ids start at 1. */
+    public static final KeysetCursor START = new KeysetCursor(LocalDateTime.of(1, 1, 1, 0, 0), 0L);
+
+    public String encode() {
+        String raw = uploadedAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** Decodes a token from a previous response; a blank token means the first page. */
+    public static KeysetCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return START;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('|');
+            return new KeysetCursor(LocalDateTime.parse(raw.substring(0, separator)), Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + token);
+        }
+    }
+}
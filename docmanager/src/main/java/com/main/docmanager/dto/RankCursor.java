@@ -0,0 +1,34 @@
+package com.main.docmanager.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position in a search engine's {@code (score, id)} ranking, carried between requests as an opaque
+ * token like {@link KeysetCursor}. The score travels in full precision, so the engine finds the same
+ * position again.
+ */
+public record RankCursor(double score, long id) {
+
+    /** Ranks before every hit. */
+    public static final RankCursor START = new RankCursor(Double.POSITIVE_INFINITY, Long.MAX_VALUE);
+
+    public String encode() {
+        String raw = score + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** Decodes a token from a previous response; a blank token means the first page. */
+    public static RankCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return START;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('|');
+            return new RankCursor(Double.parseDouble(raw.substring(0, separator)), Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + token);
+        }
+    }
+}
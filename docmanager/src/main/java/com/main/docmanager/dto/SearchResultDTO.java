@@ -2,6 +2,7 @@
 package com.main.docmanager.dto;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 public class SearchResultDTO {
     private Long id;
@@ -9,13 +10,19 @@ public class SearchResultDTO {
     private String snippet;
     private LocalDateTime uploadedAt;
     private String author;
+    private List<SnippetFragment> fragments;
 
     public SearchResultDTO(Long id, String title, String snippet, LocalDateTime uploadedAt, String author) {
+        this(id, title, snippet, uploadedAt, author, List.of());
+    }
+
+    public SearchResultDTO(Long id, String title, String snippet, LocalDateTime uploadedAt, String author, List<SnippetFragment> fragments) {
         this.id = id;
         this.title = title;
         this.snippet = snippet;
         this.uploadedAt = uploadedAt;
         this.author = author;
+        this.fragments = fragments;
     }
 
     public Long getId() {
@@ -37,4 +44,8 @@ public class SearchResultDTO {
     public String getAuthor() {
         return author;
     }
+
+    public List<SnippetFragment> getFragments() {
+        return fragments;
+    }
 }
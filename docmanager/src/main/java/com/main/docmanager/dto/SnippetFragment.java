@@ -0,0 +1,12 @@
+package com.main.docmanager.dto;
+
+import java.util.List;
+
+/**
+ * One fragment of a search hit's body. Highlight offsets are relative to {@code text}, end exclusive,
+ * so a client can mark the matches without searching for them again.
+ */
+public record SnippetFragment(String text, List<Highlight> highlights) {
+
+    public record Highlight(int start, int end) {}
+}
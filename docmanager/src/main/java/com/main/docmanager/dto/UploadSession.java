@@ -0,0 +1,98 @@
+package com.main.docmanager.dto;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+public class UploadSession {
+
+    public record ByteRange(long start, long end) {}
+
+    private final String id;
+    private final String fileName;
+    private final String contentType;
+    private final long size;
+    private final String author;
+    private final LocalDateTime createdAt;
+    // Received ranges keyed by start offset, end exclusive; kept merged so completion is a single lookup
+    private final TreeMap<Long, Long> received = new TreeMap<>();
+    private volatile String jobId;
+
+    public UploadSession(String id, String fileName, String contentType, long size, String author) {
+        this.id = id;
+        this.fileName = fileName;
+        this.contentType = contentType;
+        this.size = size;
+        this.author = author;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public String getAuthor() {
+        return author;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public void setJobId(String jobId) {
+        this.jobId = jobId;
+    }
+
+    /** Records {@code [start, end)} as written, merging it with any overlapping or adjacent ranges. */
+    public synchronized void markReceived(long start, long end) {
+        Map.Entry<Long, Long> floor = received.floorEntry(start);
+        if (floor != null && floor.getValue() >= start) {
+            start = floor.getKey();
+            end = Math.max(end, floor.getValue());
+        }
+        Map.Entry<Long, Long> next = received.ceilingEntry(start);
+        while (next != null && next.getKey() <= end) {
+            end = Math.max(end, next.getValue());
+            received.remove(next.getKey());
+            next = received.ceilingEntry(start);
+        }
+        received.put(start, end);
+    }
+
+    /** Ranges written so far, end inclusive to match the Content-Range header clients resume with. */
+    public synchronized List<ByteRange> getReceived() {
+        List<ByteRange> ranges = new ArrayList<>(received.size());
+        received.forEach((start, end) -> ranges.add(new ByteRange(start, end - 1)));
+        return ranges;
+    }
+
+    public synchronized long getReceivedBytes() {
+        return received.entrySet().stream().mapToLong(range -> range.getValue() - range.getKey()).sum();
+    }
+
+    @JsonIgnore
+    public synchronized boolean isComplete() {
+        Long end = received.get(0L);
+        return end != null && end >= size;
+    }
+}
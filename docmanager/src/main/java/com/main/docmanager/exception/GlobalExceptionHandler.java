@@ -5,8 +5,11 @@ package com.main.docmanager.exception;
 import java.io.IOException;
 
 import org.apache.tika.exception.TikaException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.multipart.MaxUploadSizeExceededException;
@@ -26,6 +29,15 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
     }
 
+    @ExceptionHandler(ParseTimeoutException.class)
+    public ResponseEntity<ErrorResponse> handleParseTimeout(ParseTimeoutException ex) {
+        ErrorResponse error = new ErrorResponse(
+            "File parsing timed out",
+            ex.getMessage()
+        );
+        return new ResponseEntity<>(error, HttpStatus.UNPROCESSABLE_ENTITY);
+    }
+
     @ExceptionHandler(SAXException.class)
     public ResponseEntity<ErrorResponse> handleSAXException(SAXException ex) {
         ErrorResponse error = new ErrorResponse(
@@ -53,6 +65,25 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(error, HttpStatus.PAYLOAD_TOO_LARGE);
     }
 
+    @ExceptionHandler(IngestionQueueFullException.class)
+    public ResponseEntity<ErrorResponse> handleIngestionQueueFull(IngestionQueueFullException ex) {
+        ErrorResponse error = new ErrorResponse(
+            "Too many requests",
+            ex.getMessage()
+        );
+        return new ResponseEntity<>(error, HttpStatus.TOO_MANY_REQUESTS);
+    }
+
+    /** Hikari timed out handing out a connection, or the database is unreachable. */
+    @ExceptionHandler({CannotCreateTransactionException.class, DataAccessResourceFailureException.class})
+    public ResponseEntity<ErrorResponse> handleConnectionUnavailable(RuntimeException ex) {
+        ErrorResponse error = new ErrorResponse(
+            "Service busy",
+            "No database connection available, retry later"
+        );
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").body(error);
+    }
+
     @ExceptionHandler(IllegalArgumentException.class)
     public ResponseEntity<ErrorResponse> handleIllegalArgumentException(IllegalArgumentException ex) {
         ErrorResponse error = new ErrorResponse(
@@ -0,0 +1,8 @@
+package com.main.docmanager.exception;
+
+public class IngestionQueueFullException extends RuntimeException {
+
+    public IngestionQueueFullException(String message) {
+        super(message);
+    }
+}
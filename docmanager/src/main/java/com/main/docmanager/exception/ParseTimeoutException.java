@@ -0,0 +1,10 @@
+package com.main.docmanager.exception;
+
+import org.apache.tika.exception.TikaException;
+
+public class ParseTimeoutException extends TikaException {
+
+    public ParseTimeoutException(String message) {
+        super(message);
+    }
+}
@@ -3,21 +3,33 @@ package com.main.docmanager.model;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Table;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Column;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.JoinColumn;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Transient;
 import org.hibernate.annotations.CreationTimestamp;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "documents")
+@Table(name = "documents", indexes = {
+        @Index(name = "idx_documents_content_hash", columnList = "content_hash"),
+        @Index(name = "idx_documents_content_id", columnList = "content_id"),
+        @Index(name = "idx_documents_uploaded_at_id", columnList = "uploaded_at, id")
+})
 public class Document {
 
+    // Pooled sequence ids let Hibernate batch inserts; IDENTITY forces one INSERT round trip per row
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "documents_seq")
+    @SequenceGenerator(name = "documents_seq", sequenceName = "documents_seq", allocationSize = 50)
     private Long id;
 
     private String title;
@@ -29,8 +41,18 @@ public class Document {
     @Column(name="uploaded_at",updatable = false)
     private LocalDateTime uploadedAt;
 
-    @Column(columnDefinition = "TEXT")
-    private String content;
+    // Bodies can run to megabytes; listing and filtering never need them, so they load only when read
+    @JsonIgnore
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "content_id")
+    private DocumentContent content;
+
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    // Set when an upload matched an existing content hash and skipped parsing
+    @Transient
+    private boolean deduplicated;
 
     @ManyToOne
     @JoinColumn(name = "uploaded_by_id", referencedColumnName = "id")
@@ -43,7 +65,7 @@ public class Document {
         this.title = title;
         this.fileType = fileType;
         this.author = author;
-        this.content = content;
+        this.content = new DocumentContent(content);
         this.uploadedBy = uploadedBy;
     }
 
@@ -58,8 +80,12 @@ public class Document {
     public void setAuthor(String author) { this.author = author; }
     public LocalDateTime getUploadedAt() { return uploadedAt; }
     public void setUploadedAt(LocalDateTime uploadedAt) { this.uploadedAt = uploadedAt; }
-    public String getContent() { return content; }
-    public void setContent(String content) { this.content = content; }
+    public DocumentContent getContent() { return content; }
+    public void setContent(DocumentContent content) { this.content = content; }
+    public String getContentHash() { return contentHash; }
+    public void setContentHash(String contentHash) { this.contentHash = contentHash; }
+    public boolean isDeduplicated() { return deduplicated; }
+    public void setDeduplicated(boolean deduplicated) { this.deduplicated = deduplicated; }
     public User getUploadedBy() { return uploadedBy; }
     public void setUploadedBy(User uploadedBy) { this.uploadedBy = uploadedBy; }
 }
\ No newline at end of file
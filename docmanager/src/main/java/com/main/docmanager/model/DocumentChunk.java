@@ -0,0 +1,48 @@
+package com.main.docmanager.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+
+@Entity
+@Table(name = "document_chunks", indexes = @Index(name = "idx_document_chunks_content", columnList = "content_id, chunk_index", unique = true))
+public class DocumentChunk {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "document_chunks_seq")
+    @SequenceGenerator(name = "document_chunks_seq", sequenceName = "document_chunks_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "content_id", nullable = false)
+    private Long contentId;
+
+    @Column(name = "chunk_index", nullable = false)
+    private int chunkIndex;
+
+    @Column(columnDefinition = "TEXT")
+    private String text;
+
+    // Constructors
+    public DocumentChunk() {}
+
+    public DocumentChunk(Long contentId, int chunkIndex, String text) {
+        this.contentId = contentId;
+        this.chunkIndex = chunkIndex;
+        this.text = text;
+    }
+
+    // Getters and setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public Long getContentId() { return contentId; }
+    public void setContentId(Long contentId) { this.contentId = contentId; }
+    public int getChunkIndex() { return chunkIndex; }
+    public void setChunkIndex(int chunkIndex) { this.chunkIndex = chunkIndex; }
+    public String getText() { return text; }
+    public void setText(String text) { this.text = text; }
+}
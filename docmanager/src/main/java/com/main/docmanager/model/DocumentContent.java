@@ -0,0 +1,77 @@
+package com.main.docmanager.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+
+/**
+ * Extracted text of a document, kept out of the documents table so metadata queries stay narrow.
+ * Deduplicated uploads share one row; chunked documents leave {@code text} null and keep their text in
+ * document_chunks keyed by this id. When compression is enabled, large bodies are stored in
+ * {@code text_compressed} instead (see {@link TextCodec}) and only inflated on the first {@link #getText()}.
+ */
+@Entity
+@Table(name = "document_contents")
+public class DocumentContent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "document_contents_seq")
+    @SequenceGenerator(name = "document_contents_seq", sequenceName = "document_contents_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(columnDefinition = "TEXT")
+    private String text;
+
+    @Column(name = "text_compressed")
+    private byte[] compressedText;
+
+    @Transient
+    private String inflated;
+
+    // Constructors
+    public DocumentContent() {}
+
+    public DocumentContent(String text) {
+        this.text = text;
+    }
+
+    // Getters and setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public String getText() {
+        if (text == null && compressedText != null && inflated == null) {
+            inflated = TextCodec.decode(compressedText);
+        }
+        return text != null ? text : inflated;
+    }
+    public void setText(String text) {
+        this.text = text;
+        this.compressedText = null;
+        this.inflated = null;
+    }
+    public byte[] getCompressedText() { return compressedText; }
+    public boolean isCompressed() { return compressedText != null; }
+
+    /**
+     * Moves the text into {@code text_compressed} when the encoded form is smaller; the plain text stays
+     * cached on this instance so the caller can still read it without inflating.
+     */
+    public boolean compress(int level) {
+        if (text == null) {
+            return false;
+        }
+        byte[] encoded = TextCodec.encode(text, level);
+        if (encoded.length >= TextCodec.rawLength(encoded)) {
+            return false;
+        }
+        compressedText = encoded;
+        inflated = text;
+        text = null;
+        return true;
+    }
+}
@@ -0,0 +1,81 @@
+package com.main.docmanager.model;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Binary format of {@code document_contents.text_compressed}: an 8-byte header followed by a raw
+ * deflate stream of the UTF-8 text. The header carries a magic, a format version, the codec id and the
+ * uncompressed length, so the decoder allocates its output exactly once and new codecs can be added
+ * without rewriting stored rows.
+ */
+public final class TextCodec {
+
+    static final int HEADER_BYTES = 8;
+    private static final byte MAGIC_0 = 'D';
+    private static final byte MAGIC_1 = 'Z';
+    private static final byte VERSION = 1;
+    private static final byte CODEC_DEFLATE = 1;
+
+    private TextCodec() {}
+
+    public static byte[] encode(String text, int level) {
+        byte[] raw = text.getBytes(StandardCharsets.UTF_8);
+        Deflater deflater = new Deflater(level, true);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            // Extracted text compresses well; the buffer only grows for incompressible input
+            byte[] out = new byte[HEADER_BYTES + Math.max(64, raw.length / 2)];
+            int length = HEADER_BYTES;
+            while (!deflater.finished()) {
+                if (length == out.length) {
+                    out = Arrays.copyOf(out, out.length * 2);
+                }
+                length += deflater.deflate(out, length, out.length - length);
+            }
+            ByteBuffer.wrap(out, 0, HEADER_BYTES).put(MAGIC_0).put(MAGIC_1).put(VERSION).put(CODEC_DEFLATE).putInt(raw.length);
+            return Arrays.copyOf(out, length);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    public static String decode(byte[] stored) {
+        ByteBuffer header = ByteBuffer.wrap(stored);
+        if (stored.length < HEADER_BYTES || header.get() != MAGIC_0 || header.get() != MAGIC_1 || header.get() != VERSION) {
+            throw new IllegalStateException("Not a compressed document body");
+        }
+        byte codec = header.get();
+        if (codec != CODEC_DEFLATE) {
+            throw new IllegalStateException("Unknown compression codec " + codec);
+        }
+        byte[] raw = new byte[header.getInt()];
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(stored, HEADER_BYTES, stored.length - HEADER_BYTES);
+            int length = 0;
+            while (length < raw.length) {
+                int inflated = inflater.inflate(raw, length, raw.length - length);
+                if (inflated == 0 && (inflater.finished() || inflater.needsInput())) {
+                    throw new IllegalStateException("Truncated compressed document body");
+                }
+                length += inflated;
+            }
+            return new String(raw, StandardCharsets.UTF_8);
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt compressed document body", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /** Uncompressed UTF-8 size recorded in the header. */
+    public static int rawLength(byte[] stored) {
+        return ByteBuffer.wrap(stored, 4, 4).getInt();
+    }
+}
@@ -0,0 +1,26 @@
+package com.main.docmanager.repository;
+
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.main.docmanager.model.DocumentChunk;
+
+public interface DocumentChunkRepository extends JpaRepository<DocumentChunk, Long>, DocumentChunkRepositoryCustom {
+
+	@Query("SELECT c FROM DocumentChunk c WHERE c.contentId = :contentId AND LOWER(c.text) LIKE LOWER(CONCAT('%', :query, '%')) ORDER BY c.chunkIndex")
+	List<DocumentChunk> findMatching(@Param("contentId") Long contentId, @Param("query") String query, Pageable pageable);
+
+	@Query("SELECT c.text FROM DocumentChunk c WHERE c.contentId = :contentId ORDER BY c.chunkIndex")
+	List<String> findTexts(@Param("contentId") Long contentId);
+
+	@Modifying
+	@Transactional
+	@Query("DELETE FROM DocumentChunk c WHERE c.contentId = :contentId")
+	int deleteByContentId(@Param("contentId") Long contentId);
+}
@@ -0,0 +1,19 @@
+package com.main.docmanager.repository;
+
+import java.util.Collection;
+import java.util.Map;
+
+public interface DocumentChunkRepositoryCustom {
+
+	/**
+	 * Inserts the chunks in order, flushing and clearing the persistence context every JDBC batch so
+	 * only one batch of chunk text is ever held by Hibernate.
+	 */
+	int insertChunks(Long contentId, Iterable<String> chunks);
+
+	/**
+	 * The text of the first chunk of each content row that contains any of {@code terms}, ignoring case,
+	 * keyed by content id. One statement serves a whole result page; rows with no such chunk are left out.
+	 */
+	Map<Long, String> findFirstMatching(Collection<Long> contentIds, Collection<String> terms);
+}
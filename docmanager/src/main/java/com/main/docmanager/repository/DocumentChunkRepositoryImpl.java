@@ -0,0 +1,72 @@
+package com.main.docmanager.repository;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.SqlArrayValue;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.main.docmanager.model.DocumentChunk;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+public class DocumentChunkRepositoryImpl implements DocumentChunkRepositoryCustom {
+
+	// Each content row's chunks are walked in order on the (content_id, chunk_index) index, stopping at the first match
+	private static final String FIRST_MATCHING = "SELECT ids.id AS content_id, k.text FROM unnest(:contentIds) AS ids(id) " +
+			"CROSS JOIN LATERAL (SELECT c.text FROM document_chunks c WHERE c.content_id = ids.id " +
+			"AND LOWER(c.text) LIKE ANY(:patterns) ORDER BY c.chunk_index LIMIT 1) k";
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Autowired
+	private NamedParameterJdbcTemplate jdbcTemplate;
+
+	@Value("${docmanager.persistence.batch-size:50}")
+	private int batchSize;
+
+	@Override
+	@Transactional
+	public int insertChunks(Long contentId, Iterable<String> chunks) {
+		int index = 0;
+		for (String chunk : chunks) {
+			entityManager.persist(new DocumentChunk(contentId, index++, chunk));
+			if (index % batchSize == 0) {
+				entityManager.flush();
+				entityManager.clear();
+			}
+		}
+		entityManager.flush();
+		entityManager.clear();
+		return index;
+	}
+
+	@Override
+	public Map<Long, String> findFirstMatching(Collection<Long> contentIds, Collection<String> terms) {
+		Map<Long, String> texts = new HashMap<>();
+		if (contentIds.isEmpty() || terms.isEmpty()) {
+			return texts;
+		}
+		Object[] patterns = terms.stream().map(term -> "%" + escapeLike(term.toLowerCase(Locale.ROOT)) + "%").toArray();
+		jdbcTemplate.query(FIRST_MATCHING, new MapSqlParameterSource()
+				.addValue("contentIds", new SqlArrayValue("bigint", contentIds.toArray()))
+				.addValue("patterns", new SqlArrayValue("varchar", patterns)),
+				rs -> {
+					texts.put(rs.getLong("content_id"), rs.getString("text"));
+				});
+		return texts;
+	}
+
+	// Backslash is LIKE's default escape character
+	private static String escapeLike(String term) {
+		return term.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+	}
+}
@@ -0,0 +1,8 @@
+package com.main.docmanager.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import com.main.docmanager.model.DocumentContent;
+
+public interface DocumentContentRepository extends JpaRepository<DocumentContent, Long> {
+}
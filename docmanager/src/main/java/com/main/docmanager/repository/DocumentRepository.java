@@ -4,23 +4,80 @@ package com.main.docmanager.repository;
 
 
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import com.main.docmanager.model.Document;
 
-public interface DocumentRepository extends JpaRepository<Document, Long> {
-  
-	@Query("SELECT d FROM Document d WHERE LOWER(d.content) LIKE LOWER(CONCAT('%', :query, '%')) OR LOWER(d.title) LIKE LOWER(CONCAT('%', :query, '%'))")
+public interface DocumentRepository extends JpaRepository<Document, Long>, DocumentRepositoryCustom {
+
+	// Predicates shared by the paged, sliced and keyset variants of each listing.
+	// Search keeps the substring semantics of LOWER(x) LIKE '%q%' on title, body and chunks, but as one UNION
+	// branch per table: each branch is a bitmap scan of that table's pg_trgm index on LOWER(x) (V8), where an
+	// OR across the joined tables left the planner nothing but a scan of every body.
+	String SEARCH_MATCHES = "d.id IN (" +
+	        "SELECT t.id FROM Document t WHERE LOWER(t.title) LIKE LOWER(CONCAT('%', :query, '%')) " +
+	        "UNION SELECT cd.id FROM Document cd JOIN cd.content c WHERE LOWER(c.text) LIKE LOWER(CONCAT('%', :query, '%')) " +
+	        "UNION SELECT kd.id FROM Document kd, DocumentChunk k WHERE k.contentId = kd.content.id AND LOWER(k.text) LIKE LOWER(CONCAT('%', :query, '%')))";
+
+	// The casts give untyped null parameters a type Postgres accepts
+	String FILTER_MATCHES = "(:author IS NULL OR d.author = :author) AND " +
+	        "(:fileType IS NULL OR d.file_type = :fileType) AND " +
+	        "(CAST(:fromDate AS timestamp) IS NULL OR d.uploaded_at >= CAST(:fromDate AS timestamp)) AND " +
+	        "(CAST(:toDate AS timestamp) IS NULL OR d.uploaded_at <= CAST(:toDate AS timestamp))";
+
+	String FILTER_COLUMNS = "SELECT d.id, d.title, d.file_type, d.author, d.uploaded_at, d.content_hash, d.content_id, d.uploaded_by_id FROM documents d WHERE ";
+
+	Optional<Document> findFirstByContentHash(String contentHash);
+
+	// Search is the one listing that needs the body (for snippets), so it fetches it in the same query
+	@Query(value = "SELECT d FROM Document d LEFT JOIN FETCH d.content b WHERE " + SEARCH_MATCHES,
+	        countQuery = "SELECT COUNT(d) FROM Document d LEFT JOIN d.content b WHERE " + SEARCH_MATCHES)
     Page<Document> findByContentOrTitleContainingIgnoreCase(@Param("query") String query, Pageable pageable);
 
-	@Query(value = "SELECT * FROM documents d WHERE " +
-	           "(:author IS NULL OR d.author = :author) AND " +
-	           "(:fileType IS NULL OR d.file_type = :fileType) ",
+	// Loads one ranked page of search engine hits together with their bodies, for the snippets
+	@Query("SELECT d FROM Document d LEFT JOIN FETCH d.content WHERE d.id IN :ids")
+	List<Document> findAllWithContentByIdIn(@Param("ids") Collection<Long> ids);
+
+	// A Slice reads one row past the page to learn whether another exists, and never counts
+	@Query("SELECT d FROM Document d LEFT JOIN FETCH d.content b WHERE " + SEARCH_MATCHES)
+	Slice<Document> searchSlice(@Param("query") String query, Pageable pageable);
+
+	// Keyset pages seek straight to (afterUploadedAt, afterId) on idx_documents_uploaded_at_id and never count
+	@Query("SELECT d FROM Document d LEFT JOIN FETCH d.content b WHERE (d.uploadedAt, d.id) > (:afterUploadedAt, :afterId) AND " +
+	        SEARCH_MATCHES + " ORDER BY d.uploadedAt, d.id")
+	List<Document> searchAfter(@Param("query") String query,
+	        @Param("afterUploadedAt") LocalDateTime afterUploadedAt,
+	        @Param("afterId") Long afterId,
+	        Limit limit);
+
+	@Query("SELECT d FROM Document d WHERE (d.uploadedAt, d.id) > (:afterUploadedAt, :afterId) " +
+	        "AND (:author IS NULL OR d.author = :author) " +
+	        "AND (:fileType IS NULL OR d.fileType = :fileType) " +
+	        "AND (CAST(:fromDate AS LocalDateTime) IS NULL OR d.uploadedAt >= :fromDate) " +
+	        "AND (CAST(:toDate AS LocalDateTime) IS NULL OR d.uploadedAt <= :toDate) " +
+	        "ORDER BY d.uploadedAt, d.id")
+	List<Document> filterAfter(@Param("author") String author,
+	        @Param("fileType") String fileType,
+	        @Param("fromDate") LocalDateTime fromDate,
+	        @Param("toDate") LocalDateTime toDate,
+	        @Param("afterUploadedAt") LocalDateTime afterUploadedAt,
+	        @Param("afterId") Long afterId,
+	        Limit limit);
+
+	// Served by idx_documents_author_uploaded_at / idx_documents_file_type_uploaded_at, or the BRIN index
+	// on uploaded_at for date-only ranges
+	@Query(value = FILTER_COLUMNS + FILTER_MATCHES,
+	           countQuery = "SELECT COUNT(*) FROM documents d WHERE " + FILTER_MATCHES,
 	           nativeQuery = true)
     Page<Document> findByFilters(
             @Param("author") String author,
@@ -28,4 +85,12 @@ public interface DocumentRepository extends JpaRepository<Document, Long> {
             @Param("fromDate") LocalDateTime fromDate,
             @Param("toDate") LocalDateTime toDate,
             Pageable pageable);
-}
\ No newline at end of file
+
+	@Query(value = FILTER_COLUMNS + FILTER_MATCHES, nativeQuery = true)
+	Slice<Document> filterSlice(
+	        @Param("author") String author,
+	        @Param("fileType") String fileType,
+	        @Param("fromDate") LocalDateTime fromDate,
+	        @Param("toDate") LocalDateTime toDate,
+	        Pageable pageable);
+}
@@ -0,0 +1,42 @@
+package com.main.docmanager.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface DocumentRepositoryCustom {
+
+	/**
+	 * Row count the Postgres planner expects for the search predicate, read from EXPLAIN instead of
+	 * executing a COUNT. Accuracy depends on table statistics; LIKE patterns fall back to the planner's
+	 * default selectivity, so treat it as an order of magnitude.
+	 */
+	long estimateSearchCount(String query);
+
+	/** Planner row estimate for the metadata filter; see {@link #estimateSearchCount(String)}. */
+	long estimateFilterCount(String author, String fileType, LocalDateTime fromDate, LocalDateTime toDate);
+
+	/** A row removed by a bulk delete, with the keys of what it leaves behind. */
+	record DeletedDocument(Long id, Long contentId, String contentHash) {}
+
+	/** Deletes the documents in one statement and returns the rows that existed. */
+	List<DeletedDocument> deleteByIdIn(Collection<Long> ids);
+
+	/**
+	 * Deletes up to {@code limit} documents matching the metadata filter in one statement. Purges call
+	 * it until it returns fewer rows than the limit, so each transaction stays short.
+	 */
+	List<DeletedDocument> deleteMatching(String author, String fileType, LocalDateTime fromDate, LocalDateTime toDate, int limit);
+
+	/** Removes the content rows and chunks among {@code contentIds} that no document references any more. */
+	int deleteUnreferencedContents(Collection<Long> contentIds);
+
+	/** The hashes among {@code contentHashes} that no document carries any more. */
+	List<String> findUnreferencedHashes(Collection<String> contentHashes);
+
+	/**
+	 * Takes a transaction-scoped advisory lock per hash. Storing a blob for new rows and deleting an
+	 * unreferenced blob both hold it, so neither can act on a reference check the other invalidates.
+	 */
+	void lockContentHashes(Collection<String> contentHashes);
+}
@@ -0,0 +1,117 @@
+package com.main.docmanager.repository;
+
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.SqlArrayValue;
+
+public class DocumentRepositoryImpl implements DocumentRepositoryCustom {
+
+	// The top plan node's estimate, e.g. "Seq Scan on documents d  (cost=0.00..431.00 rows=1840 width=4)"
+	private static final Pattern PLAN_ROWS = Pattern.compile("rows=(\\d+)");
+
+	// SQL form of DocumentRepository.SEARCH_MATCHES
+	static final String SEARCH_SQL = "SELECT 1 FROM documents d WHERE d.id IN (" +
+			"SELECT t.id FROM documents t WHERE LOWER(t.title) LIKE LOWER('%' || :query || '%') " +
+			"UNION SELECT cd.id FROM documents cd JOIN document_contents c ON c.id = cd.content_id WHERE LOWER(c.text) LIKE LOWER('%' || :query || '%') " +
+			"UNION SELECT kd.id FROM documents kd JOIN document_chunks k ON k.content_id = kd.content_id WHERE LOWER(k.text) LIKE LOWER('%' || :query || '%'))";
+
+	private static final String FILTER_SQL = "SELECT 1 FROM documents d WHERE " + DocumentRepository.FILTER_MATCHES;
+
+	private static final String RETURNING_DELETED = " RETURNING id, content_id, content_hash";
+
+	private static final RowMapper<DeletedDocument> DELETED_DOCUMENT = (rs, rowNum) ->
+			new DeletedDocument(rs.getLong("id"), rs.getObject("content_id", Long.class), rs.getString("content_hash"));
+
+	// Ids and hashes travel as one array parameter, so the statement text and plan stay the same for any list size
+	private static final String DELETE_BY_IDS = "DELETE FROM documents WHERE id = ANY(:ids)" + RETURNING_DELETED;
+
+	private static final String DELETE_MATCHING = "DELETE FROM documents WHERE id IN " +
+			"(SELECT d.id FROM documents d WHERE " + DocumentRepository.FILTER_MATCHES + " LIMIT :limit)" + RETURNING_DELETED;
+
+	// Chunks have no foreign key to their content row, so they go first and by the same test
+	private static final String DELETE_UNREFERENCED_CHUNKS = "DELETE FROM document_chunks c WHERE c.content_id = ANY(:ids) " +
+			"AND NOT EXISTS (SELECT 1 FROM documents d WHERE d.content_id = c.content_id)";
+
+	private static final String DELETE_UNREFERENCED_CONTENTS = "DELETE FROM document_contents b WHERE b.id = ANY(:ids) " +
+			"AND NOT EXISTS (SELECT 1 FROM documents d WHERE d.content_id = b.id)";
+
+	private static final String UNREFERENCED_HASHES = "SELECT h FROM unnest(:hashes) h " +
+			"WHERE NOT EXISTS (SELECT 1 FROM documents d WHERE d.content_hash = h)";
+
+	// Sorted, so two transactions locking overlapping sets always queue in the same order and never deadlock
+	private static final String LOCK_HASHES = "SELECT count(pg_advisory_xact_lock(hashtextextended(h, 0))) " +
+			"FROM (SELECT DISTINCT unnest(:hashes) AS h ORDER BY h) s";
+
+	@Autowired
+	private NamedParameterJdbcTemplate jdbcTemplate;
+
+	@Override
+	public long estimateSearchCount(String query) {
+		return estimate(SEARCH_SQL, new MapSqlParameterSource().addValue("query", query, Types.VARCHAR));
+	}
+
+	@Override
+	public long estimateFilterCount(String author, String fileType, LocalDateTime fromDate, LocalDateTime toDate) {
+		return estimate(FILTER_SQL, new MapSqlParameterSource()
+				.addValue("author", author, Types.VARCHAR)
+				.addValue("fileType", fileType, Types.VARCHAR)
+				.addValue("fromDate", fromDate, Types.TIMESTAMP)
+				.addValue("toDate", toDate, Types.TIMESTAMP));
+	}
+
+	@Override
+	public List<DeletedDocument> deleteByIdIn(Collection<Long> ids) {
+		return jdbcTemplate.query(DELETE_BY_IDS, new MapSqlParameterSource("ids", bigintArray(ids)), DELETED_DOCUMENT);
+	}
+
+	@Override
+	public List<DeletedDocument> deleteMatching(String author, String fileType, LocalDateTime fromDate, LocalDateTime toDate, int limit) {
+		return jdbcTemplate.query(DELETE_MATCHING, new MapSqlParameterSource()
+				.addValue("author", author, Types.VARCHAR)
+				.addValue("fileType", fileType, Types.VARCHAR)
+				.addValue("fromDate", fromDate, Types.TIMESTAMP)
+				.addValue("toDate", toDate, Types.TIMESTAMP)
+				.addValue("limit", limit), DELETED_DOCUMENT);
+	}
+
+	@Override
+	public int deleteUnreferencedContents(Collection<Long> contentIds) {
+		MapSqlParameterSource parameters = new MapSqlParameterSource("ids", bigintArray(contentIds));
+		jdbcTemplate.update(DELETE_UNREFERENCED_CHUNKS, parameters);
+		return jdbcTemplate.update(DELETE_UNREFERENCED_CONTENTS, parameters);
+	}
+
+	@Override
+	public List<String> findUnreferencedHashes(Collection<String> contentHashes) {
+		return jdbcTemplate.queryForList(UNREFERENCED_HASHES,
+				new MapSqlParameterSource("hashes", new SqlArrayValue("varchar", contentHashes.toArray())), String.class);
+	}
+
+	@Override
+	public void lockContentHashes(Collection<String> contentHashes) {
+		jdbcTemplate.queryForObject(LOCK_HASHES,
+				new MapSqlParameterSource("hashes", new SqlArrayValue("varchar", contentHashes.toArray())), Long.class);
+	}
+
+	private static SqlArrayValue bigintArray(Collection<Long> values) {
+		return new SqlArrayValue("bigint", values.toArray());
+	}
+
+	private long estimate(String sql, MapSqlParameterSource parameters) {
+		List<String> plan = jdbcTemplate.queryForList("EXPLAIN " + sql, parameters, String.class);
+		Matcher matcher = plan.isEmpty() ? null : PLAN_ROWS.matcher(plan.get(0));
+		if (matcher == null || !matcher.find()) {
+			throw new IllegalStateException("No row estimate in plan: " + plan);
+		}
+		return Long.parseLong(matcher.group(1));
+	}
+}
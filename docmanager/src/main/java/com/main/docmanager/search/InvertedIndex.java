@@ -0,0 +1,271 @@
+package com.main.docmanager.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Term dictionary, positional postings and per-document norms (token counts) for the whole corpus,
+ * scored with BM25. A query matches documents containing every term, or the terms as consecutive
+ * words for a phrase. Removed documents leave their postings behind as tombstones until enough pile
+ * up to make a compaction pass worthwhile. Not thread-safe; callers serialise writes against reads.
+ */
+final class InvertedIndex {
+
+    static final double K1 = 1.2;
+    static final double B = 0.75;
+    /** Positions left empty after the title so phrases never run from it into the body. */
+    static final int FIELD_GAP = 16;
+
+    private static final int MIN_TOMBSTONES_TO_COMPACT = 1024;
+
+    private final Map<String, PostingList> dictionary = new HashMap<>();
+    private final Map<Long, Integer> lengths = new HashMap<>();
+    private final Set<Long> tombstones = new HashSet<>();
+    private long totalLength;
+
+    /**
+     * Indexes a document's title and body; the body may come in several parts. Returns false, leaving
+     * the index unchanged, if the document is already indexed or was removed in the meantime.
+     */
+    boolean add(long docId, String title, Iterable<String> body) {
+        if (lengths.containsKey(docId) || tombstones.contains(docId)) {
+            return false;
+        }
+        Map<String, Positions> terms = new HashMap<>();
+        Tokenizer tokenizer = new Tokenizer((term, position) -> terms.computeIfAbsent(term, t -> new Positions()).add(position));
+        if (title != null) {
+            tokenizer.feed(title);
+        }
+        tokenizer.endField(FIELD_GAP);
+        for (String part : body) {
+            if (part != null) {
+                tokenizer.feed(part);
+            }
+        }
+        tokenizer.endField(0);
+
+        terms.forEach((term, positions) -> dictionary.computeIfAbsent(term, t -> new PostingList()).add(docId, positions.values, positions.size));
+        lengths.put(docId, tokenizer.tokens());
+        totalLength += tokenizer.tokens();
+        return true;
+    }
+
+    void remove(long docId) {
+        Integer length = lengths.remove(docId);
+        if (length != null) {
+            totalLength -= length;
+        }
+        // Kept even for unknown ids, so an upload indexed after its own delete stays out
+        tombstones.add(docId);
+        if (tombstones.size() >= MIN_TOMBSTONES_TO_COMPACT && tombstones.size() * 4L >= lengths.size()) {
+            compact();
+        }
+    }
+
+    void compact() {
+        dictionary.values().forEach(postings -> postings.removeIf(tombstones::contains));
+        dictionary.values().removeIf(postings -> postings.docCount() == 0);
+        tombstones.clear();
+    }
+
+    int documentCount() {
+        return lengths.size();
+    }
+
+    int termCount() {
+        return dictionary.size();
+    }
+
+    long postingBytes() {
+        return dictionary.values().stream().mapToLong(PostingList::sizeInBytes).sum();
+    }
+
+    /** The {@code limit} best matches after skipping {@code offset}, with the total number of matches. */
+    SearchHits search(List<String> terms, boolean phrase, int offset, int limit) {
+        Candidates candidates = match(terms, phrase);
+        return candidates == null ? new SearchHits(List.of(), 0) : candidates.top(offset, limit, Double.POSITIVE_INFINITY, Long.MAX_VALUE);
+    }
+
+    /** The {@code limit} best matches ranked below {@code score} and {@code id}, with the total number of matches. */
+    SearchHits searchAfter(List<String> terms, boolean phrase, double score, long id, int limit) {
+        Candidates candidates = match(terms, phrase);
+        return candidates == null ? new SearchHits(List.of(), 0) : candidates.top(0, limit, score, id);
+    }
+
+    // Every document holding all the terms, scored; null when none can
+    private Candidates match(List<String> terms, boolean phrase) {
+        List<String> distinct = terms.stream().distinct().toList();
+        if (distinct.isEmpty() || lengths.isEmpty()) {
+            return null;
+        }
+        PostingList[] lists = new PostingList[distinct.size()];
+        for (int i = 0; i < lists.length; i++) {
+            lists[i] = dictionary.get(distinct.get(i));
+            if (lists[i] == null) {
+                return null;
+            }
+        }
+        // Intersect from the rarest term so the candidate set only ever shrinks
+        Arrays.sort(lists, Comparator.comparingInt(PostingList::docCount));
+        Candidates candidates = Candidates.of(lists[0], idf(lists[0]), this);
+        for (int i = 1; i < lists.length && candidates.size > 0; i++) {
+            candidates.retainAndScore(lists[i], idf(lists[i]), this);
+        }
+        if (phrase && terms.size() > 1 && candidates.size > 0) {
+            candidates.retainPhrases(terms.stream().map(dictionary::get).toList());
+        }
+        return candidates;
+    }
+
+    private double idf(PostingList postings) {
+        // Tombstoned postings still count towards docCount until the next compaction
+        int n = lengths.size();
+        int df = Math.min(postings.docCount(), n);
+        return Math.log(1 + (n - df + 0.5) / (df + 0.5));
+    }
+
+    private double bm25(double idf, int freq, int length) {
+        double averageLength = (double) totalLength / lengths.size();
+        double norm = K1 * (1 - B + B * length / Math.max(averageLength, 1));
+        return idf * freq * (K1 + 1) / (freq + norm);
+    }
+
+    private static final class Positions {
+
+        private int[] values = new int[2];
+        private int size;
+
+        void add(int position) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = position;
+        }
+    }
+
+    /** Documents still in the running, in ascending id order, with their scores so far. */
+    private static final class Candidates {
+
+        private long[] docs;
+        private int[] lengths;
+        private double[] scores;
+        private int size;
+
+        static Candidates of(PostingList postings, double idf, InvertedIndex index) {
+            Candidates candidates = new Candidates();
+            candidates.docs = new long[postings.docCount()];
+            candidates.lengths = new int[postings.docCount()];
+            candidates.scores = new double[postings.docCount()];
+            PostingList.Reader reader = postings.reader();
+            while (reader.next()) {
+                Integer length = index.lengths.get(reader.doc());
+                if (length != null) {
+                    candidates.docs[candidates.size] = reader.doc();
+                    candidates.lengths[candidates.size] = length;
+                    candidates.scores[candidates.size] = index.bm25(idf, reader.freq(), length);
+                    candidates.size++;
+                }
+            }
+            return candidates;
+        }
+
+        void retainAndScore(PostingList postings, double idf, InvertedIndex index) {
+            PostingList.Reader reader = postings.reader();
+            boolean more = reader.next();
+            int kept = 0;
+            for (int i = 0; i < size && more; i++) {
+                while (more && reader.doc() < docs[i]) {
+                    more = reader.next();
+                }
+                if (more && reader.doc() == docs[i]) {
+                    keep(i, kept++, scores[i] + index.bm25(idf, reader.freq(), lengths[i]));
+                }
+            }
+            size = kept;
+        }
+
+        /**
+         * Keeps the documents where the terms occur as consecutive words, in query order. One reader per
+         * query term walks alongside the candidates, so positions are decoded only for surviving documents.
+         */
+        void retainPhrases(List<PostingList> termPostings) {
+            PostingList.Reader[] readers = termPostings.stream().map(PostingList::reader).toArray(PostingList.Reader[]::new);
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                for (PostingList.Reader reader : readers) {
+                    // Every candidate holds every term, so each reader stops exactly on it
+                    while (reader.doc() < docs[i]) {
+                        reader.next();
+                    }
+                }
+                if (containsPhrase(readers)) {
+                    keep(i, kept++, scores[i]);
+                }
+            }
+            size = kept;
+        }
+
+        private static boolean containsPhrase(PostingList.Reader[] readers) {
+            int[] first = readers[0].positions();
+            for (int p = 0; p < readers[0].freq(); p++) {
+                int t = 1;
+                while (t < readers.length
+                        && Arrays.binarySearch(readers[t].positions(), 0, readers[t].freq(), first[p] + t) >= 0) {
+                    t++;
+                }
+                if (t == readers.length) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void keep(int from, int to, double score) {
+            docs[to] = docs[from];
+            lengths[to] = lengths[from];
+            scores[to] = score;
+        }
+
+        // Only documents ranked below afterScore and afterId compete, so a keyset page keeps a heap of limit
+        SearchHits top(int offset, int limit, double afterScore, long afterId) {
+            int wanted = (int) Math.min((long) offset + limit, size);
+            if (offset >= wanted) {
+                return new SearchHits(List.of(), size);
+            }
+            // Min-heap of the best `wanted` so far; equal scores rank the newer (higher) id first
+            Comparator<Integer> worstFirst = Comparator.<Integer>comparingDouble(i -> scores[i]).thenComparingLong(i -> docs[i]);
+            PriorityQueue<Integer> best = new PriorityQueue<>(wanted, worstFirst);
+            for (int i = 0; i < size; i++) {
+                if (scores[i] > afterScore || scores[i] == afterScore && docs[i] >= afterId) {
+                    continue;
+                }
+                if (best.size() < wanted) {
+                    best.add(i);
+                } else if (worstFirst.compare(i, best.peek()) > 0) {
+                    best.poll();
+                    best.add(i);
+                }
+            }
+            List<Long> ranked = new ArrayList<>(wanted);
+            List<Double> rankedScores = new ArrayList<>(wanted);
+            while (!best.isEmpty()) {
+                int i = best.poll();
+                ranked.add(docs[i]);
+                rankedScores.add(scores[i]);
+            }
+            Collections.reverse(ranked);
+            Collections.reverse(rankedScores);
+            int from = Math.min(offset, ranked.size());
+            return new SearchHits(new ArrayList<>(ranked.subList(from, ranked.size())), size, Map.of(),
+                    new ArrayList<>(rankedScores.subList(from, rankedScores.size())));
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.main.docmanager.search;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiFunction;
+import java.util.function.ToDoubleFunction;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.main.docmanager.repository.DocumentRepositoryCustom.DeletedDocument;
+import com.main.docmanager.service.DocumentsDeletedEvent;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Keeps an {@link InvertedIndex} of the whole corpus in this JVM, so a search reads a few postings
+ * lists instead of scanning every body with LIKE. {@link SearchIndexLoader} fills it at startup and
+ * the upload and delete paths keep it current. Searches share a read lock; writes take it exclusively.
+ */
+@Component
+@ConditionalOnProperty(name = "docmanager.search.engine", havingValue = "inverted-index", matchIfMissing = true)
+public class InvertedIndexSearchEngine implements SearchEngine {
+
+    private final InvertedIndex index = new InvertedIndex();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Timer searchTimer;
+
+    @PostConstruct
+    void registerMetrics() {
+        searchTimer = Timer.builder("docmanager.search.latency")
+                .description("Time to rank one search page")
+                .tag("engine", "inverted-index")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        gauge("docmanager.search.index.documents", "Documents in the in-memory index", InvertedIndex::documentCount);
+        gauge("docmanager.search.index.terms", "Distinct terms in the in-memory index", InvertedIndex::termCount);
+        gauge("docmanager.search.index.postings.bytes", "Compressed size of the in-memory postings", InvertedIndex::postingBytes);
+    }
+
+    @Override
+    public void index(long documentId, String title, Iterable<String> body) {
+        lock.writeLock().lock();
+        try {
+            index.add(documentId, title, body);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Collection<Long> documentIds) {
+        lock.writeLock().lock();
+        try {
+            documentIds.forEach(index::remove);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public SearchHits search(String query, int offset, int limit) {
+        return search(query, (terms, phrase) -> index.search(terms, phrase, offset, limit));
+    }
+
+    @Override
+    public SearchHits searchAfter(String query, double score, long id, int limit) {
+        return search(query, (terms, phrase) -> index.searchAfter(terms, phrase, score, id, limit));
+    }
+
+    private SearchHits search(String query, BiFunction<List<String>, Boolean, SearchHits> page) {
+        String trimmed = query == null ? "" : query.strip();
+        boolean phrase = trimmed.length() > 1 && trimmed.startsWith("\"") && trimmed.endsWith("\"");
+        List<String> terms = Tokenizer.terms(trimmed);
+        return searchTimer.record(() -> {
+            lock.readLock().lock();
+            try {
+                return page.apply(terms, phrase);
+            } finally {
+                lock.readLock().unlock();
+            }
+        });
+    }
+
+    // Tokenized as the index is, so a hit on non-adjacent words still finds its snippet
+    @Override
+    public List<String> terms(String query) {
+        return Tokenizer.terms(query == null ? "" : query).stream().distinct().toList();
+    }
+
+    // Deletes publish after commit, so the documents are already gone from the database
+    @EventListener
+    public void onDocumentsDeleted(DocumentsDeletedEvent event) {
+        remove(event.documents().stream().map(DeletedDocument::id).toList());
+    }
+
+    private void gauge(String name, String description, ToDoubleFunction<InvertedIndex> value) {
+        Gauge.builder(name, index, idx -> {
+                    lock.readLock().lock();
+                    try {
+                        return value.applyAsDouble(idx);
+                    } finally {
+                        lock.readLock().unlock();
+                    }
+                })
+                .description(description)
+                .register(meterRegistry);
+    }
+}
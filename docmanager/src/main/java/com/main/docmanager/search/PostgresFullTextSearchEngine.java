@@ -0,0 +1,181 @@
+package com.main.docmanager.search;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.support.SqlArrayValue;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Full-text search inside Postgres, for deployments that keep all state in the database. The tsvector
+ * columns are maintained by triggers (see V5__search_vectors.sql), so {@link #index} and {@link #remove}
+ * have nothing to do. Matching uses the GIN index of each table, ranking is {@code ts_rank_cd} with the
+ * title weighted above the body, and snippets are {@code ts_headline} fragments around the matches.
+ */
+@Component
+@ConditionalOnProperty(name = "docmanager.search.engine", havingValue = "postgres-fts")
+public class PostgresFullTextSearchEngine implements SearchEngine {
+
+    // One UNION branch per table so each is a bitmap scan of its own GIN index; an OR across the join
+    // would leave the planner nothing but a scan of every document. The 'english' configuration is the
+    // one the V5 triggers build the vectors with.
+    private static final String MATCHES = """
+            WITH q AS (SELECT websearch_to_tsquery('english', :query) AS query),
+            matches AS (
+                SELECT d.id FROM documents d, q WHERE d.title_tsv @@ q.query
+                UNION
+                SELECT d.id FROM document_contents c JOIN documents d ON d.content_id = c.id, q WHERE c.text_tsv @@ q.query
+                UNION
+                SELECT d.id FROM document_chunks k JOIN documents d ON d.content_id = k.content_id, q WHERE k.text_tsv @@ q.query
+            )
+            """;
+
+    private static final String RANKED = """
+            SELECT d.id, count(*) OVER () AS total,
+                   ts_rank_cd(setweight(coalesce(d.title_tsv, ''::tsvector), 'A') || coalesce(c.text_tsv, ''::tsvector), q.query)
+                   + coalesce((SELECT max(ts_rank_cd(k.text_tsv, q.query)) FROM document_chunks k
+                               WHERE k.content_id = d.content_id AND k.text_tsv @@ q.query), 0) AS rank
+            FROM matches m JOIN documents d ON d.id = m.id LEFT JOIN document_contents c ON c.id = d.content_id, q
+            """;
+
+    // Counting in the window is close to free because ranking already visits every match
+    static final String SEARCH_SQL = MATCHES + RANKED + """
+            ORDER BY rank DESC, d.id DESC
+            LIMIT :limit OFFSET :offset
+            """;
+
+    // The rank is a real; the cursor carries it back exactly, so equal ranks compare equal
+    static final String SEARCH_AFTER_SQL = MATCHES + "SELECT r.id, r.total, r.rank FROM (" + RANKED + """
+            ) r
+            WHERE r.rank < :rank OR (r.rank = :rank AND r.id < :id)
+            ORDER BY r.rank DESC, r.id DESC
+            LIMIT :limit
+            """;
+
+    static final String COUNT_SQL = MATCHES + "SELECT count(*) FROM matches";
+
+    // Chunked bodies are highlighted in their first matching chunk; the body is capped like the trigger caps it
+    static final String HEADLINE_SQL = """
+            WITH q AS (SELECT websearch_to_tsquery('english', :query) AS query)
+            SELECT d.id, ts_headline('english',
+                       coalesce(left(c.text, 500000),
+                                (SELECT k.text FROM document_chunks k WHERE k.content_id = d.content_id AND k.text_tsv @@ q.query
+                                 ORDER BY k.chunk_index LIMIT 1),
+                                d.title, ''),
+                       q.query, :options) AS snippet
+            FROM documents d LEFT JOIN document_contents c ON c.id = d.content_id, q
+            WHERE d.id = ANY(:ids)
+            """;
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${docmanager.search.postgres.highlight.start:**}")
+    private String highlightStart;
+
+    @Value("${docmanager.search.postgres.highlight.stop:**}")
+    private String highlightStop;
+
+    @Value("${docmanager.search.postgres.highlight.max-fragments:2}")
+    private int maxFragments;
+
+    @Value("${docmanager.search.postgres.highlight.max-words:25}")
+    private int maxWords;
+
+    private Timer searchTimer;
+
+    @PostConstruct
+    void registerMetrics() {
+        searchTimer = Timer.builder("docmanager.search.latency")
+                .description("Time to rank one search page")
+                .tag("engine", "postgres-fts")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void index(long documentId, String title, Iterable<String> body) {
+    }
+
+    @Override
+    public void remove(Collection<Long> documentIds) {
+    }
+
+    @Override
+    public SearchHits search(String query, int offset, int limit) {
+        if (query == null || query.isBlank()) {
+            return new SearchHits(List.of(), 0);
+        }
+        return searchTimer.record(() -> page(query, SEARCH_SQL, new MapSqlParameterSource()
+                .addValue("query", query)
+                .addValue("limit", limit)
+                .addValue("offset", offset), offset > 0));
+    }
+
+    @Override
+    public SearchHits searchAfter(String query, double score, long id, int limit) {
+        if (query == null || query.isBlank()) {
+            return new SearchHits(List.of(), 0);
+        }
+        return searchTimer.record(() -> page(query, SEARCH_AFTER_SQL, new MapSqlParameterSource()
+                .addValue("query", query)
+                .addValue("rank", score)
+                .addValue("id", id)
+                .addValue("limit", limit), false));
+    }
+
+    private SearchHits page(String query, String sql, SqlParameterSource params, boolean countIfEmpty) {
+        long[] total = {0};
+        List<Double> scores = new ArrayList<>();
+        List<Long> ids = jdbcTemplate.query(sql, params, (rs, rowNum) -> {
+            total[0] = rs.getLong("total");
+            scores.add(rs.getDouble("rank"));
+            return rs.getLong("id");
+        });
+        if (ids.isEmpty()) {
+            // A page past the end has no rows to carry the window count
+            return new SearchHits(List.of(), countIfEmpty ? count(query) : 0);
+        }
+        return new SearchHits(ids, total[0], headlines(query, ids), scores);
+    }
+
+    private long count(String query) {
+        Long total = jdbcTemplate.queryForObject(COUNT_SQL, new MapSqlParameterSource("query", query), Long.class);
+        return total == null ? 0 : total;
+    }
+
+    private Map<Long, String> headlines(String query, List<Long> ids) {
+        SqlParameterSource params = new MapSqlParameterSource()
+                .addValue("query", query)
+                .addValue("ids", new SqlArrayValue("bigint", ids.toArray()))
+                .addValue("options", headlineOptions());
+        Map<Long, String> snippets = new HashMap<>();
+        jdbcTemplate.query(HEADLINE_SQL, params, rs -> {
+            snippets.put(rs.getLong("id"), rs.getString("snippet"));
+        });
+        return snippets;
+    }
+
+    // Bound as a parameter, so the configured markers never reach the SQL text
+    String headlineOptions() {
+        return "StartSel=\"" + highlightStart.replace("\"", "") + "\", StopSel=\"" + highlightStop.replace("\"", "")
+                + "\", MaxFragments=" + maxFragments + ", MaxWords=" + maxWords + ", MinWords=" + Math.max(1, maxWords / 3)
+                + ", FragmentDelimiter=\" ... \"";
+    }
+}
@@ -0,0 +1,161 @@
+package com.main.docmanager.search;
+
+import java.util.Arrays;
+import java.util.function.LongPredicate;
+
+/**
+ * The postings of one term in ascending document order, packed as variable-length integers: per
+ * document the gap to the previous id, the term frequency, then the gaps between its positions. Most
+ * gaps fit in one byte, so a posting costs a few bytes instead of the dozens a boxed entry would.
+ */
+final class PostingList {
+
+    private byte[] data = new byte[8];
+    private int size;
+    private int docCount;
+    private long lastDoc = -1;
+
+    int docCount() {
+        return docCount;
+    }
+
+    int sizeInBytes() {
+        return size;
+    }
+
+    /** Appends a document; {@code positions} holds {@code freq} ascending positions. */
+    void add(long docId, int[] positions, int freq) {
+        if (docId <= lastDoc) {
+            // Concurrent uploads can commit out of id order; rare enough that a rewrite is fine
+            insert(docId, positions, freq);
+            return;
+        }
+        writeVLong(docId - lastDoc);
+        writeVInt(freq);
+        int previous = 0;
+        for (int i = 0; i < freq; i++) {
+            writeVInt(positions[i] - previous);
+            previous = positions[i];
+        }
+        lastDoc = docId;
+        docCount++;
+    }
+
+    /** Rewrites the list without the documents {@code drop} accepts. */
+    void removeIf(LongPredicate drop) {
+        PostingList kept = new PostingList();
+        Reader reader = reader();
+        while (reader.next()) {
+            if (!drop.test(reader.doc())) {
+                kept.add(reader.doc(), reader.positions(), reader.freq());
+            }
+        }
+        replaceWith(kept);
+    }
+
+    Reader reader() {
+        return new Reader();
+    }
+
+    private void insert(long docId, int[] positions, int freq) {
+        PostingList merged = new PostingList();
+        Reader reader = reader();
+        boolean inserted = false;
+        while (reader.next()) {
+            if (reader.doc() == docId) {
+                return;
+            }
+            if (!inserted && reader.doc() > docId) {
+                merged.add(docId, positions, freq);
+                inserted = true;
+            }
+            merged.add(reader.doc(), reader.positions(), reader.freq());
+        }
+        if (!inserted) {
+            merged.add(docId, positions, freq);
+        }
+        replaceWith(merged);
+    }
+
+    private void replaceWith(PostingList other) {
+        data = Arrays.copyOf(other.data, Math.max(other.size, 8));
+        size = other.size;
+        docCount = other.docCount;
+        lastDoc = other.lastDoc;
+    }
+
+    private void writeVInt(int value) {
+        writeVLong(value & 0xFFFFFFFFL);
+    }
+
+    private void writeVLong(long value) {
+        if (data.length - size < 10) {
+            data = Arrays.copyOf(data, Math.max(data.length * 2, size + 10));
+        }
+        while ((value & ~0x7FL) != 0) {
+            data[size++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        data[size++] = (byte) value;
+    }
+
+    /** Walks the postings in document order, decoding positions only when they are asked for. */
+    final class Reader {
+
+        private int offset;
+        private long doc = -1;
+        private int freq;
+        private int undecodedPositions;
+        private int[] positions = new int[4];
+
+        boolean next() {
+            while (undecodedPositions > 0) {
+                readVLong();
+                undecodedPositions--;
+            }
+            if (offset >= size) {
+                return false;
+            }
+            doc += readVLong();
+            freq = (int) readVLong();
+            undecodedPositions = freq;
+            return true;
+        }
+
+        long doc() {
+            return doc;
+        }
+
+        int freq() {
+            return freq;
+        }
+
+        /** Positions of the current document; the array is reused by the next call to {@link #next()}. */
+        int[] positions() {
+            if (undecodedPositions > 0) {
+                if (positions.length < freq) {
+                    positions = new int[Math.max(freq, positions.length * 2)];
+                }
+                int position = 0;
+                for (int i = 0; i < freq; i++) {
+                    position += (int) readVLong();
+                    positions[i] = position;
+                }
+                undecodedPositions = 0;
+            }
+            return positions;
+        }
+
+        private long readVLong() {
+            long value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[offset++];
+                value |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            return value;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.main.docmanager.search;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Full-text search over document titles and bodies. Writers call {@link #index} once a document is
+ * committed and {@link #remove} once it is deleted; the configured implementation is picked with
+ * {@code docmanager.search.engine}.
+ */
+public interface SearchEngine {
+
+    /** Adds a committed document. The body may arrive in parts, as the chunks of a chunked document do. */
+    void index(long documentId, String title, Iterable<String> body);
+
+    void remove(Collection<Long> documentIds);
+
+    /**
+     * Documents containing every word of {@code query}, ranked by relevance. A query wrapped in double
+     * quotes matches the words as a phrase.
+     */
+    SearchHits search(String query, int offset, int limit);
+
+    /**
+     * The hits ranked after the one with {@code score} and {@code id}, in the order {@link #search}
+     * returns them: by score, then newest id first. A deep page costs what the first one does. Start
+     * from {@link Double#POSITIVE_INFINITY} and {@link Long#MAX_VALUE}, then continue from the last
+     * hit's score and id. Scores shift as documents come and go, so a page taken after a change may
+     * repeat or miss a hit near its start. An empty page may report a total of 0.
+     */
+    SearchHits searchAfter(String query, double score, long id, int limit);
+
+    /**
+     * The words {@link #search} matches for {@code query}, for snippets of hits it returns none for. By
+     * default the query's whitespace-separated words without quotes.
+     */
+    default List<String> terms(String query) {
+        return query == null ? List.of()
+                : Arrays.stream(query.replace("\"", "").strip().split("\\s+")).filter(term -> !term.isEmpty()).distinct().toList();
+    }
+}
@@ -0,0 +1,21 @@
+package com.main.docmanager.search;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One page of matching document ids, best first, and how many documents matched in all. Engines that
+ * highlight matches themselves return a snippet per id; the others leave {@code snippets} empty.
+ * {@code scores} holds each id's relevance, which {@link SearchEngine#searchAfter} continues from, or
+ * is empty when the page was built without them.
+ */
+public record SearchHits(List<Long> ids, long total, Map<Long, String> snippets, List<Double> scores) {
+
+    public SearchHits(List<Long> ids, long total) {
+        this(ids, total, Map.of());
+    }
+
+    public SearchHits(List<Long> ids, long total, Map<Long, String> snippets) {
+        this(ids, total, snippets, List.of());
+    }
+}
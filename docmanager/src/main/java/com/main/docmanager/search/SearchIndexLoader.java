@@ -0,0 +1,102 @@
+package com.main.docmanager.search;
+
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.main.docmanager.model.TextCodec;
+import com.main.docmanager.service.SearchCache;
+
+/**
+ * Builds the in-memory index from the database before the application reports ready. Rows are
+ * streamed through a cursor so the corpus never sits in memory twice. Uploads and deletes that land
+ * while it runs are safe: the index ignores a document it already has and one it has seen removed.
+ * <p>
+ * The web server is already taking requests by then, so searches during the load see a partial index.
+ * The search cache is invalidated once the load ends, so none of their pages outlive it.
+ */
+@Component
+@ConditionalOnProperty(name = "docmanager.search.engine", havingValue = "inverted-index", matchIfMissing = true)
+public class SearchIndexLoader implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(SearchIndexLoader.class);
+
+    // In id order, so every posting is an append; heap order is not id order once rows have been updated
+    static final String DOCUMENTS_SQL = "SELECT d.id, d.title, d.content_id, c.text, c.text_compressed "
+            + "FROM documents d LEFT JOIN document_contents c ON c.id = d.content_id ORDER BY d.id";
+    static final String CHUNKS_SQL = "SELECT text FROM document_chunks WHERE content_id = ? ORDER BY chunk_index";
+
+    @Autowired
+    private SearchEngine searchEngine;
+
+    @Autowired
+    private SearchCache searchCache;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${docmanager.search.index.load-on-startup:true}")
+    private boolean enabled;
+
+    @Value("${docmanager.search.index.fetch-size:200}")
+    private int fetchSize;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+        long start = System.nanoTime();
+        JdbcTemplate cursor = new JdbcTemplate(jdbcTemplate.getDataSource());
+        cursor.setFetchSize(fetchSize);
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        try {
+            logger.info("Indexed {} documents for search in {} ms", load(cursor, readOnly), (System.nanoTime() - start) / 1_000_000);
+        } finally {
+            // Also after a failed load, whose documents so far stay searchable
+            searchCache.invalidate();
+        }
+    }
+
+    // pgjdbc only honours the fetch size inside a transaction; outside one it buffers the whole result
+    private Integer load(JdbcTemplate cursor, TransactionTemplate readOnly) {
+        return readOnly.execute(status -> {
+            int[] count = {0};
+            cursor.query(DOCUMENTS_SQL, rs -> {
+                long id = rs.getLong("id");
+                String title = rs.getString("title");
+                String text = rs.getString("text");
+                byte[] compressed = rs.getBytes("text_compressed");
+                long contentId = rs.getLong("content_id");
+                boolean hasContent = !rs.wasNull();
+                List<String> body;
+                if (text != null) {
+                    body = List.of(text);
+                } else if (compressed != null) {
+                    body = List.of(TextCodec.decode(compressed));
+                } else if (hasContent) {
+                    body = cursor.queryForList(CHUNKS_SQL, String.class, contentId);
+                } else {
+                    body = List.of();
+                }
+                searchEngine.index(id, title, body);
+                count[0]++;
+            });
+            return count[0];
+        });
+    }
+}
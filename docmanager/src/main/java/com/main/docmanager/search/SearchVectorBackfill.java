@@ -0,0 +1,118 @@
+package com.main.docmanager.search;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Fills the search vectors of rows written before V5 added them. Each batch is one short UPDATE that
+ * re-assigns the source column so the V5 trigger computes the vector, walking the table in id order;
+ * batches auto-commit and pause in between, so writers and vacuum keep up. Runs after the application
+ * is ready and stops when everything is filled. Until it finishes, older documents are missing from
+ * full-text results.
+ */
+@Component
+@ConditionalOnProperty(name = "docmanager.search.engine", havingValue = "postgres-fts")
+public class SearchVectorBackfill {
+
+    private static final Logger logger = LoggerFactory.getLogger(SearchVectorBackfill.class);
+
+    enum Target {
+        DOCUMENTS("documents", "title_tsv", "title"),
+        CONTENTS("document_contents", "text_tsv", "text"),
+        CHUNKS("document_chunks", "text_tsv", "text");
+
+        final String table;
+        final String sql;
+
+        Target(String table, String vector, String source) {
+            this.table = table;
+            this.sql = "WITH batch AS (SELECT id FROM " + table + " WHERE id > ? AND " + vector + " IS NULL ORDER BY id LIMIT ?) "
+                    + "UPDATE " + table + " t SET " + source + " = t." + source + " FROM batch WHERE t.id = batch.id RETURNING t.id";
+        }
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${docmanager.search.postgres.backfill.enabled:true}")
+    private boolean enabled;
+
+    @Value("${docmanager.search.postgres.backfill.batch-size:500}")
+    private int batchSize;
+
+    @Value("${docmanager.search.postgres.backfill.pause:200ms}")
+    private Duration pause;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "search-vector-backfill");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (enabled) {
+            executor.execute(this::run);
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    void run() {
+        try {
+            for (Target target : Target.values()) {
+                long filled = backfill(target);
+                if (filled > 0) {
+                    logger.info("Filled search vectors for {} rows of {}", filled, target.table);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            logger.error("Search vector backfill stopped; it resumes on the next start", e);
+        }
+    }
+
+    long backfill(Target target) throws InterruptedException {
+        Counter rows = Counter.builder("docmanager.search.backfill.rows")
+                .description("Rows whose search vector was filled by the background backfill")
+                .tag("table", target.table)
+                .register(meterRegistry);
+        long after = Long.MIN_VALUE;
+        long filled = 0;
+        List<Long> batch;
+        do {
+            batch = jdbcTemplate.queryForList(target.sql, Long.class, after, batchSize);
+            if (!batch.isEmpty()) {
+                after = Collections.max(batch);
+                filled += batch.size();
+                rows.increment(batch.size());
+                Thread.sleep(pause.toMillis());
+            }
+        } while (batch.size() == batchSize);
+        return filled;
+    }
+}
@@ -0,0 +1,369 @@
+package com.main.docmanager.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Picks the best fragments of a body for a search hit. Matching is case-insensitive in place: candidate
+ * positions come from {@link String#indexOf(int, int)} on every case variant of a term's first char,
+ * and each is confirmed with {@link String#regionMatches(boolean, int, String, int, int)}. The body is
+ * never lowercased or copied, so what a call allocates depends on the query and the number of
+ * fragments, not on the size of the body.
+ * <p>
+ * Every query term is matched as a substring, like the LIKE search matches it. Windows of matches are
+ * ranked by the number of distinct terms they contain, then by how many of those also match as whole
+ * words, then by the number of matches up to one per term; ties go to the earlier window. The best
+ * ones that do not overlap are returned in body order, widened by the context and cut at word
+ * boundaries. Because the rank is bounded, the scan stops once enough windows cannot be beaten.
+ */
+public final class Snippets {
+
+    private static final int MAX_TERMS = Long.SIZE;
+    // Matches held per window; more in one window would not change which windows win
+    private static final int WINDOW_MATCHES = 32;
+    // Positions checked one by one before a cursor falls back to indexOf
+    private static final int NEAR = 16;
+
+    // Every char that folds to the key, for the chars that have more than one (k, K and the Kelvin sign)
+    private static final Map<Character, char[]> CASE_VARIANTS = caseVariants();
+
+    /** {@code [start, end)} of a fragment in the body, and its matches as start/end pairs, also in the body. */
+    public record Fragment(int start, int end, int[] highlights) {}
+
+    private Snippets() {
+    }
+
+    /**
+     * Returns up to {@code maxFragments} fragments with about {@code context} characters around their
+     * matches. A body without a match gets its first {@code 2 * context} characters and no highlights.
+     */
+    public static List<Fragment> best(String content, String query, int context, int maxFragments) {
+        if (content == null || content.isEmpty() || query == null) {
+            return List.of();
+        }
+        String[] terms = terms(query);
+        if (terms.length == 0 || maxFragments < 1) {
+            return List.of(lead(content, context * 2));
+        }
+        Selection selection = new Selection(content, terms, context, maxFragments);
+        selection.scan();
+        return selection.kept == 0 ? List.of(lead(content, context * 2)) : selection.fragments();
+    }
+
+    // Whitespace-separated, without case-insensitive duplicates
+    static String[] terms(String query) {
+        List<String> terms = new ArrayList<>();
+        for (String term : query.strip().split("\\s+")) {
+            if (!term.isEmpty() && terms.size() < MAX_TERMS && terms.stream().noneMatch(term::equalsIgnoreCase)) {
+                terms.add(term);
+            }
+        }
+        return terms.toArray(String[]::new);
+    }
+
+    private static Fragment lead(String content, int length) {
+        int end = Math.min(content.length(), length);
+        int cut = end;
+        if (cut < content.length() && isWordChar(content, cut - 1) && isWordChar(content, cut)) {
+            while (cut > 0 && isWordChar(content, cut - 1)) {
+                cut--;
+            }
+        }
+        while (cut > 0 && Character.isWhitespace(content.charAt(cut - 1))) {
+            cut--;
+        }
+        // A first word longer than the lead is cut where the lead ends
+        return new Fragment(0, cut == 0 ? end : cut, new int[0]);
+    }
+
+    private static Map<Character, char[]> caseVariants() {
+        Map<Character, StringBuilder> classes = new HashMap<>();
+        for (int c = Character.MIN_VALUE; c <= Character.MAX_VALUE; c++) {
+            char folded = fold((char) c);
+            if (folded != c) {
+                classes.computeIfAbsent(folded, key -> new StringBuilder().append(key)).append((char) c);
+            }
+        }
+        Map<Character, char[]> variants = new HashMap<>();
+        classes.forEach((folded, chars) -> variants.put(folded, chars.toString().toCharArray()));
+        return variants;
+    }
+
+    private static boolean isWordChar(String content, int index) {
+        return Character.isLetterOrDigit(content.charAt(index));
+    }
+
+    // The comparison regionMatches(true, ...) makes, applied to one char
+    private static char fold(char c) {
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+    /** State of one call: the pending matches of the current window and the best windows so far. */
+    private static final class Selection {
+
+        private final String content;
+        private final String[] terms;
+        private final char[] firsts;
+        // One indexOf cursor per case variant of each term's first char
+        private final char[] cursorChars;
+        private final int[] cursors;
+        private final int context;
+        private final int span;
+
+        // Ring of the matches that still fit in the window of the oldest one
+        private final int[] pendingStart = new int[WINDOW_MATCHES];
+        private final int[] pendingEnd = new int[WINDOW_MATCHES];
+        private final long[] pendingMask = new long[WINDOW_MATCHES];
+        private final long[] pendingWholeMask = new long[WINDOW_MATCHES];
+        private int head;
+        private int pending;
+
+        private final int[] keptStart;
+        private final int[] keptEnd;
+        private final long[] keptScore;
+        private int kept;
+
+        private long matchMask;
+
+        Selection(String content, String[] terms, int context, int maxFragments) {
+            this.content = content;
+            this.terms = terms;
+            this.context = context;
+            this.firsts = new char[terms.length];
+            int longest = 0;
+            StringBuilder variants = new StringBuilder();
+            for (int t = 0; t < terms.length; t++) {
+                firsts[t] = fold(terms[t].charAt(0));
+                longest = Math.max(longest, terms[t].length());
+                for (char c : CASE_VARIANTS.getOrDefault(firsts[t], new char[] {firsts[t]})) {
+                    if (variants.indexOf(String.valueOf(c)) < 0) {
+                        variants.append(c);
+                    }
+                }
+            }
+            this.cursorChars = variants.toString().toCharArray();
+            this.cursors = new int[cursorChars.length];
+            this.span = Math.max(2 * context, longest);
+            this.keptStart = new int[maxFragments];
+            this.keptEnd = new int[maxFragments];
+            this.keptScore = new long[maxFragments];
+        }
+
+        void scan() {
+            int length = content.length();
+            Arrays.fill(cursors, -1);
+            advanceCursors(0);
+            while (true) {
+                int candidate = length;
+                for (int cursor : cursors) {
+                    candidate = Math.min(candidate, cursor);
+                }
+                if (candidate == length) {
+                    break;
+                }
+                int matched = matchAt(candidate);
+                if (matched > 0) {
+                    accept(candidate, candidate + matched, matchMask);
+                    if (unbeatable()) {
+                        return;
+                    }
+                }
+                advanceCursors(candidate + Math.max(matched, 1));
+            }
+            while (pending > 0) {
+                closeWindow();
+            }
+        }
+
+        // Moves every cursor that is behind to the next occurrence of its char at or after from
+        private void advanceCursors(int from) {
+            for (int v = 0; v < cursors.length; v++) {
+                if (cursors[v] < from) {
+                    cursors[v] = next(cursorChars[v], from);
+                }
+            }
+        }
+
+        // A frequent char is usually a few positions on, where a plain loop beats setting up indexOf
+        private int next(char c, int from) {
+            int length = content.length();
+            int near = Math.min(length, from + NEAR);
+            for (int i = from; i < near; i++) {
+                if (content.charAt(i) == c) {
+                    return i;
+                }
+            }
+            int next = near == length ? -1 : content.indexOf(c, near);
+            return next < 0 ? length : next;
+        }
+
+        // Length of the longest term matching at index, with the mask of every term that matches there
+        private int matchAt(int index) {
+            char c = fold(content.charAt(index));
+            int longest = 0;
+            long mask = 0;
+            for (int t = 0; t < terms.length; t++) {
+                if (firsts[t] == c && content.regionMatches(true, index, terms[t], 0, terms[t].length())) {
+                    mask |= 1L << t;
+                    longest = Math.max(longest, terms[t].length());
+                }
+            }
+            matchMask = mask;
+            return longest;
+        }
+
+        private void accept(int start, int end, long mask) {
+            while (pending > 0 && end > pendingStart[head] + span) {
+                closeWindow();
+            }
+            if (pending == WINDOW_MATCHES) {
+                closeWindow();
+            }
+            int slot = (head + pending) % WINDOW_MATCHES;
+            pendingStart[slot] = start;
+            pendingEnd[slot] = end;
+            pendingMask[slot] = mask;
+            boolean whole = (start == 0 || !isWordChar(content, start - 1)) && (end == content.length() || !isWordChar(content, end));
+            pendingWholeMask[slot] = whole ? mask : 0;
+            pending++;
+        }
+
+        // Ranks the window that starts at the oldest pending match, which no later match can join
+        private void closeWindow() {
+            long matched = 0;
+            long whole = 0;
+            for (int i = 0; i < pending; i++) {
+                int slot = (head + i) % WINDOW_MATCHES;
+                matched |= pendingMask[slot];
+                whole |= pendingWholeMask[slot];
+            }
+            long score = score(Long.bitCount(matched), Long.bitCount(whole), Math.min(pending, terms.length));
+            consider(pendingStart[head], pendingEnd[(head + pending - 1) % WINDOW_MATCHES], score);
+            head = (head + 1) % WINDOW_MATCHES;
+            pending--;
+        }
+
+        private static long score(int terms, int wholeTerms, int matches) {
+            return terms * 1_000_000L + wholeTerms * 1_000L + matches;
+        }
+
+        // Every kept window has the best possible rank, and ties keep the earlier window
+        private boolean unbeatable() {
+            if (kept < keptScore.length) {
+                return false;
+            }
+            long best = score(terms.length, terms.length, terms.length);
+            for (int k = 0; k < kept; k++) {
+                if (keptScore[k] < best) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // Windows closer than twice the context would print the same text twice, so only the better one stays
+        private void consider(int start, int end, long score) {
+            for (int k = 0; k < kept; k++) {
+                if (overlaps(k, start, end) && keptScore[k] >= score) {
+                    return;
+                }
+            }
+            int remaining = 0;
+            for (int k = 0; k < kept; k++) {
+                if (!overlaps(k, start, end)) {
+                    keptStart[remaining] = keptStart[k];
+                    keptEnd[remaining] = keptEnd[k];
+                    keptScore[remaining] = keptScore[k];
+                    remaining++;
+                }
+            }
+            kept = remaining;
+            int slot = kept;
+            if (kept == keptStart.length) {
+                // Equal scores keep the earlier window
+                slot = 0;
+                for (int k = 1; k < kept; k++) {
+                    if (keptScore[k] <= keptScore[slot]) {
+                        slot = k;
+                    }
+                }
+                if (keptScore[slot] >= score) {
+                    return;
+                }
+            } else {
+                kept++;
+            }
+            keptStart[slot] = start;
+            keptEnd[slot] = end;
+            keptScore[slot] = score;
+        }
+
+        private boolean overlaps(int k, int start, int end) {
+            return keptStart[k] - context < end + context && start - context < keptEnd[k] + context;
+        }
+
+        List<Fragment> fragments() {
+            Integer[] order = new Integer[kept];
+            Arrays.setAll(order, k -> k);
+            Arrays.sort(order, (a, b) -> Integer.compare(keptStart[a], keptStart[b]));
+            List<Fragment> fragments = new ArrayList<>(kept);
+            for (int k : order) {
+                int start = widenStart(keptStart[k]);
+                int end = widenEnd(keptEnd[k]);
+                fragments.add(new Fragment(start, end, highlights(start, end)));
+            }
+            return fragments;
+        }
+
+        private int widenStart(int first) {
+            int start = Math.max(0, first - context);
+            // A fragment never starts inside a word
+            if (start > 0 && isWordChar(content, start - 1) && isWordChar(content, start)) {
+                while (start < first && isWordChar(content, start)) {
+                    start++;
+                }
+            }
+            // Nor does it open on the spaces and punctuation that end the previous sentence
+            while (start < first && !isWordChar(content, start)) {
+                start++;
+            }
+            return start;
+        }
+
+        private int widenEnd(int last) {
+            int end = Math.min(content.length(), last + context);
+            // Nor does it end inside one
+            if (end < content.length() && isWordChar(content, end - 1) && isWordChar(content, end)) {
+                while (end > last && isWordChar(content, end - 1)) {
+                    end--;
+                }
+            }
+            while (end > last && (Character.isWhitespace(content.charAt(end - 1)) || Character.isHighSurrogate(content.charAt(end - 1)))) {
+                end--;
+            }
+            return end;
+        }
+
+        private int[] highlights(int start, int end) {
+            int[] highlights = new int[8];
+            int count = 0;
+            for (int i = start; i < end; ) {
+                int matched = matchAt(i);
+                if (matched == 0 || i + matched > end) {
+                    i++;
+                    continue;
+                }
+                if (count == highlights.length) {
+                    highlights = Arrays.copyOf(highlights, count * 2);
+                }
+                highlights[count++] = i;
+                highlights[count++] = i + matched;
+                i += matched;
+            }
+            return Arrays.copyOf(highlights, count);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.main.docmanager.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Splits text into lowercase runs of letters and digits, numbering them by position. Text may be fed
+ * in pieces, as the chunks of a chunked document are, and a word cut by a piece boundary stays one term.
+ */
+final class Tokenizer {
+
+    /** Longer runs (base64, hex dumps) still take a position but are not indexed. */
+    static final int MAX_TERM_LENGTH = 64;
+
+    interface TermSink {
+        void accept(String term, int position);
+    }
+
+    private final TermSink sink;
+    private final StringBuilder term = new StringBuilder();
+    private boolean overlong;
+    private int position;
+    private int tokens;
+
+    Tokenizer(TermSink sink) {
+        this.sink = sink;
+    }
+
+    /** The terms of a query, in order and with repeats. */
+    static List<String> terms(String text) {
+        List<String> terms = new ArrayList<>();
+        Tokenizer tokenizer = new Tokenizer((term, position) -> terms.add(term));
+        tokenizer.feed(text);
+        tokenizer.endField(0);
+        return terms;
+    }
+
+    void feed(CharSequence text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (!Character.isLetterOrDigit(c)) {
+                flush();
+            } else if (term.length() < MAX_TERM_LENGTH) {
+                term.append(c);
+            } else {
+                overlong = true;
+            }
+        }
+    }
+
+    /** Ends the current term and skips {@code gap} positions so no phrase spans the boundary. */
+    void endField(int gap) {
+        flush();
+        position += gap;
+    }
+
+    /** Terms seen so far, overlong ones included; the document length used for its norm. */
+    int tokens() {
+        return tokens;
+    }
+
+    private void flush() {
+        if (term.length() == 0) {
+            return;
+        }
+        if (!overlong) {
+            sink.accept(term.toString().toLowerCase(Locale.ROOT), position);
+        }
+        position++;
+        tokens++;
+        term.setLength(0);
+        overlong = false;
+    }
+}
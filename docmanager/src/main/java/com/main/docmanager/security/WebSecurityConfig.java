@@ -50,7 +50,8 @@ public class WebSecurityConfig {
                     "/v3/api-docs/**",      // OpenAPI JSON (default)
                     "/api-docs/**",        // Custom OpenAPI JSON
                     "/swagger-ui/**",      // Swagger UI resources
-                    "/swagger-ui.html"     // Swagger UI entry point
+                    "/swagger-ui.html",    // Swagger UI entry point
+                    "/actuator/health/**"  // Liveness and readiness probes
                 ).permitAll()
                 .requestMatchers("/api/**").hasAuthority("ROLE_ADMIN")
                 .anyRequest().authenticated();
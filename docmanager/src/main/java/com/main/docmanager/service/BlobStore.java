@@ -0,0 +1,164 @@
+package com.main.docmanager.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HexFormat;
+import java.util.Optional;
+
+import org.apache.commons.io.input.TeeInputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.stereotype.Service;
+
+/**
+ * Content-addressed store for original uploads. Files are named by their SHA-256 and sharded two
+ * levels deep by hash prefix ({@code ab/cd/abcd...}) so no directory grows past a few thousand entries.
+ * Blobs are immutable: a file only appears under its final name through an atomic rename, and storing
+ * bytes that are already present is a no-op.
+ */
+@Service
+public class BlobStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(BlobStore.class);
+
+    @Value("${docmanager.blob.enabled:true}")
+    private boolean enabled;
+
+    @Value("${docmanager.blob.dir:${java.io.tmpdir}/docmanager-blobs}")
+    private String blobDir;
+
+    public record Blob(String hash, Path path, long size) {}
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Opens a staging file for bytes whose hash is not known yet. Read the upload through
+     * {@link Staged#tee(InputStream)} and {@link Staged#commit(String)} once the digest is final; closing
+     * an uncommitted stage discards it.
+     */
+    public Staged stage() throws IOException {
+        if (!enabled) {
+            return new Staged(null, OutputStream.nullOutputStream());
+        }
+        Path staging = Files.createDirectories(root().resolve("staging"));
+        Path file = Files.createTempFile(staging, "blob-", ".part");
+        return new Staged(file, Files.newOutputStream(file, StandardOpenOption.WRITE));
+    }
+
+    /** Copies the source in unless a blob with this hash is already stored. */
+    public void storeIfAbsent(String hash, InputStreamSource source) throws IOException {
+        if (!enabled || Files.exists(pathOf(hash))) {
+            return;
+        }
+        try (Staged staged = stage(); InputStream in = source.getInputStream()) {
+            in.transferTo(staged.out);
+            staged.commit(hash);
+        }
+    }
+
+    public Optional<Blob> find(String hash) throws IOException {
+        if (hash == null) {
+            return Optional.empty();
+        }
+        Path path = pathOf(hash);
+        if (!Files.isRegularFile(path)) {
+            return Optional.empty();
+        }
+        return Optional.of(new Blob(hash, path, Files.size(path)));
+    }
+
+    /**
+     * Streams {@code length} bytes from {@code position} with {@link FileChannel#transferTo}, which the
+     * kernel can serve without copying through user space when the target is a socket or file channel.
+     */
+    public void transferTo(Blob blob, long position, long length, WritableByteChannel target) throws IOException {
+        try (FileChannel channel = FileChannel.open(blob.path(), StandardOpenOption.READ)) {
+            long sent = 0;
+            while (sent < length) {
+                long transferred = channel.transferTo(position + sent, length - sent, target);
+                if (transferred <= 0) {
+                    throw new IOException("Blob " + blob.hash() + " ended after " + sent + " of " + length + " bytes");
+                }
+                sent += transferred;
+            }
+        }
+    }
+
+    public void delete(String hash) {
+        if (hash == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(pathOf(hash));
+        } catch (IOException e) {
+            logger.warn("Failed to delete blob {}", hash, e);
+        }
+    }
+
+    Path pathOf(String hash) {
+        if (hash.length() < 4 || !hash.chars().allMatch(HexFormat::isHexDigit)) {
+            throw new IllegalArgumentException("Not a content hash: " + hash);
+        }
+        return root().resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash);
+    }
+
+    private Path root() {
+        return Paths.get(blobDir);
+    }
+
+    /** An upload being copied into the store while it is read for parsing. */
+    public final class Staged implements Closeable {
+
+        private final Path file;
+        private final OutputStream out;
+        private boolean committed;
+
+        private Staged(Path file, OutputStream out) {
+            this.file = file;
+            this.out = out;
+        }
+
+        /** Every byte read from the returned stream is also written to the staging file. */
+        public InputStream tee(InputStream in) {
+            return new TeeInputStream(in, out);
+        }
+
+        public void commit(String hash) throws IOException {
+            out.close();
+            if (file == null) {
+                return;
+            }
+            Path target = pathOf(hash);
+            Files.createDirectories(target.getParent());
+            try {
+                // Replacing an existing blob is harmless: same hash, same bytes
+                Files.move(file, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException e) {
+                Files.deleteIfExists(file);
+            }
+            committed = true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+            if (file != null && !committed) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.main.docmanager.service;
+
+import java.io.IOException;
+
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Collects SAX character events into fixed-size chunks and hands each full chunk to a sink as soon as
+ * it is produced, so at most one chunk of extracted text is buffered at a time. A chunk never ends
+ * between the two halves of a surrogate pair; such a chunk is one char short and the next one starts
+ * with the pair. Once {@code maxChars} characters have been emitted the handler throws
+ * {@link LimitReachedException} to stop the parse.
+ */
+public class ChunkingContentHandler extends DefaultHandler {
+
+    @FunctionalInterface
+    public interface ChunkSink {
+        void accept(String chunk) throws IOException;
+    }
+
+    public static class LimitReachedException extends SAXException {
+        public LimitReachedException(long maxChars) {
+            super("Extracted text exceeds the limit of " + maxChars + " characters");
+        }
+    }
+
+    private final int chunkSize;
+    private final long maxChars;
+    private final ChunkSink sink;
+    private final StringBuilder buffer;
+    private long totalChars;
+    private int chunkCount;
+
+    public ChunkingContentHandler(int chunkSize, long maxChars, ChunkSink sink) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be positive");
+        }
+        this.chunkSize = chunkSize;
+        this.maxChars = maxChars;
+        this.sink = sink;
+        this.buffer = new StringBuilder(chunkSize);
+    }
+
+    @Override
+    public void characters(char[] ch, int start, int length) throws SAXException {
+        int offset = start;
+        int remaining = length;
+        while (remaining > 0) {
+            if (maxChars >= 0 && totalChars >= maxChars) {
+                throw new LimitReachedException(maxChars);
+            }
+            long allowed = maxChars >= 0 ? maxChars - totalChars : Long.MAX_VALUE;
+            int count = (int) Math.min(Math.min(remaining, chunkSize - buffer.length()), allowed);
+            buffer.append(ch, offset, count);
+            totalChars += count;
+            offset += count;
+            remaining -= count;
+            if (buffer.length() == chunkSize) {
+                emitFull();
+            }
+        }
+    }
+
+    @Override
+    public void ignorableWhitespace(char[] ch, int start, int length) throws SAXException {
+        characters(ch, start, length);
+    }
+
+    @Override
+    public void endDocument() throws SAXException {
+        flush();
+    }
+
+    /** Emits whatever is buffered. Safe to call more than once, including after the limit was reached. */
+    public void flush() throws SAXException {
+        if (buffer.length() > 0) {
+            emit();
+        }
+    }
+
+    public long getTotalChars() {
+        return totalChars;
+    }
+
+    public int getChunkCount() {
+        return chunkCount;
+    }
+
+    public static boolean isLimitReached(Throwable t) {
+        for (Throwable cause = t; cause != null; cause = cause.getCause()) {
+            if (cause instanceof LimitReachedException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Each chunk is encoded to UTF-8 on its own, which would turn the halves of a split pair into '?'
+    private void emitFull() throws SAXException {
+        char last = buffer.charAt(buffer.length() - 1);
+        if (!Character.isHighSurrogate(last) || buffer.length() == 1) {
+            emit();
+            return;
+        }
+        buffer.setLength(buffer.length() - 1);
+        emit();
+        buffer.append(last);
+    }
+
+    private void emit() throws SAXException {
+        try {
+            sink.accept(buffer.toString());
+        } catch (IOException e) {
+            throw new SAXException("Failed to write extracted text chunk", e);
+        }
+        buffer.setLength(0);
+        chunkCount++;
+    }
+}
@@ -0,0 +1,75 @@
+package com.main.docmanager.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.apache.tika.config.TikaConfig;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.metadata.TikaCoreProperties;
+import org.apache.tika.mime.MediaType;
+import org.apache.tika.mime.MimeTypes;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Checks an upload's leading bytes against its declared content type before anything is spooled or
+ * parsed. Detection uses Tika's magic-byte repository with the file name as a hint, and accepts any
+ * detected type that is the declared type or one of its specialisations (e.g. text/csv for text/plain).
+ */
+@Service
+public class ContentTypeSniffer {
+
+    @Autowired
+    private TikaConfig tikaConfig;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${docmanager.upload.sniff-bytes:8192}")
+    private int sniffBytes;
+
+    public int getSniffBytes() {
+        return sniffBytes;
+    }
+
+    /**
+     * Detects the type from the leading bytes. The file name only refines a magic match (zip into docx);
+     * it never stands in for one, otherwise any unrecognisable bytes named .pdf would pass as PDF.
+     */
+    public MediaType detect(byte[] head, String fileName) throws IOException {
+        MimeTypes mimeTypes = tikaConfig.getMimeRepository();
+        MediaType magic = mimeTypes.detect(new ByteArrayInputStream(head), new Metadata());
+        if (MediaType.OCTET_STREAM.equals(magic)) {
+            return magic;
+        }
+        Metadata metadata = new Metadata();
+        metadata.set(TikaCoreProperties.RESOURCE_NAME_KEY, fileName);
+        return mimeTypes.detect(new ByteArrayInputStream(head), metadata);
+    }
+
+    /** Reads at most {@code docmanager.upload.sniff-bytes} from the stream and verifies them. */
+    public void verify(InputStream in, String fileName, String declaredType) throws IOException {
+        verify(in.readNBytes(sniffBytes), fileName, declaredType);
+    }
+
+    public void verify(byte[] head, String fileName, String declaredType) throws IOException {
+        MediaType declared = declaredType == null ? null : MediaType.parse(declaredType);
+        MediaType detected = detect(head, fileName);
+        if (declared == null || !tikaConfig.getMediaTypeRegistry().isInstanceOf(detected, declared.getBaseType())) {
+            recordRejection();
+            throw new IllegalArgumentException("File content is " + detected + ", not the declared " + declaredType);
+        }
+    }
+
+    private void recordRejection() {
+        Counter.builder("docmanager.upload.sniff.rejected")
+                .description("Uploads whose leading bytes did not match the declared content type")
+                .register(meterRegistry)
+                .increment();
+    }
+}
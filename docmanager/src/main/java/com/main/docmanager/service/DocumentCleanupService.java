@@ -0,0 +1,86 @@
+package com.main.docmanager.service;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.main.docmanager.repository.DocumentRepository;
+import com.main.docmanager.repository.DocumentRepositoryCustom.DeletedDocument;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Removes the content rows, chunks and original files that deleted documents no longer share with any
+ * other document. Runs on the cleanup thread so deletes return as soon as the document rows are gone;
+ * every step re-checks for remaining references, so a failed or repeated run is harmless.
+ */
+@Service
+public class DocumentCleanupService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DocumentCleanupService.class);
+
+    @Autowired
+    private DocumentRepository documentRepository;
+
+    @Autowired
+    private BlobStore blobStore;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    @Qualifier("cleanupExecutor")
+    private ThreadPoolExecutor cleanupExecutor;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @EventListener
+    public void onDocumentsDeleted(DocumentsDeletedEvent event) {
+        cleanupExecutor.execute(() -> {
+            try {
+                cleanUp(event.documents());
+            } catch (RuntimeException e) {
+                logger.error("Cleanup after deleting {} documents failed", event.documents().size(), e);
+            }
+        });
+    }
+
+    void cleanUp(List<DeletedDocument> documents) {
+        List<Long> contentIds = documents.stream().map(DeletedDocument::contentId).filter(Objects::nonNull).distinct().toList();
+        if (!contentIds.isEmpty()) {
+            Integer contents = transactionTemplate.execute(status -> documentRepository.deleteUnreferencedContents(contentIds));
+            record("contents", contents == null ? 0 : contents);
+        }
+
+        List<String> hashes = documents.stream().map(DeletedDocument::contentHash).filter(Objects::nonNull).distinct().toList();
+        if (!hashes.isEmpty()) {
+            // An upload of the same bytes stores its blob under the same locks, so it either has its rows
+            // committed before the check below or puts the blob back after the delete
+            Integer blobs = transactionTemplate.execute(status -> {
+                documentRepository.lockContentHashes(hashes);
+                List<String> unreferenced = documentRepository.findUnreferencedHashes(hashes);
+                unreferenced.forEach(blobStore::delete);
+                return unreferenced.size();
+            });
+            record("blobs", blobs == null ? 0 : blobs);
+        }
+    }
+
+    private void record(String artifact, int removed) {
+        Counter.builder("docmanager.delete.cleanup")
+                .description("Artifacts removed after their last document was deleted")
+                .tag("artifact", artifact)
+                .register(meterRegistry)
+                .increment(removed);
+    }
+}
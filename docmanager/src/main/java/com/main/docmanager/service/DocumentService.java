@@ -1,76 +1,449 @@
 
 package com.main.docmanager.service;
 
-import java.io.File;
-import java.io.FileInputStream;
+import java.io.BufferedInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
 
 import org.apache.tika.exception.TikaException;
+import org.apache.tika.io.TikaInputStream;
 import org.apache.tika.metadata.Metadata;
 import org.apache.tika.metadata.TikaCoreProperties;
-import org.apache.tika.parser.AutoDetectParser;
-import org.apache.tika.sax.BodyContentHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 import org.xml.sax.SAXException;
 
 import com.main.docmanager.constants.ConstantsUtil;
 import com.main.docmanager.model.Document;
+import com.main.docmanager.model.DocumentContent;
+import com.main.docmanager.model.TextCodec;
 import com.main.docmanager.model.User;
+import com.main.docmanager.repository.DocumentChunkRepository;
+import com.main.docmanager.repository.DocumentContentRepository;
 import com.main.docmanager.repository.DocumentRepository;
+import com.main.docmanager.repository.DocumentRepositoryCustom.DeletedDocument;
 import com.main.docmanager.repository.UserRepository;
+import com.main.docmanager.search.SearchEngine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 
 @Service
 public class DocumentService {
+    private static final Logger logger = LoggerFactory.getLogger(DocumentService.class);
+
     @Autowired
     private DocumentRepository documentRepository;
 
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private DocumentContentRepository documentContentRepository;
+
+    @Autowired
+    private DocumentChunkRepository documentChunkRepository;
+
+    @Autowired
+    private ExtractionService extractionService;
+
+    @Autowired
+    private ContentTypeSniffer contentTypeSniffer;
+
+    @Autowired
+    private BlobStore blobStore;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    // Absent when docmanager.search.engine leaves search to the LIKE queries
+    @Autowired(required = false)
+    private SearchEngine searchEngine;
+
+    @Autowired
+    private SearchCache searchCache;
+
+    @Autowired
+    @Qualifier("batchParseExecutor")
+    private ExecutorService batchParseExecutor;
+
+    @Value("${docmanager.ingest.batch.max-files:200}")
+    private int maxBatchFiles;
+
+    @Value("${docmanager.ingest.dedup.enabled:true}")
+    private boolean dedupEnabled;
+
+    @Value("${docmanager.delete.batch-size:1000}")
+    private int deleteBatchSize;
+
+    @Value("${docmanager.delete.max-ids:10000}")
+    private int maxDeleteIds;
+
+    @Value("${docmanager.content.compression.enabled:false}")
+    private boolean compressionEnabled;
+
+    @Value("${docmanager.content.compression.min-chars:4096}")
+    private int compressionMinChars;
+
+    @Value("${docmanager.content.compression.level:1}")
+    private int compressionLevel;
+
+    @Value("${docmanager.search.engine:inverted-index}")
+    private String searchEngineName;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * Refuses to start with compression next to a search engine that reads the text column. A
+     * compressed body stores no text, so LIKE, pg_trgm and the text_tsv triggers would never see it and
+     * its document would silently drop out of search. With the inverted index every search, the cursor
+     * endpoint included, goes through the engine, which the loader feeds decoded bodies; the LIKE
+     * queries only run when no engine is configured.
+     */
+    @PostConstruct
+    void checkCompression() {
+        if (compressionEnabled && !"inverted-index".equalsIgnoreCase(searchEngineName)) {
+            throw new IllegalStateException("docmanager.content.compression.enabled needs docmanager.search.engine=inverted-index; the "
+                    + searchEngineName + " engine cannot search compressed bodies");
+        }
+    }
+
     public Document upload(MultipartFile file, String author) throws IOException, TikaException, SAXException {
         validateFile(file);
+        return ingest(file, file.getOriginalFilename(), author);
+    }
 
-        File tempFile = null;
-        try {
-            // Create temporary file
-            tempFile = createTempFile(file);
+    /**
+     * Parses and stores an already validated upload. Shared by the synchronous endpoint and the
+     * asynchronous ingestion queue, which hands in its spooled copy of the multipart file.
+     */
+    public Document ingest(InputStreamSource source, String fileName, String author) throws IOException, TikaException, SAXException {
+        User uploadedBy = findUser(author);
+        return persist(List.of(extract(source, fileName, author, uploadedBy))).get(0);
+    }
 
-            // Parse file with Tika
-            AutoDetectParser parser = new AutoDetectParser();
-            BodyContentHandler handler = new BodyContentHandler(-1);
-            Metadata metadata = new Metadata();
-            metadata.set(TikaCoreProperties.RESOURCE_NAME_KEY, file.getOriginalFilename());
+    /**
+     * Parses a batch of files in parallel on the bounded batch pool and persists them with a single
+     * saveAll, which Hibernate turns into JDBC insert batches. Every file is validated before any
+     * parsing starts, and one failing file fails the whole batch.
+     */
+    public List<Document> uploadBatch(List<MultipartFile> files, String author) throws IOException, TikaException, SAXException {
+        if (files == null || files.isEmpty()) {
+            throw new IllegalArgumentException("No files provided");
+        }
+        if (files.size() > maxBatchFiles) {
+            throw new IllegalArgumentException("Batch exceeds the limit of " + maxBatchFiles + " files");
+        }
+        files.forEach(this::validateFile);
+        User uploadedBy = findUser(author);
 
-            try (FileInputStream inputStream = new FileInputStream(tempFile)) {
-                parser.parse(inputStream, handler, metadata, new org.apache.tika.parser.ParseContext());
-            }
+        // Set once a file fails, so parses that have not started yet skip their work
+        AtomicBoolean failed = new AtomicBoolean();
+        List<Future<ParsedUpload>> parses = new ArrayList<>(files.size());
+        for (MultipartFile file : files) {
+            parses.add(batchParseExecutor.submit(() -> failed.get() ? null : extract(file, file.getOriginalFilename(), author, uploadedBy)));
+        }
 
-            // Extract content and metadata
-            String content = handler.toString();
-            String title = metadata.get(TikaCoreProperties.TITLE) != null ? metadata.get(TikaCoreProperties.TITLE) : file.getOriginalFilename();
-            String fileType = metadata.get(Metadata.CONTENT_TYPE);
+        List<ParsedUpload> uploads = new ArrayList<>(files.size());
+        try {
+            for (Future<ParsedUpload> parse : parses) {
+                uploads.add(awaitParse(parse));
+            }
+        } catch (IOException | TikaException | SAXException | RuntimeException e) {
+            failed.set(true);
+            uploads.forEach(ParsedUpload::close);
+            discard(parses.subList(uploads.size() + 1, parses.size()));
+            throw e;
+        }
+        return persist(uploads);
+    }
 
-            // Fetch User
-            User uploadedBy = userRepository.findByUsername(author)
-                    .orElseThrow(() -> new IllegalArgumentException("User not found: " + author));
+    /**
+     * Waits for the parses of a failed batch and releases their spill files. They are not cancelled:
+     * a cancelled parse that is already running still finishes, and nobody would close its result.
+     */
+    private void discard(List<Future<ParsedUpload>> parses) {
+        for (Future<ParsedUpload> parse : parses) {
+            try {
+                ParsedUpload upload = parse.get();
+                if (upload != null) {
+                    upload.close();
+                }
+            } catch (ExecutionException e) {
+                // Nothing to release; the batch already fails with the first error
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                logger.warn("Interrupted while discarding a failed batch; its remaining spill files are left behind");
+                return;
+            }
+        }
+    }
 
-            // Create and save document
-            Document document = new Document(title, fileType, author, content, uploadedBy);
-            return documentRepository.save(document);
+    /**
+     * Saves new contents, the documents and any chunks in one transaction, then releases the spill
+     * files. Deduplicated documents point at their original's content row, so nothing is copied.
+     */
+    private List<Document> persist(List<ParsedUpload> uploads) {
+        try {
+            // Deflate before opening the transaction so the CPU work never holds a pooled connection
+            uploads.stream().filter(upload -> !upload.document().isDeduplicated()).forEach(upload -> compress(upload.document().getContent()));
+            List<Document> committed = transactionTemplate.execute(status -> {
+                storeOriginals(uploads);
+                documentContentRepository.saveAll(uploads.stream()
+                        .filter(upload -> !upload.document().isDeduplicated())
+                        .map(upload -> upload.document().getContent())
+                        .toList());
+                List<Document> saved = documentRepository.saveAll(uploads.stream().map(ParsedUpload::document).toList());
+                for (ParsedUpload upload : uploads) {
+                    if (upload.text() != null && upload.text().isChunked()) {
+                        documentChunkRepository.insertChunks(upload.document().getContent().getId(), upload.text().chunks());
+                    }
+                }
+                return saved;
+            });
+            index(uploads);
+            // Only once the new documents are committed and indexed, or a racing search would cache a page without them
+            searchCache.invalidate();
+            return committed;
         } finally {
-            // Clean up temporary file
-            if (tempFile != null && tempFile.exists()) {
-                if (!tempFile.delete()) {
-                    System.err.println("Failed to delete temporary file: " + tempFile.getAbsolutePath());
+            uploads.forEach(ParsedUpload::close);
+        }
+    }
+
+    /**
+     * Puts the original files in the blob store inside the transaction that inserts their documents,
+     * holding the per-hash locks DocumentCleanupService deletes under. A cleanup of the same bytes
+     * then either sees the new rows once they commit, or has already deleted the blob this puts back.
+     */
+    private void storeOriginals(List<ParsedUpload> uploads) {
+        if (!blobStore.isEnabled()) {
+            return;
+        }
+        documentRepository.lockContentHashes(uploads.stream().map(upload -> upload.document().getContentHash()).toList());
+        for (ParsedUpload upload : uploads) {
+            String contentHash = upload.document().getContentHash();
+            try {
+                if (upload.original() != null) {
+                    upload.original().commit(contentHash);
+                } else {
+                    // Originals uploaded before the blob store existed are picked up on their next duplicate
+                    blobStore.storeIfAbsent(contentHash, upload.source());
                 }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to store original file " + contentHash, e);
             }
         }
     }
 
+    // Runs after commit and before the spill files go, so chunked bodies are indexed straight from disk
+    private void index(List<ParsedUpload> uploads) {
+        if (searchEngine == null) {
+            return;
+        }
+        for (ParsedUpload upload : uploads) {
+            Document document = upload.document();
+            try {
+                searchEngine.index(document.getId(), document.getTitle(), body(upload));
+            } catch (RuntimeException e) {
+                logger.error("Failed to index document {}; it becomes searchable on the next restart", document.getId(), e);
+            }
+        }
+    }
+
+    private Iterable<String> body(ParsedUpload upload) {
+        if (upload.text() == null) {
+            // Duplicates share their original's body, which this upload never loaded
+            Long contentId = upload.document().getContent().getId();
+            return documentContentRepository.findById(contentId).map(DocumentContent::getText).map(List::of)
+                    .orElseGet(() -> documentChunkRepository.findTexts(contentId));
+        }
+        return upload.text().isChunked() ? upload.text().chunks() : Collections.singletonList(upload.text().getInline());
+    }
+
+    private void compress(DocumentContent content) {
+        String text = content.getText();
+        if (!compressionEnabled || text == null || text.length() < compressionMinChars) {
+            return;
+        }
+        if (content.compress(compressionLevel)) {
+            Counter.builder("docmanager.content.compression.bytes")
+                    .description("UTF-8 bytes of document text before and after compression")
+                    .tag("form", "raw")
+                    .register(meterRegistry)
+                    .increment(TextCodec.rawLength(content.getCompressedText()));
+            Counter.builder("docmanager.content.compression.bytes")
+                    .description("UTF-8 bytes of document text before and after compression")
+                    .tag("form", "stored")
+                    .register(meterRegistry)
+                    .increment(content.getCompressedText().length);
+        }
+    }
+
+    private ParsedUpload extract(InputStreamSource source, String fileName, String author, User uploadedBy) throws IOException, TikaException, SAXException {
+        String contentHash = null;
+        if (dedupEnabled) {
+            // Hashing is a plain sequential read, far cheaper than a parse, so repeats skip Tika entirely
+            contentHash = hash(source);
+            Optional<Document> original = documentRepository.findFirstByContentHash(contentHash);
+            recordDedup(original.isPresent());
+            if (original.isPresent()) {
+                return new ParsedUpload(duplicateOf(original.get(), fileName, author, uploadedBy), null, null, source);
+            }
+        }
+
+        // Parse straight from the multipart stream; the blob store, and the digest when dedup has not
+        // already hashed the upload, see every byte on its way into Tika, so they share the parse's read
+        MessageDigest digest = contentHash == null ? newContentDigest() : null;
+        Metadata metadata = new Metadata();
+        metadata.set(TikaCoreProperties.RESOURCE_NAME_KEY, fileName);
+
+        ExtractedText text;
+        // Committed by persist, under the lock that keeps cleanup from deleting it before its row exists
+        BlobStore.Staged original = blobStore.stage();
+        // The buffer sits above the digest so Tika's mark/reset while sniffing never re-hashes bytes
+        try (InputStream upload = original.tee(source.getInputStream());
+             TikaInputStream inputStream = TikaInputStream.get(
+                new BufferedInputStream(digest == null ? upload : new DigestInputStream(upload, digest)))) {
+            sniff(inputStream, fileName, metadata);
+            text = extractionService.isParallelPdf(metadata, sizeOf(source))
+                    ? extractionService.extractPdfPages(inputStream, metadata)
+                    : extractionService.extract(inputStream, metadata);
+            // Some parsers stop before EOF (e.g. trailing zip entries); drain so the hash and the blob cover the whole file
+            inputStream.transferTo(OutputStream.nullOutputStream());
+            if (digest != null) {
+                contentHash = HexFormat.of().formatHex(digest.digest());
+            }
+        } catch (IOException | TikaException | SAXException | RuntimeException e) {
+            original.close();
+            throw e;
+        }
+
+        // Extract content and metadata
+        String title = metadata.get(TikaCoreProperties.TITLE) != null ? metadata.get(TikaCoreProperties.TITLE) : fileName;
+        String fileType = metadata.get(Metadata.CONTENT_TYPE);
+
+        Document document = new Document(title, fileType, author, text.getInline(), uploadedBy);
+        document.setContentHash(contentHash);
+        return new ParsedUpload(document, text, original, null);
+    }
+
+    /** The stored document, without loading its text. */
+    public Optional<Document> findById(Long id) {
+        return documentRepository.findById(id);
+    }
+
+    // Shares the original's content row; only its id is needed, so the lazy body is never loaded
+    private Document duplicateOf(Document original, String fileName, String author, User uploadedBy) {
+        Document document = new Document();
+        // Not the original's title, which may be the first uploader's file name
+        document.setTitle(fileName);
+        document.setFileType(original.getFileType());
+        document.setAuthor(author);
+        document.setUploadedBy(uploadedBy);
+        document.setContent(original.getContent());
+        document.setContentHash(original.getContentHash());
+        document.setDeduplicated(true);
+        return document;
+    }
+
+    // The leading bytes are read under a mark, so the parser and the digest still see them from the start
+    private void sniff(TikaInputStream inputStream, String fileName, Metadata metadata) throws IOException {
+        inputStream.mark(contentTypeSniffer.getSniffBytes());
+        byte[] head = inputStream.readNBytes(contentTypeSniffer.getSniffBytes());
+        inputStream.reset();
+        metadata.set(Metadata.CONTENT_TYPE, contentTypeSniffer.detect(head, fileName).toString());
+    }
+
+    private static long sizeOf(InputStreamSource source) throws IOException {
+        if (source instanceof MultipartFile file) {
+            return file.getSize();
+        }
+        if (source instanceof Resource resource) {
+            return resource.contentLength();
+        }
+        return -1;
+    }
+
+    private String hash(InputStreamSource source) throws IOException {
+        MessageDigest digest = newContentDigest();
+        try (DigestInputStream in = new DigestInputStream(source.getInputStream(), digest)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private void recordDedup(boolean hit) {
+        Counter.builder("docmanager.ingest.dedup")
+                .description("Uploads whose bytes matched an already stored document")
+                .tag("result", hit ? "hit" : "miss")
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private User findUser(String author) {
+        return userRepository.findByUsername(author)
+                .orElseThrow(() -> new IllegalArgumentException("User not found: " + author));
+    }
+
+    private ParsedUpload awaitParse(Future<ParsedUpload> parse) throws IOException, TikaException, SAXException {
+        try {
+            return parse.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for batch parse", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) {
+                throw io;
+            }
+            if (cause instanceof TikaException tika) {
+                throw tika;
+            }
+            if (cause instanceof SAXException sax) {
+                throw sax;
+            }
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException("Batch parse failed", cause);
+        }
+    }
+
+    /**
+     * Rejects empty, oversized and unsupported uploads. The declared type is checked against the
+     * file's leading bytes, so junk renamed to .pdf is refused before it is spooled or parsed.
+     */
     public void validateFile(MultipartFile file) {
         if (file == null || file.isEmpty()) {
             throw new IllegalArgumentException("File is empty or not provided");
@@ -81,21 +454,102 @@ public class DocumentService {
         if (!ConstantsUtil.ALLOWED_FILE_TYPES.contains(file.getContentType())) {
             throw new IllegalArgumentException("Unsupported file type: " + file.getContentType());
         }
+        try (InputStream in = file.getInputStream()) {
+            contentTypeSniffer.verify(in, file.getOriginalFilename(), file.getContentType());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read upload " + file.getOriginalFilename(), e);
+        }
+    }
+
+    private static MessageDigest newContentDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
     }
 
-    public File createTempFile(MultipartFile multipartFile) throws IOException {
-        File tempFile = File.createTempFile("tika-", multipartFile.getOriginalFilename());
-        multipartFile.transferTo(tempFile);
-        return tempFile;
+    /**
+     * Deletes one document. Its body, chunks and original file are removed in the background once no
+     * other document shares them.
+     */
+    public Document delete(Long id) throws FileNotFoundException {
+        Document document = documentRepository.findById(id).orElseThrow(FileNotFoundException::new);
+        deleteByIds(List.of(id));
+        return document;
     }
 
-	public Document delete(Long id) throws FileNotFoundException {
-		// TODO Auto-generated method stub
-		Optional<Document> d=documentRepository.findById(id);
-		if(d.isEmpty()) {
-			throw new FileNotFoundException();
-		}
-		 documentRepository.deleteById(id);
-		 return d.get();
-	}
-}
\ No newline at end of file
+    /** Deletes the listed documents in batches of one DELETE ... RETURNING each; unknown ids are skipped. */
+    public List<Long> deleteByIds(List<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            throw new IllegalArgumentException("No document ids provided");
+        }
+        if (ids.size() > maxDeleteIds) {
+            throw new IllegalArgumentException("Bulk delete exceeds the limit of " + maxDeleteIds + " ids");
+        }
+        List<Long> deleted = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += deleteBatchSize) {
+            List<Long> batch = ids.subList(from, Math.min(ids.size(), from + deleteBatchSize));
+            deleted.addAll(deleteBatch(() -> documentRepository.deleteByIdIn(batch)));
+        }
+        return deleted;
+    }
+
+    /**
+     * Deletes every document matching the metadata filter, one bounded batch per transaction, so a
+     * retention purge never holds locks on the whole set and readers keep getting through.
+     */
+    public List<Long> deleteMatching(String author, String fileType, LocalDateTime fromDate, LocalDateTime toDate) {
+        if (author == null && fileType == null && fromDate == null && toDate == null) {
+            throw new IllegalArgumentException("A filtered delete needs at least one of author, fileType, fromDate or toDate");
+        }
+        List<Long> deleted = new ArrayList<>();
+        List<Long> batch;
+        do {
+            batch = deleteBatch(() -> documentRepository.deleteMatching(author, fileType, fromDate, toDate, deleteBatchSize));
+            deleted.addAll(batch);
+        } while (batch.size() == deleteBatchSize);
+        return deleted;
+    }
+
+    private List<Long> deleteBatch(Supplier<List<DeletedDocument>> delete) {
+        List<DeletedDocument> removed = transactionTemplate.execute(status -> delete.get());
+        if (removed == null || removed.isEmpty()) {
+            return List.of();
+        }
+        Counter.builder("docmanager.documents.deleted")
+                .description("Documents removed by single and bulk deletes")
+                .register(meterRegistry)
+                .increment(removed.size());
+        // Published after commit, so cleanup never races a transaction that could still roll back
+        eventPublisher.publishEvent(new DocumentsDeletedEvent(removed));
+        // Listeners run synchronously, so the search engine has dropped the documents by now
+        searchCache.invalidate();
+        return removed.stream().map(DeletedDocument::id).toList();
+    }
+
+    /**
+     * A parsed but not yet stored upload. {@code text} carries the spill file in chunked mode and
+     * {@code original} the staged copy of the file; both are null for deduplicated uploads, which keep
+     * their {@code source} instead in case the blob has to be stored again.
+     */
+    private record ParsedUpload(Document document, ExtractedText text, BlobStore.Staged original, InputStreamSource source) {
+
+        void close() {
+            try {
+                if (text != null) {
+                    text.close();
+                }
+            } catch (IOException e) {
+                logger.warn("Failed to delete extraction spill file: {}", e.getMessage());
+            }
+            try {
+                if (original != null) {
+                    original.close();
+                }
+            } catch (IOException e) {
+                logger.warn("Failed to delete staged upload: {}", e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.main.docmanager.service;
+
+import java.util.List;
+
+import com.main.docmanager.repository.DocumentRepositoryCustom.DeletedDocument;
+
+/**
+ * Published after a delete has committed. Listeners clean up whatever they derived from the removed
+ * documents; the rows themselves are already gone.
+ */
+public record DocumentsDeletedEvent(List<DeletedDocument> documents) {}
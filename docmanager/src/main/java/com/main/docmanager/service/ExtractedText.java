@@ -0,0 +1,116 @@
+package com.main.docmanager.service;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Text produced by one parse. In inline mode it is a single string destined for {@code document_contents.text};
+ * in chunked mode the chunks live in a spill file and are streamed back one at a time when they are
+ * written to {@code document_chunks}. Closing deletes the spill file.
+ */
+public class ExtractedText implements AutoCloseable {
+
+    private final String inline;
+    private final Path spill;
+    private final boolean truncated;
+
+    private ExtractedText(String inline, Path spill, boolean truncated) {
+        this.inline = inline;
+        this.spill = spill;
+        this.truncated = truncated;
+    }
+
+    public static ExtractedText inline(String text, boolean truncated) {
+        return new ExtractedText(text, null, truncated);
+    }
+
+    public static ExtractedText spilled(Path spill, boolean truncated) {
+        return new ExtractedText(null, spill, truncated);
+    }
+
+    public boolean isChunked() {
+        return spill != null;
+    }
+
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    /** The full text in inline mode, {@code null} in chunked mode. */
+    public String getInline() {
+        return inline;
+    }
+
+    /** Streams the spilled chunks in order. Each iteration reopens the spill file. */
+    public Iterable<String> chunks() {
+        if (spill == null) {
+            throw new IllegalStateException("Text was extracted inline");
+        }
+        return () -> new SpillIterator(spill);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (spill != null) {
+            Files.deleteIfExists(spill);
+        }
+    }
+
+    private static final class SpillIterator implements Iterator<String> {
+        private final DataInputStream in;
+        private String next;
+
+        SpillIterator(Path spill) {
+            try {
+                this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(spill)));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public String next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            String current = next;
+            advance();
+            return current;
+        }
+
+        private void advance() {
+            try {
+                int length = in.readInt();
+                next = new String(in.readNBytes(length), StandardCharsets.UTF_8);
+            } catch (EOFException e) {
+                next = null;
+                closeQuietly();
+            } catch (IOException e) {
+                closeQuietly();
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void closeQuietly() {
+            try {
+                in.close();
+            } catch (IOException ignored) {
+                // Nothing left to read
+            }
+        }
+    }
+}
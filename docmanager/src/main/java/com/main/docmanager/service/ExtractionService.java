@@ -0,0 +1,448 @@
+package com.main.docmanager.service;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.tika.exception.TikaException;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.metadata.TikaCoreProperties;
+import org.apache.tika.mime.MediaType;
+import org.apache.tika.parser.ParseContext;
+import org.apache.tika.parser.Parser;
+import org.apache.tika.sax.BodyContentHandler;
+import org.apache.tika.sax.ContentHandlerDecorator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+
+import com.main.docmanager.exception.IngestionQueueFullException;
+import com.main.docmanager.exception.ParseTimeoutException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+@Service
+public class ExtractionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExtractionService.class);
+
+    private static final MediaType PDF = MediaType.application("pdf");
+
+    @Autowired
+    @Qualifier("documentParser")
+    private Parser documentParser;
+
+    @Autowired
+    private PdfPageRangeExtractor pdfPageRangeExtractor;
+
+    @Autowired
+    @Qualifier("tikaParseExecutor")
+    private ExecutorService tikaParseExecutor;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${docmanager.tika.parse-timeout:PT60S}")
+    private Duration parseTimeout;
+
+    @Value("${docmanager.extract.storage:inline}")
+    private String storage;
+
+    @Value("${docmanager.extract.chunk-size:65536}")
+    private int chunkSize;
+
+    @Value("${docmanager.extract.max-chars:-1}")
+    private long maxChars;
+
+    @Value("${docmanager.tika.isolation.mode:in-process}")
+    private String isolationMode;
+
+    @Value("${docmanager.extract.pdf.parallel-threshold:5MB}")
+    private DataSize parallelPdfThreshold;
+
+    @Value("${docmanager.extract.spill-dir:${java.io.tmpdir}/docmanager-extract}")
+    private String spillDir;
+
+    @Value("${docmanager.tika.isolation.max-abandoned:8}")
+    private int maxAbandoned;
+
+    private final AtomicInteger abandonedParses = new AtomicInteger();
+
+    // Threads added to the parse pool in place of abandoned parses; guarded by abandonedParses
+    private int replacementThreads;
+
+    public boolean isChunkedStorage() {
+        return "chunked".equalsIgnoreCase(storage);
+    }
+
+    /**
+     * Parses the stream and returns its body text, capped at {@code docmanager.extract.max-chars}. In
+     * chunked storage mode the text is streamed into a spill file chunk by chunk as Tika produces it,
+     * so heap use stays at one chunk regardless of document size.
+     */
+    public ExtractedText extract(InputStream stream, Metadata metadata) throws IOException, TikaException, SAXException {
+        return collect(chunker -> extractInto(stream, metadata, chunker));
+    }
+
+    /**
+     * Whether an upload should take the parallel page-range path instead of a single Tika parse. The
+     * decision rests on the content type sniffed from the leading bytes, never on the file name. Page
+     * ranges are extracted in this JVM, so in fork isolation mode every upload goes to the forked
+     * parser instead, the large ones above all.
+     */
+    public boolean isParallelPdf(Metadata metadata, long size) {
+        String contentType = metadata.get(Metadata.CONTENT_TYPE);
+        return contentType != null && PDF.equals(MediaType.parse(contentType).getBaseType())
+                && !"fork".equalsIgnoreCase(isolationMode)
+                && parallelPdfThreshold.toBytes() >= 0 && size >= parallelPdfThreshold.toBytes()
+                && pdfPageRangeExtractor.isParallel();
+    }
+
+    /**
+     * Spools the PDF and extracts its page ranges concurrently with {@link PdfPageRangeExtractor}. The
+     * result is the same {@link ExtractedText} the Tika path produces, chunking and caps included.
+     */
+    public ExtractedText extractPdfPages(InputStream stream, Metadata metadata) throws IOException, TikaException, SAXException {
+        Path pdf = Files.createTempFile(Files.createDirectories(Paths.get(spillDir)), "extract-", ".pdf");
+        long start = System.nanoTime();
+        String outcome = "success";
+        try {
+            Files.copy(stream, pdf, StandardCopyOption.REPLACE_EXISTING);
+            ExtractedText text = collect(chunker -> {
+                try {
+                    pdfPageRangeExtractor.extract(pdf, metadata, chunker, parseTimeout);
+                    chunker.flush();
+                    return false;
+                } catch (ChunkingContentHandler.LimitReachedException e) {
+                    chunker.flush();
+                    recordTruncated(chunker);
+                    return true;
+                }
+            });
+            outcome = text.isTruncated() ? "truncated" : outcome;
+            return text;
+        } catch (ParseTimeoutException e) {
+            outcome = "timeout";
+            throw e;
+        } catch (IOException | TikaException | SAXException | RuntimeException e) {
+            outcome = "failure";
+            throw e;
+        } finally {
+            Files.deleteIfExists(pdf);
+            Timer.builder("docmanager.extract.pdf.parallel")
+                    .description("Time spent extracting large PDFs as parallel page ranges")
+                    .tag("outcome", outcome)
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Runs an extraction into a chunking handler that either builds the inline text or, in chunked
+     * storage mode, streams chunks into a spill file.
+     */
+    private ExtractedText collect(TextProducer producer) throws IOException, TikaException, SAXException {
+        if (!isChunkedStorage()) {
+            StringBuilder text = new StringBuilder();
+            boolean truncated = producer.produce(new ChunkingContentHandler(chunkSize, maxChars, text::append));
+            return ExtractedText.inline(text.toString(), truncated);
+        }
+
+        Path spill = Files.createTempFile(Files.createDirectories(Paths.get(spillDir)), "extract-", ".chunks");
+        try {
+            boolean truncated;
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(spill)))) {
+                truncated = producer.produce(new ChunkingContentHandler(chunkSize, maxChars, chunk -> {
+                    byte[] bytes = chunk.getBytes(StandardCharsets.UTF_8);
+                    out.writeInt(bytes.length);
+                    out.write(bytes);
+                }));
+            }
+            return ExtractedText.spilled(spill, truncated);
+        } catch (IOException | TikaException | SAXException | RuntimeException e) {
+            Files.deleteIfExists(spill);
+            throw e;
+        }
+    }
+
+    /**
+     * Runs the parse on the Tika parse pool and waits at most {@code docmanager.tika.parse-timeout} for
+     * it. A parse that overruns is interrupted and reported as {@link ParseTimeoutException}; the caller
+     * gets its thread back immediately while the abandoned parse winds down at its next SAX event or
+     * read. The parse reads through a {@link ParseInput}, so once it is abandoned it never touches the
+     * caller's stream again, and the caller may close it.
+     */
+    public void parse(InputStream stream, ContentHandler handler, Metadata metadata) throws IOException, TikaException, SAXException {
+        long start = System.nanoTime();
+        String outcome = "success";
+        try {
+            parseWithDeadline(stream, handler, metadata);
+        } catch (ParseTimeoutException e) {
+            outcome = "timeout";
+            throw e;
+        } catch (IngestionQueueFullException e) {
+            outcome = "rejected";
+            throw e;
+        } catch (IOException | TikaException | SAXException | RuntimeException e) {
+            outcome = ChunkingContentHandler.isLimitReached(e) ? "truncated" : "failure";
+            throw e;
+        } finally {
+            Timer.builder("docmanager.tika.parse")
+                    .description("Time spent parsing uploads with the shared Tika parser")
+                    .tag("outcome", outcome)
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void parseWithDeadline(InputStream stream, ContentHandler handler, Metadata metadata) throws IOException, TikaException, SAXException {
+        // Claimed by whichever side finishes first: the parse itself, or the watchdog giving up on it
+        AtomicBoolean settled = new AtomicBoolean();
+        AtomicBoolean replaced = new AtomicBoolean();
+        ParseInput input = new ParseInput(stream);
+        Future<?> parse;
+        try {
+            parse = tikaParseExecutor.submit(() -> {
+                try {
+                    documentParser.parse(input, new InterruptibleContentHandler(handler), metadata, new ParseContext());
+                    return null;
+                } finally {
+                    input.close();
+                    synchronized (abandonedParses) {
+                        if (!settled.compareAndSet(false, true)) {
+                            abandonedParses.decrementAndGet();
+                            if (replaced.get()) {
+                                resizeParsePool(-1);
+                            }
+                        }
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            throw new IngestionQueueFullException("All parser threads are busy, retry later");
+        }
+
+        try {
+            parse.get(parseTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            parse.cancel(true);
+            // From here on the parse can no longer read the caller's stream, which the caller is about to close
+            input.close();
+            synchronized (abandonedParses) {
+                if (settled.compareAndSet(false, true)) {
+                    registerAbandonedGauge().incrementAndGet();
+                    replaced.set(replaceAbandonedThread());
+                }
+            }
+            logger.warn("Parse of {} exceeded {} and was cancelled", metadata.get(TikaCoreProperties.RESOURCE_NAME_KEY), parseTimeout);
+            throw new ParseTimeoutException("Parsing did not finish within " + parseTimeout.toSeconds() + " seconds");
+        } catch (InterruptedException e) {
+            parse.cancel(true);
+            input.close();
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for parse", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) {
+                throw io;
+            }
+            if (cause instanceof TikaException tika) {
+                throw tika;
+            }
+            if (cause instanceof SAXException sax) {
+                throw sax;
+            }
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new TikaException("Parse failed", cause);
+        }
+    }
+
+    /**
+     * Adds a thread to the parse pool for a parse that ignored its interrupt, so a runaway parse does
+     * not cost the pool a slot. At most {@code docmanager.tika.isolation.max-abandoned} threads are
+     * added; past that, abandoned parses keep their slots and a pool full of them answers 429. Only
+     * fork isolation can actually stop a parse that never yields. Called with abandonedParses held.
+     */
+    private boolean replaceAbandonedThread() {
+        if (replacementThreads >= maxAbandoned || !(tikaParseExecutor instanceof ThreadPoolExecutor pool)
+                || pool.getMaximumPoolSize() == Integer.MAX_VALUE) {
+            return false;
+        }
+        resizeParsePool(1);
+        return true;
+    }
+
+    // The maximum may never drop below the core size, so it moves first when growing and last when shrinking
+    private void resizeParsePool(int delta) {
+        ThreadPoolExecutor pool = (ThreadPoolExecutor) tikaParseExecutor;
+        replacementThreads += delta;
+        if (delta > 0) {
+            pool.setMaximumPoolSize(pool.getMaximumPoolSize() + delta);
+            pool.setCorePoolSize(pool.getCorePoolSize() + delta);
+        } else {
+            pool.setCorePoolSize(pool.getCorePoolSize() + delta);
+            pool.setMaximumPoolSize(pool.getMaximumPoolSize() + delta);
+        }
+    }
+
+    private AtomicInteger registerAbandonedGauge() {
+        Gauge.builder("docmanager.tika.parse.abandoned", abandonedParses, AtomicInteger::get)
+                .description("Timed-out parses whose threads have not stopped yet")
+                .register(meterRegistry);
+        return abandonedParses;
+    }
+
+    private boolean extractInto(InputStream stream, Metadata metadata, ChunkingContentHandler chunker) throws IOException, TikaException, SAXException {
+        try {
+            parse(stream, new BodyContentHandler(chunker), metadata);
+            chunker.flush();
+            return false;
+        } catch (SAXException | TikaException e) {
+            if (!ChunkingContentHandler.isLimitReached(e)) {
+                throw e;
+            }
+            chunker.flush();
+            recordTruncated(chunker);
+            return true;
+        }
+    }
+
+    private void recordTruncated(ChunkingContentHandler chunker) {
+        logger.warn("Extracted text truncated at {} characters", chunker.getTotalChars());
+        Counter.builder("docmanager.extract.truncated")
+                .description("Uploads whose extracted text hit docmanager.extract.max-chars")
+                .register(meterRegistry)
+                .increment();
+    }
+
+    @FunctionalInterface
+    private interface TextProducer {
+        /** Feeds the extracted text into the chunker and returns whether it was truncated. */
+        boolean produce(ChunkingContentHandler chunker) throws IOException, TikaException, SAXException;
+    }
+
+    /**
+     * The parse's view of the caller's stream. Closing it detaches the parse without closing the
+     * stream, which stays with the caller: after a successful parse the caller still drains it for the
+     * content hash. Reads and the close hold the same lock, so once {@link #close()} returns no read
+     * is in progress and every later one fails.
+     */
+    private static final class ParseInput extends FilterInputStream {
+
+        private boolean closed;
+
+        ParseInput(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public synchronized int read() throws IOException {
+            ensureOpen();
+            return super.read();
+        }
+
+        @Override
+        public synchronized int read(byte[] b, int off, int len) throws IOException {
+            ensureOpen();
+            return super.read(b, off, len);
+        }
+
+        @Override
+        public synchronized long skip(long n) throws IOException {
+            ensureOpen();
+            return super.skip(n);
+        }
+
+        @Override
+        public synchronized int available() throws IOException {
+            ensureOpen();
+            return super.available();
+        }
+
+        @Override
+        public synchronized void mark(int readlimit) {
+            super.mark(readlimit);
+        }
+
+        @Override
+        public synchronized void reset() throws IOException {
+            ensureOpen();
+            super.reset();
+        }
+
+        @Override
+        public synchronized void close() {
+            closed = true;
+        }
+
+        private void ensureOpen() throws IOException {
+            if (closed) {
+                throw new IOException("Parse cancelled");
+            }
+        }
+    }
+
+    /**
+     * Turns an interrupt of the parse thread into a SAXException at the next SAX event. Parsers rarely
+     * check the interrupt flag themselves, but nearly all of them keep emitting content.
+     */
+    private static final class InterruptibleContentHandler extends ContentHandlerDecorator {
+
+        InterruptibleContentHandler(ContentHandler handler) {
+            super(handler);
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String name, Attributes atts) throws SAXException {
+            checkInterrupted();
+            super.startElement(uri, localName, name, atts);
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String name) throws SAXException {
+            checkInterrupted();
+            super.endElement(uri, localName, name);
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) throws SAXException {
+            checkInterrupted();
+            super.characters(ch, start, length);
+        }
+
+        private void checkInterrupted() throws SAXException {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new SAXException("Parse cancelled");
+            }
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.main.docmanager.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.main.docmanager.dto.IngestionJob;
+import com.main.docmanager.exception.IngestionQueueFullException;
+import com.main.docmanager.model.Document;
+
+@Service
+public class IngestionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(IngestionService.class);
+
+    @Autowired
+    private DocumentService documentService;
+
+    @Autowired
+    @Qualifier("ingestionExecutor")
+    private ThreadPoolExecutor ingestionExecutor;
+
+    @Value("${docmanager.ingest.spool-dir:${java.io.tmpdir}/docmanager-ingest}")
+    private String spoolDir;
+
+    @Value("${docmanager.ingest.job-retention:PT1H}")
+    private Duration jobRetention;
+
+    private final Map<String, IngestionJob> jobs = new ConcurrentHashMap<>();
+
+    /**
+     * Validates the upload, spools it out of the request (the multipart part is discarded once the
+     * request completes) and queues it for parsing. Throws {@link IngestionQueueFullException} when the
+     * bounded queue has no room left.
+     */
+    public IngestionJob submit(MultipartFile file, String author) throws IOException {
+        documentService.validateFile(file);
+        evictExpiredJobs();
+
+        IngestionJob job = new IngestionJob(UUID.randomUUID().toString(), file.getOriginalFilename(), author);
+        Path spooled = spool(file, job.getId());
+        try {
+            enqueue(job, spooled);
+        } catch (IngestionQueueFullException e) {
+            deleteQuietly(spooled);
+            throw e;
+        }
+        return job;
+    }
+
+    /**
+     * Queues a file that is already on local disk, such as an assembled resumable upload. The file is
+     * deleted once parsed; if the queue is full it is left in place so the caller can retry.
+     */
+    public IngestionJob submitFile(Path file, String fileName, String author) {
+        evictExpiredJobs();
+        IngestionJob job = new IngestionJob(UUID.randomUUID().toString(), fileName, author);
+        enqueue(job, file);
+        return job;
+    }
+
+    private void enqueue(IngestionJob job, Path file) {
+        jobs.put(job.getId(), job);
+        try {
+            ingestionExecutor.execute(() -> run(job, file));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            logger.warn("Ingestion queue full, rejecting upload {}", job.getFileName());
+            throw new IngestionQueueFullException("Ingestion queue is full, retry later");
+        }
+        logger.debug("Queued ingestion job {} for {}", job.getId(), job.getFileName());
+    }
+
+    public Optional<IngestionJob> getJob(String id) {
+        return Optional.ofNullable(jobs.get(id));
+    }
+
+    private void run(IngestionJob job, Path spooled) {
+        job.setStatus(IngestionJob.Status.RUNNING);
+        try {
+            Document document = documentService.ingest(new FileSystemResource(spooled), job.getFileName(), job.getAuthor());
+            job.setDocumentId(document.getId());
+            finish(job, IngestionJob.Status.COMPLETED);
+        } catch (Exception e) {
+            logger.error("Ingestion job {} failed: {}", job.getId(), e.getMessage());
+            job.setError(e.getMessage());
+            finish(job, IngestionJob.Status.FAILED);
+        } finally {
+            deleteQuietly(spooled);
+        }
+    }
+
+    private void finish(IngestionJob job, IngestionJob.Status status) {
+        // completedAt goes first so eviction never sees a finished job without a completion time
+        job.setCompletedAt(LocalDateTime.now());
+        job.setStatus(status);
+    }
+
+    private Path spool(MultipartFile file, String jobId) throws IOException {
+        Path dir = Files.createDirectories(Paths.get(spoolDir));
+        Path target = dir.resolve(jobId);
+        // For disk-backed parts this is a rename of the container's temp file rather than a copy
+        file.transferTo(target);
+        return target;
+    }
+
+    private void evictExpiredJobs() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(jobRetention);
+        jobs.values().removeIf(job -> job.isFinished() && job.getCompletedAt().isBefore(cutoff));
+    }
+
+    private void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            logger.warn("Failed to delete spooled upload {}: {}", path, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.main.docmanager.service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.apache.tika.exception.TikaException;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.metadata.TikaCoreProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+
+import com.main.docmanager.exception.ParseTimeoutException;
+
+/**
+ * Extracts a PDF as independent page ranges on the fork/join pool. PDDocument is not thread-safe, so
+ * every range loads its own document from the spooled file; loading only reads the cross-reference
+ * table and page tree, which is small next to the text extraction itself. Ranges are handed to the
+ * content handler in page order as soon as each one and all before it are done.
+ */
+@Service
+public class PdfPageRangeExtractor {
+
+    @Autowired
+    @Qualifier("pdfExtractionPool")
+    private ForkJoinPool pdfExtractionPool;
+
+    @Value("${docmanager.extract.pdf.min-pages-per-task:25}")
+    private int minPagesPerTask;
+
+    /** Ranges only pay off when more than one core can work on them. */
+    public boolean isParallel() {
+        return pdfExtractionPool.getParallelism() > 1;
+    }
+
+    public void extract(Path pdf, Metadata metadata, ContentHandler handler, Duration timeout) throws IOException, TikaException, SAXException {
+        int pages;
+        try (PDDocument document = Loader.loadPDF(pdf.toFile())) {
+            pages = document.getNumberOfPages();
+            String title = document.getDocumentInformation().getTitle();
+            if (title != null && !title.isBlank()) {
+                metadata.set(TikaCoreProperties.TITLE, title);
+            }
+        }
+        metadata.set(Metadata.CONTENT_TYPE, "application/pdf");
+
+        // Every range reloads the document and its fonts, so aim for two ranges per worker rather than many small ones
+        int pagesPerTask = Math.max(minPagesPerTask, -Math.floorDiv(-pages, pdfExtractionPool.getParallelism() * 2));
+        AtomicBoolean cancelled = new AtomicBoolean();
+        List<ForkJoinTask<String>> ranges = new ArrayList<>();
+        for (int first = 1; first <= pages; first += pagesPerTask) {
+            int start = first;
+            int end = Math.min(first + pagesPerTask - 1, pages);
+            ranges.add(pdfExtractionPool.submit(() -> extractRange(pdf, start, end, cancelled)));
+        }
+
+        long deadline = System.nanoTime() + timeout.toNanos();
+        try {
+            for (ForkJoinTask<String> range : ranges) {
+                char[] text = range.get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS).toCharArray();
+                handler.characters(text, 0, text.length);
+            }
+        } catch (TimeoutException e) {
+            throw new ParseTimeoutException("Parsing did not finish within " + timeout.toSeconds() + " seconds");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for PDF page ranges", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            throw new TikaException("PDF page range extraction failed", e.getCause());
+        } finally {
+            // Ranges still running stop at their next page; queued ones never start
+            cancelled.set(true);
+            ranges.forEach(range -> range.cancel(false));
+        }
+    }
+
+    private String extractRange(Path pdf, int startPage, int endPage, AtomicBoolean cancelled) throws IOException {
+        if (cancelled.get()) {
+            return "";
+        }
+        try (PDDocument document = Loader.loadPDF(pdf.toFile())) {
+            PDFTextStripper stripper = new PDFTextStripper() {
+                @Override
+                protected void startPage(PDPage page) throws IOException {
+                    if (cancelled.get()) {
+                        throw new IOException("PDF extraction cancelled");
+                    }
+                    super.startPage(page);
+                }
+            };
+            // Tika's PDFParser default; the duplicate check is quadratic in the glyphs on a page
+            stripper.setSuppressDuplicateOverlappingText(false);
+            stripper.setStartPage(startPage);
+            stripper.setEndPage(endPage);
+            return stripper.getText(document);
+        }
+    }
+}
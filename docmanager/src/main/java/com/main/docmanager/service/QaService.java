@@ -2,21 +2,52 @@ package com.main.docmanager.service;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.main.docmanager.constants.ConstantsUtil;
+import com.main.docmanager.dto.CountMode;
+import com.main.docmanager.dto.CursorPage;
+import com.main.docmanager.dto.KeysetCursor;
+import com.main.docmanager.dto.RankCursor;
 import com.main.docmanager.dto.SearchResultDTO;
+import com.main.docmanager.dto.SnippetFragment;
+import com.main.docmanager.dto.SnippetFragment.Highlight;
 import com.main.docmanager.model.Document;
+import com.main.docmanager.model.DocumentChunk;
+import com.main.docmanager.model.DocumentContent;
+import com.main.docmanager.repository.DocumentChunkRepository;
 import com.main.docmanager.repository.DocumentRepository;
 import com.main.docmanager.repository.UserRepository;
+import com.main.docmanager.search.SearchEngine;
+import com.main.docmanager.search.SearchHits;
+import com.main.docmanager.search.Snippets;
+import com.main.docmanager.search.Snippets.Fragment;
 
+/**
+ * Read-only queries. Every method runs in a read-only transaction, which is what lets the routing data
+ * source send them to the read replica when one is configured.
+ */
 @Service
+@Transactional(readOnly = true)
 public class QaService {
 
     @Autowired
@@ -25,19 +56,171 @@ public class QaService {
     @Autowired
     private UserRepository userRepository;
 
-  
-//    @Cacheable(value = "searchCache", key = "#query + #pageable.pageNumber")
-	public List<SearchResultDTO> search(String query, Pageable pageable) {
-		Page<Document> results = documentRepository.findByContentOrTitleContainingIgnoreCase(query, pageable);
+    @Autowired
+    private DocumentChunkRepository documentChunkRepository;
+
+    // Absent when docmanager.search.engine leaves search to the LIKE queries
+    @Autowired(required = false)
+    private SearchEngine searchEngine;
+
+    @Value("${docmanager.pagination.max-page-size:100}")
+    private int maxCursorPageSize;
 
-		List<SearchResultDTO> searchResults = results
-				.getContent().stream().map(doc -> new SearchResultDTO(doc.getId(),doc.getTitle(),
-						generateSnippet(doc.getContent(), query, 50), doc.getUploadedAt(), doc.getAuthor()))
-				.collect(Collectors.toList());
+    @Value("${docmanager.search.snippet.context:50}")
+    private int snippetContext;
 
-		return searchResults;
+    @Value("${docmanager.search.snippet.max-fragments:3}")
+    private int snippetFragments;
+
+	public List<SearchResultDTO> search(String query, Pageable pageable) {
+		return search(query, pageable, CountMode.NONE).getContent();
 		}
 
+    /**
+     * Searches one page. {@code EXACT} returns a {@link Page} backed by a COUNT over the same
+     * substring match, a second pass over the trigram indexes; {@code ESTIMATE} returns a Page whose total is the planner's
+     * estimate; {@code NONE} returns a plain {@link Slice}. With a search engine configured the page is
+     * ranked by relevance instead and every mode but {@code NONE} gets the engine's exact total.
+     */
+    public Slice<SearchResultDTO> search(String query, Pageable pageable, CountMode countMode) {
+        if (searchEngine != null) {
+            return searchIndexed(query, pageable, countMode);
+        }
+        Slice<Document> documents = switch (countMode) {
+            case EXACT -> documentRepository.findByContentOrTitleContainingIgnoreCase(query, pageable);
+            case ESTIMATE -> estimated(documentRepository.searchSlice(query, pageable), () -> documentRepository.estimateSearchCount(query));
+            case NONE -> documentRepository.searchSlice(query, pageable);
+        };
+        return documents.map(doc -> result(doc, query));
+    }
+
+    // The engine decides the order, so the pageable's sort is ignored; only the page's rows are loaded
+    private Slice<SearchResultDTO> searchIndexed(String query, Pageable pageable, CountMode countMode) {
+        int offset = pageable.isPaged() ? Math.toIntExact(pageable.getOffset()) : 0;
+        int limit = pageable.isPaged() ? pageable.getPageSize() : Integer.MAX_VALUE;
+        SearchHits hits = searchEngine.search(query, offset, limit);
+        List<SearchResultDTO> results = indexedResults(query, hits.ids(), hits.snippets());
+        return countMode == CountMode.NONE ? new SliceImpl<>(results, pageable, offset + hits.ids().size() < hits.total())
+                : new PageImpl<>(results, pageable, hits.total());
+    }
+
+    // Only the page's rows are loaded, with their bodies only when the engine leaves the snippets to us
+    private List<SearchResultDTO> indexedResults(String query, List<Long> ids, Map<Long, String> snippets) {
+        List<Document> page = ids.isEmpty() ? List.of()
+                : snippets.isEmpty() ? documentRepository.findAllWithContentByIdIn(ids) : documentRepository.findAllById(ids);
+        Map<Long, Document> documents = page.stream().collect(Collectors.toMap(Document::getId, Function.identity()));
+        // Snippets look for the words the engine matched, which a hit need not hold side by side
+        List<String> terms = searchEngine.terms(query);
+        String keyword = String.join(" ", terms);
+        Map<Long, String> chunkTexts = snippets.isEmpty() ? matchingChunks(page, terms) : Map.of();
+        return ids.stream().map(documents::get).filter(Objects::nonNull)
+                .map(doc -> snippets.containsKey(doc.getId())
+                        ? new SearchResultDTO(doc.getId(), doc.getTitle(), snippets.get(doc.getId()), doc.getUploadedAt(), doc.getAuthor())
+                        : result(doc, keyword, snippetSource(doc, chunkTexts)))
+                .toList();
+    }
+
+    /**
+     * Keyset-paginated search. With a search engine configured the pages follow its {@code (score, id)}
+     * ranking, so they hold the hits {@link #search} returns in the same order; otherwise they follow
+     * {@code (uploaded_at, id)}. Either way deep pages cost the same as the first and no count query is
+     * issued. A cursor is only valid for the ordering that produced it.
+     */
+    public CursorPage<SearchResultDTO> searchAfter(String query, String cursor, int size) {
+        if (searchEngine != null) {
+            return searchIndexedAfter(query, cursor, size);
+        }
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        int limit = pageSize(size);
+        List<Document> documents = documentRepository.searchAfter(query, after.uploadedAt(), after.id(), Limit.of(limit + 1));
+        return page(documents, limit).map(doc -> result(doc, query));
+    }
+
+    // One hit beyond the page is ranked only to learn whether another page exists
+    private CursorPage<SearchResultDTO> searchIndexedAfter(String query, String cursor, int size) {
+        RankCursor after = RankCursor.decode(cursor);
+        int limit = pageSize(size);
+        SearchHits hits = searchEngine.searchAfter(query, after.score(), after.id(), limit + 1);
+        if (hits.ids().size() <= limit) {
+            return new CursorPage<>(indexedResults(query, hits.ids(), hits.snippets()), null);
+        }
+        List<Long> ids = hits.ids().subList(0, limit);
+        String next = new RankCursor(hits.scores().get(limit - 1), ids.get(limit - 1)).encode();
+        return new CursorPage<>(indexedResults(query, ids, hits.snippets()), next);
+    }
+
+    // One query for the page's chunked documents, instead of one per hit
+    private Map<Long, String> matchingChunks(List<Document> page, List<String> terms) {
+        List<Long> contentIds = page.stream().map(Document::getContent)
+                .filter(content -> content != null && content.getText() == null).map(DocumentContent::getId).distinct().toList();
+        return contentIds.isEmpty() ? Map.of() : documentChunkRepository.findFirstMatching(contentIds, terms);
+    }
+
+    private SearchResultDTO result(Document doc, String keyword) {
+        return result(doc, keyword, snippetSource(doc, keyword));
+    }
+
+    // The snippet string and the highlighted fragments come from one pass over the body
+    private SearchResultDTO result(Document doc, String keyword, String source) {
+        List<Fragment> fragments = Snippets.best(source, keyword, snippetContext, snippetFragments);
+        return new SearchResultDTO(doc.getId(), doc.getTitle(), snippet(source, fragments), doc.getUploadedAt(), doc.getAuthor(),
+                fragments.stream().map(fragment -> fragment(source, fragment)).toList());
+    }
+
+    public CursorPage<Document> filterAfter(String author, String fileType, String fromDate, String toDate, String cursor, int size) {
+        LocalDateTime parsedFromDate = parseDateTime(fromDate, "fromDate");
+        LocalDateTime parsedToDate = parseDateTime(toDate, "toDate");
+        if (parsedFromDate != null && parsedToDate != null && parsedFromDate.isAfter(parsedToDate)) {
+            throw new IllegalArgumentException("fromDate must be before or equal to toDate");
+        }
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        int limit = pageSize(size);
+        return page(documentRepository.filterAfter(author, fileType, parsedFromDate, parsedToDate,
+                after.uploadedAt(), after.id(), Limit.of(limit + 1)), limit);
+    }
+
+    private int pageSize(int size) {
+        if (size < 1 || size > maxCursorPageSize) {
+            throw new IllegalArgumentException("size must be between 1 and " + maxCursorPageSize);
+        }
+        return size;
+    }
+
+    // One row beyond the page is fetched only to learn whether another page exists
+    private static CursorPage<Document> page(List<Document> documents, int limit) {
+        if (documents.size() <= limit) {
+            return new CursorPage<>(documents, null);
+        }
+        List<Document> items = documents.subList(0, limit);
+        Document last = items.get(limit - 1);
+        return new CursorPage<>(items, new KeysetCursor(last.getUploadedAt(), last.getId()).encode());
+    }
+
+    // Chunked documents keep no inline content, so the snippet comes from the first chunk that matches
+    private String snippetSource(Document doc, String query) {
+        DocumentContent content = doc.getContent();
+        if (content == null || content.getText() != null || query == null) {
+            return content == null ? null : content.getText();
+        }
+        List<DocumentChunk> chunks = documentChunkRepository.findMatching(content.getId(), query, PageRequest.of(0, 1));
+        return chunks.isEmpty() ? null : chunks.get(0).getText();
+    }
+
+    // The same, with the chunks already picked for the whole page
+    private static String snippetSource(Document doc, Map<Long, String> chunkTexts) {
+        DocumentContent content = doc.getContent();
+        if (content == null || content.getText() != null) {
+            return content == null ? null : content.getText();
+        }
+        return chunkTexts.get(content.getId());
+    }
+
+    /** Loads a document's full text on demand, joining the chunks of chunked documents in order. */
+    public Optional<String> getContent(Long id) {
+        return documentRepository.findById(id).map(Document::getContent).map(content ->
+                content.getText() != null ? content.getText() : String.join("", documentChunkRepository.findTexts(content.getId())));
+    }
+
     public Page<Document> filter(String author, String fileType, String fromDate, String toDate, Pageable pageable) {
     	LocalDateTime parsedFromDate = parseDateTime(fromDate, "fromDate");
         LocalDateTime parsedToDate = parseDateTime(toDate, "toDate");
@@ -48,24 +231,62 @@ public class QaService {
 
     	return documentRepository.findByFilters(author, fileType, parsedFromDate, parsedToDate, pageable);
     }
+
+    /** Metadata filter with the total reported as {@code countMode} asks; see {@link #search(String, Pageable, CountMode)}. */
+    public Slice<Document> filter(String author, String fileType, String fromDate, String toDate, Pageable pageable, CountMode countMode) {
+        if (countMode == CountMode.EXACT) {
+            return filter(author, fileType, fromDate, toDate, pageable);
+        }
+        LocalDateTime parsedFromDate = parseDateTime(fromDate, "fromDate");
+        LocalDateTime parsedToDate = parseDateTime(toDate, "toDate");
+        if (parsedFromDate != null && parsedToDate != null && parsedFromDate.isAfter(parsedToDate)) {
+            throw new IllegalArgumentException("fromDate must be before or equal to toDate");
+        }
+        Slice<Document> slice = documentRepository.filterSlice(author, fileType, parsedFromDate, parsedToDate, pageable);
+        return countMode == CountMode.NONE ? slice
+                : estimated(slice, () -> documentRepository.estimateFilterCount(author, fileType, parsedFromDate, parsedToDate));
+    }
+
+    // The estimate never undercuts what this slice has already proven to exist
+    private static <T> Page<T> estimated(Slice<T> slice, LongSupplier estimate) {
+        long seen = slice.getPageable().isPaged() ? slice.getPageable().getOffset() + slice.getNumberOfElements() : slice.getNumberOfElements();
+        long lowerBound = slice.hasNext() ? seen + 1 : seen;
+        return new PageImpl<>(slice.getContent(), slice.getPageable(), slice.hasNext() ? Math.max(estimate.getAsLong(), lowerBound) : lowerBound);
+    }
     public String generateSnippet(String content, String keyword, int contextLength) {
         if (content == null || keyword == null || content.isEmpty() || keyword.isEmpty()) {
             return "";
         }
+        return snippet(content, Snippets.best(content, keyword, contextLength, snippetFragments));
+    }
 
-        String lowerContent = content.toLowerCase();
-        String lowerKeyword = keyword.toLowerCase();
-        int index = lowerContent.indexOf(lowerKeyword);
-
-        if (index == -1) {
-            return content.length() > contextLength * 2 ? content.substring(0, contextLength * 2) + "..." : content;
+    // Fragments that do not reach the ends of the body are marked with an ellipsis
+    private static String snippet(String content, List<Fragment> fragments) {
+        if (fragments.isEmpty()) {
+            return "";
+        }
+        StringBuilder snippet = new StringBuilder();
+        for (Fragment fragment : fragments) {
+            if (fragment.start() > 0) {
+                snippet.append(snippet.isEmpty() ? "..." : " ... ");
+            }
+            snippet.append(content, fragment.start(), fragment.end());
+        }
+        if (fragments.get(fragments.size() - 1).end() < content.length()) {
+            snippet.append("...");
         }
+        return snippet.toString();
+    }
 
-        int start = Math.max(0, index - contextLength);
-        int end = Math.min(content.length(), index + keyword.length() + contextLength);
-        String snippet = (start > 0 ? "..." : "") + content.substring(start, end) + (end < content.length() ? "..." : "");
-        return snippet;
+    private static SnippetFragment fragment(String content, Fragment fragment) {
+        int[] offsets = fragment.highlights();
+        List<Highlight> highlights = new ArrayList<>(offsets.length / 2);
+        for (int i = 0; i < offsets.length; i += 2) {
+            highlights.add(new Highlight(offsets[i] - fragment.start(), offsets[i + 1] - fragment.start()));
+        }
+        return new SnippetFragment(content.substring(fragment.start(), fragment.end()), highlights);
     }
+
     public LocalDateTime parseDateTime(String dateTimeStr, String paramName) {
         if (dateTimeStr == null || dateTimeStr.isBlank()) {
 //            logger.debug("{} is null or blank: {}", paramName, dateTimeStr);
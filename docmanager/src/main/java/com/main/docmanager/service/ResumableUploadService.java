@@ -0,0 +1,207 @@
+package com.main.docmanager.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import com.main.docmanager.constants.ConstantsUtil;
+import com.main.docmanager.dto.IngestionJob;
+import com.main.docmanager.dto.UploadSession;
+
+/**
+ * Resumable uploads for files beyond the multipart limit: initiate a session, PUT byte ranges in any
+ * order (re-sending a range is harmless), then complete to hand the assembled file to the ingestion
+ * queue. Ranges go straight from the request stream into the target file with positional
+ * {@link FileChannel} writes.
+ */
+@Service
+public class ResumableUploadService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResumableUploadService.class);
+    private static final Pattern CONTENT_RANGE = Pattern.compile("bytes (\\d+)-(\\d+)/(\\d+)");
+
+    @Autowired
+    private IngestionService ingestionService;
+
+    @Autowired
+    private ContentTypeSniffer contentTypeSniffer;
+
+    @Value("${docmanager.upload.resumable.dir:${java.io.tmpdir}/docmanager-uploads}")
+    private String uploadDir;
+
+    @Value("${docmanager.upload.resumable.max-size:500MB}")
+    private DataSize maxSize;
+
+    @Value("${docmanager.upload.resumable.max-chunk-size:16MB}")
+    private DataSize maxChunkSize;
+
+    @Value("${docmanager.upload.resumable.session-ttl:PT24H}")
+    private Duration sessionTtl;
+
+    private final Map<String, UploadSession> sessions = new ConcurrentHashMap<>();
+
+    public UploadSession initiate(String fileName, String contentType, long size, String author) throws IOException {
+        if (fileName == null || fileName.isBlank()) {
+            throw new IllegalArgumentException("File name is required");
+        }
+        if (!ConstantsUtil.ALLOWED_FILE_TYPES.contains(contentType)) {
+            throw new IllegalArgumentException("Unsupported file type: " + contentType);
+        }
+        if (size <= 0 || size > maxSize.toBytes()) {
+            throw new IllegalArgumentException("File size must be between 1 byte and " + maxSize);
+        }
+        evictExpiredSessions();
+
+        UploadSession session = new UploadSession(UUID.randomUUID().toString(), fileName, contentType, size, author);
+        Files.createDirectories(Paths.get(uploadDir));
+        // Sized up front (sparse where the filesystem allows) because transferFrom cannot write past the end of the file
+        try (RandomAccessFile file = new RandomAccessFile(pathOf(session).toFile(), "rw")) {
+            file.setLength(size);
+        }
+        sessions.put(session.getId(), session);
+        logger.debug("Initiated resumable upload {} for {} ({} bytes)", session.getId(), fileName, size);
+        return session;
+    }
+
+    public Optional<UploadSession> getSession(String id) {
+        return Optional.ofNullable(sessions.get(id));
+    }
+
+    /**
+     * Writes one {@code Content-Range} worth of bytes at its offset. The range is only recorded once
+     * every byte has been written, so an interrupted request simply leaves a gap to resend.
+     */
+    public UploadSession writeRange(String id, String contentRange, InputStream body) throws IOException {
+        UploadSession session = requireSession(id);
+        Matcher matcher = contentRange == null ? null : CONTENT_RANGE.matcher(contentRange.trim());
+        if (matcher == null || !matcher.matches()) {
+            throw new IllegalArgumentException("Content-Range must look like 'bytes start-end/total'");
+        }
+        long start = Long.parseLong(matcher.group(1));
+        long end = Long.parseLong(matcher.group(2));
+        long total = Long.parseLong(matcher.group(3));
+        if (total != session.getSize() || start > end || end >= total) {
+            throw new IllegalArgumentException("Content-Range " + contentRange + " does not fit an upload of " + session.getSize() + " bytes");
+        }
+        long count = end - start + 1;
+        if (count > maxChunkSize.toBytes()) {
+            throw new IllegalArgumentException("Chunk exceeds the limit of " + maxChunkSize);
+        }
+
+        try (FileChannel target = FileChannel.open(pathOf(session), StandardOpenOption.WRITE);
+             ReadableByteChannel source = Channels.newChannel(body)) {
+            long written = 0;
+            while (written < count) {
+                long transferred = target.transferFrom(source, start + written, count - written);
+                if (transferred <= 0) {
+                    throw new IllegalArgumentException("Request body ended after " + written + " of " + count + " bytes");
+                }
+                written += transferred;
+            }
+        }
+        if (start == 0) {
+            verifyHead(session, count);
+        }
+        session.markReceived(start, end + 1);
+        return session;
+    }
+
+    /**
+     * Queues the assembled file for parsing. The session ends here; the file now belongs to the
+     * ingestion job, which deletes it once parsed.
+     */
+    public IngestionJob complete(String id) {
+        UploadSession session = requireSession(id);
+        synchronized (session) {
+            if (!session.isComplete()) {
+                throw new IllegalArgumentException("Upload " + id + " is missing bytes: received "
+                        + session.getReceivedBytes() + " of " + session.getSize());
+            }
+            if (sessions.remove(id) == null) {
+                throw new IllegalArgumentException("Unknown upload: " + id);
+            }
+            try {
+                IngestionJob job = ingestionService.submitFile(pathOf(session), session.getFileName(), session.getAuthor());
+                session.setJobId(job.getId());
+                return job;
+            } catch (RuntimeException e) {
+                // Queue full: keep the session so the client can retry completion without re-uploading
+                sessions.put(id, session);
+                throw e;
+            }
+        }
+    }
+
+    public void abort(String id) throws IOException {
+        UploadSession session = sessions.remove(id);
+        if (session != null) {
+            Files.deleteIfExists(pathOf(session));
+        }
+    }
+
+    /**
+     * Sniffs the first range as soon as it lands, so a mislabelled upload is refused before the client
+     * sends the rest of it.
+     */
+    private void verifyHead(UploadSession session, long available) throws IOException {
+        byte[] head;
+        try (InputStream in = Files.newInputStream(pathOf(session))) {
+            head = in.readNBytes((int) Math.min(available, contentTypeSniffer.getSniffBytes()));
+        }
+        try {
+            contentTypeSniffer.verify(head, session.getFileName(), session.getContentType());
+        } catch (IllegalArgumentException e) {
+            abort(session.getId());
+            throw e;
+        }
+    }
+
+    private UploadSession requireSession(String id) {
+        UploadSession session = sessions.get(id);
+        if (session == null) {
+            throw new IllegalArgumentException("Unknown upload: " + id);
+        }
+        return session;
+    }
+
+    private Path pathOf(UploadSession session) {
+        return Paths.get(uploadDir).resolve(session.getId() + ".part");
+    }
+
+    private void evictExpiredSessions() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(sessionTtl);
+        sessions.values().removeIf(session -> {
+            if (!session.getCreatedAt().isBefore(cutoff)) {
+                return false;
+            }
+            try {
+                Files.deleteIfExists(pathOf(session));
+            } catch (IOException e) {
+                logger.warn("Failed to delete expired upload {}: {}", session.getId(), e.getMessage());
+            }
+            return true;
+        });
+    }
+}
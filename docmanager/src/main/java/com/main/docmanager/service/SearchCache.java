@@ -0,0 +1,140 @@
+package com.main.docmanager.service;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.main.docmanager.dto.CountMode;
+import com.main.docmanager.dto.SearchResultDTO;
+import com.main.docmanager.dto.SnippetFragment;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Caches search pages in front of {@link QaService}, outside its read-only transaction, so a hit
+ * never borrows a pooled connection. The cache is bounded by the estimated heap size of the pages and
+ * evicts with Caffeine's W-TinyLFU, which keeps the frequent queries that make up most of the traffic
+ * and refuses to let a burst of one-off queries push them out.
+ * <p>
+ * Every key carries the corpus generation it was computed under. {@link DocumentService} calls
+ * {@link #invalidate()} once an upload or delete has committed and reached the search engine, and
+ * the search index loader once the startup load has ended, which
+ * moves the generation on: later lookups miss, and the superseded entries are never looked at again
+ * and age out through eviction like any cold entry.
+ */
+@Component
+public class SearchCache {
+
+    // Key, node and Slice/Page objects of one entry, and the object, id and timestamp of one result
+    private static final int ENTRY_OVERHEAD = 256;
+    private static final int RESULT_OVERHEAD = 120;
+    private static final int FRAGMENT_OVERHEAD = 64;
+    private static final int HIGHLIGHT_BYTES = 24;
+
+    @Autowired
+    private QaService qaService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${docmanager.search.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${docmanager.search.cache.max-weight:64MB}")
+    private DataSize maxWeight;
+
+    @Value("${docmanager.search.cache.expire-after-write:10m}")
+    private Duration expireAfterWrite;
+
+    private final AtomicLong generation = new AtomicLong();
+
+    private AsyncCache<Key, Slice<SearchResultDTO>> cache;
+
+    record Key(long generation, String query, long offset, int size, Sort sort, CountMode countMode) {}
+
+    @PostConstruct
+    void init() {
+        cache = Caffeine.newBuilder()
+                .maximumWeight(maxWeight.toBytes())
+                .<Key, Slice<SearchResultDTO>>weigher(SearchCache::weigh)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "searchCache");
+        Gauge.builder("docmanager.search.cache.weight", cache, c -> c.synchronous().policy().eviction()
+                        .map(eviction -> eviction.weightedSize().orElse(0)).orElse(0L))
+                .description("Estimated heap bytes held by cached search pages")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        FunctionCounter.builder("docmanager.search.cache.invalidations", generation, AtomicLong::get)
+                .description("Corpus changes that invalidated every cached search page")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns the page from the cache or runs the search. Concurrent misses on the same key wait for
+     * the one search in flight instead of each running their own; a failed search is not cached.
+     */
+    public Slice<SearchResultDTO> search(String query, Pageable pageable, CountMode countMode) {
+        if (!enabled) {
+            return qaService.search(query, pageable, countMode);
+        }
+        Key key = new Key(generation.get(), query, pageable.isPaged() ? pageable.getOffset() : -1,
+                pageable.isPaged() ? pageable.getPageSize() : -1, pageable.getSort(), countMode);
+        CompletableFuture<Slice<SearchResultDTO>> loading = new CompletableFuture<>();
+        CompletableFuture<Slice<SearchResultDTO>> cached = cache.get(key, (k, executor) -> loading);
+        if (cached == loading) {
+            // The search runs on this thread, outside Caffeine's compute lock
+            try {
+                loading.complete(qaService.search(query, pageable, countMode));
+            } catch (RuntimeException | Error e) {
+                loading.completeExceptionally(e);
+                throw e;
+            }
+        }
+        try {
+            return cached.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /** Makes every cached page unreachable. Call only after the change is visible to searches. */
+    public void invalidate() {
+        generation.incrementAndGet();
+    }
+
+    static int weigh(Key key, Slice<SearchResultDTO> page) {
+        long bytes = ENTRY_OVERHEAD + chars(key.query());
+        for (SearchResultDTO result : page.getContent()) {
+            bytes += RESULT_OVERHEAD + chars(result.getTitle()) + chars(result.getSnippet()) + chars(result.getAuthor());
+            for (SnippetFragment fragment : result.getFragments()) {
+                bytes += FRAGMENT_OVERHEAD + chars(fragment.text()) + HIGHLIGHT_BYTES * fragment.highlights().size();
+            }
+        }
+        return (int) Math.min(Integer.MAX_VALUE, bytes);
+    }
+
+    // Header plus UTF-16 contents, the worst case of a compact string
+    private static long chars(String value) {
+        return value == null ? 0 : 40 + 2L * value.length();
+    }
+}
@@ -0,0 +1,88 @@
+-- Schema at the switch from ddl-auto to Flyway.
+--
+-- Databases that ddl-auto managed are baselined at version 0 (spring.flyway.baseline-version), so this
+-- script runs against them too. Every statement is therefore idempotent, and the blocks at the end
+-- convert the layouts older releases left behind: bodies inline in documents.content, chunks keyed
+-- by document id, and sequences created after rows already existed.
+
+CREATE SEQUENCE IF NOT EXISTS documents_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS document_contents_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS document_chunks_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS users (
+    id bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    username varchar(255) NOT NULL UNIQUE,
+    password varchar(255) NOT NULL,
+    role varchar(255) NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS document_contents (
+    id bigint PRIMARY KEY,
+    text text,
+    text_compressed bytea
+);
+ALTER TABLE document_contents ADD COLUMN IF NOT EXISTS text_compressed bytea;
+
+CREATE TABLE IF NOT EXISTS documents (
+    id bigint PRIMARY KEY,
+    title varchar(255),
+    file_type varchar(255),
+    author varchar(255),
+    uploaded_at timestamp(6),
+    content_hash varchar(64),
+    content_id bigint,
+    uploaded_by_id bigint
+);
+ALTER TABLE documents ADD COLUMN IF NOT EXISTS content_hash varchar(64);
+ALTER TABLE documents ADD COLUMN IF NOT EXISTS content_id bigint;
+
+CREATE TABLE IF NOT EXISTS document_chunks (
+    id bigint PRIMARY KEY,
+    content_id bigint,
+    chunk_index integer NOT NULL,
+    text text
+);
+ALTER TABLE document_chunks ADD COLUMN IF NOT EXISTS content_id bigint;
+
+DO $$
+BEGIN
+    -- Bodies stored inline on documents move to their own content rows
+    IF EXISTS (SELECT 1 FROM information_schema.columns
+               WHERE table_schema = current_schema() AND table_name = 'documents' AND column_name = 'content') THEN
+        UPDATE documents SET content_id = nextval('document_contents_seq') WHERE content_id IS NULL;
+        INSERT INTO document_contents (id, text)
+            SELECT d.content_id, d.content FROM documents d
+            WHERE NOT EXISTS (SELECT 1 FROM document_contents c WHERE c.id = d.content_id);
+        ALTER TABLE documents DROP COLUMN content;
+    END IF;
+
+    -- Chunks keyed by document follow their document's content row; rows of deleted documents go
+    IF EXISTS (SELECT 1 FROM information_schema.columns
+               WHERE table_schema = current_schema() AND table_name = 'document_chunks' AND column_name = 'document_id') THEN
+        UPDATE document_chunks c SET content_id = d.content_id
+            FROM documents d WHERE c.document_id = d.id AND c.content_id IS NULL;
+        DELETE FROM document_chunks WHERE content_id IS NULL;
+        ALTER TABLE document_chunks DROP COLUMN document_id;
+    END IF;
+
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint
+                   WHERE conrelid = 'documents'::regclass AND confrelid = 'document_contents'::regclass) THEN
+        ALTER TABLE documents ADD CONSTRAINT fk_documents_content FOREIGN KEY (content_id) REFERENCES document_contents;
+    END IF;
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint
+                   WHERE conrelid = 'documents'::regclass AND confrelid = 'users'::regclass) THEN
+        ALTER TABLE documents ADD CONSTRAINT fk_documents_uploaded_by FOREIGN KEY (uploaded_by_id) REFERENCES users;
+    END IF;
+END $$;
+
+ALTER TABLE document_chunks ALTER COLUMN content_id SET NOT NULL;
+
+CREATE UNIQUE INDEX IF NOT EXISTS idx_document_chunks_content ON document_chunks (content_id, chunk_index);
+CREATE INDEX IF NOT EXISTS idx_documents_content_hash ON documents (content_hash);
+CREATE INDEX IF NOT EXISTS idx_documents_uploaded_at_id ON documents (uploaded_at, id);
+
+-- Hibernate's pooled optimizer hands out the 50 ids up to each sequence value, so a sequence must sit
+-- at or above the largest id already stored; identity-era rows would otherwise collide
+SELECT setval('documents_seq', GREATEST(MAX(id), (SELECT last_value FROM documents_seq))) FROM documents HAVING MAX(id) IS NOT NULL;
+SELECT setval('document_contents_seq', GREATEST(MAX(id), (SELECT last_value FROM document_contents_seq))) FROM document_contents HAVING MAX(id) IS NOT NULL;
+SELECT setval('document_chunks_seq', GREATEST(MAX(id), (SELECT last_value FROM document_chunks_seq))) FROM document_chunks HAVING MAX(id) IS NOT NULL;
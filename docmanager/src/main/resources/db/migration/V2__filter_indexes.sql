@@ -0,0 +1,10 @@
+-- Indexes for the metadata filter (findByFilters, filterAfter): equality on author or file type,
+-- then a range on uploaded_at that the same index also returns in order.
+-- CONCURRENTLY keeps uploads flowing while large tables are indexed; Flyway runs this script outside
+-- a transaction. A failed build leaves an INVALID index that must be dropped before retrying.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_documents_author_uploaded_at ON documents (author, uploaded_at);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_documents_file_type_uploaded_at ON documents (file_type, uploaded_at);
+
+-- uploaded_at grows with insertion order, so block-range summaries serve date-only ranges at a tiny
+-- fraction of a B-tree's size
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_documents_uploaded_at_brin ON documents USING brin (uploaded_at);
@@ -0,0 +1,4 @@
+-- Deleting a content row makes Postgres check fk_documents_content, and the unreferenced-content sweep
+-- after bulk deletes looks documents up by content_id. Without an index both scan the whole table once
+-- per content row, which is what turned retention purges into hours of sequential scans.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_documents_content_id ON documents (content_id);
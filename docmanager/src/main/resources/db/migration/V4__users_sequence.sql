@@ -0,0 +1,6 @@
+-- users ids move from IDENTITY to the pooled users_seq, like the document tables. The sequence starts
+-- at or above the largest existing id, and dropping the identity leaves Hibernate as the only source
+-- of ids.
+CREATE SEQUENCE IF NOT EXISTS users_seq START WITH 1 INCREMENT BY 50;
+SELECT setval('users_seq', GREATEST(MAX(id), (SELECT last_value FROM users_seq))) FROM users HAVING MAX(id) IS NOT NULL;
+ALTER TABLE users ALTER COLUMN id DROP IDENTITY IF EXISTS;
@@ -0,0 +1,37 @@
+-- Full-text search vectors for the postgres-fts search engine. Title and body live in different tables
+-- (bodies are shared between duplicates, long ones are split into chunks), so each table carries its own
+-- vector. They are plain columns kept current by triggers rather than GENERATED ... STORED, because
+-- adding a stored generated column rewrites the whole table under an exclusive lock; existing rows are
+-- filled in small batches by SearchVectorBackfill instead. The queries in PostgresFullTextSearchEngine
+-- use the same 'english' configuration.
+ALTER TABLE documents ADD COLUMN IF NOT EXISTS title_tsv tsvector;
+ALTER TABLE document_contents ADD COLUMN IF NOT EXISTS text_tsv tsvector;
+ALTER TABLE document_chunks ADD COLUMN IF NOT EXISTS text_tsv tsvector;
+
+CREATE OR REPLACE FUNCTION documents_title_tsv() RETURNS trigger AS $$
+BEGIN
+    NEW.title_tsv := to_tsvector('english', coalesce(NEW.title, ''));
+    RETURN NEW;
+END
+$$ LANGUAGE plpgsql;
+
+-- A tsvector is capped at 1MB, so very long inline bodies are indexed by their leading 500k characters
+-- (chunked bodies are indexed chunk by chunk and have no such limit)
+CREATE OR REPLACE FUNCTION search_text_tsv() RETURNS trigger AS $$
+BEGIN
+    NEW.text_tsv := to_tsvector('english', left(coalesce(NEW.text, ''), 500000));
+    RETURN NEW;
+END
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS documents_title_tsv ON documents;
+CREATE TRIGGER documents_title_tsv BEFORE INSERT OR UPDATE OF title ON documents
+    FOR EACH ROW EXECUTE FUNCTION documents_title_tsv();
+
+DROP TRIGGER IF EXISTS document_contents_text_tsv ON document_contents;
+CREATE TRIGGER document_contents_text_tsv BEFORE INSERT OR UPDATE OF text ON document_contents
+    FOR EACH ROW EXECUTE FUNCTION search_text_tsv();
+
+DROP TRIGGER IF EXISTS document_chunks_text_tsv ON document_chunks;
+CREATE TRIGGER document_chunks_text_tsv BEFORE INSERT OR UPDATE OF text ON document_chunks
+    FOR EACH ROW EXECUTE FUNCTION search_text_tsv();
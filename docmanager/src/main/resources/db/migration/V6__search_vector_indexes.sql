@@ -0,0 +1,4 @@
+-- Built without blocking writes; rows the backfill has not reached yet are simply not in the index
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_documents_title_tsv ON documents USING gin (title_tsv);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_document_contents_text_tsv ON document_contents USING gin (text_tsv);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_document_chunks_text_tsv ON document_chunks USING gin (text_tsv);
@@ -0,0 +1,3 @@
+-- Trigram operator classes for the substring search indexes in V8; trusted since Postgres 13, so the
+-- application role can create it without superuser
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
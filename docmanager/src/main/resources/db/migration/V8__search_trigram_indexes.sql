@@ -0,0 +1,5 @@
+-- Serve LOWER(x) LIKE '%q%' from trigrams instead of a scan of every body; built without blocking writes.
+-- Queries shorter than three characters have no trigram to look up and still scan.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_documents_title_trgm ON documents USING gin (lower(title) gin_trgm_ops);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_document_contents_text_trgm ON document_contents USING gin (lower(text) gin_trgm_ops);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_document_chunks_text_trgm ON document_chunks USING gin (lower(text) gin_trgm_ops);
@@ -0,0 +1,96 @@
+package com.main.docmanager.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class ReplicaLagMonitorTest {
+
+    private DataSource replica;
+    private ResultSet resultSet;
+    private ReplicaLagMonitor monitor;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        replica = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        Statement statement = mock(Statement.class);
+        resultSet = mock(ResultSet.class);
+        ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+        when(replica.getConnection()).thenReturn(connection);
+        when(connection.createStatement()).thenReturn(statement);
+        when(statement.executeQuery(ReplicaLagMonitor.LAG_SQL)).thenReturn(resultSet);
+        when(resultSet.getMetaData()).thenReturn(metaData);
+        when(metaData.getColumnCount()).thenReturn(1);
+        when(resultSet.next()).thenReturn(true, false);
+        monitor = new ReplicaLagMonitor(replica, Duration.ofSeconds(5), Duration.ofSeconds(1));
+    }
+
+    @Test
+    void testUnavailableBeforeFirstCheck() {
+        assertFalse(monitor.isAvailable());
+    }
+
+    @Test
+    void testAvailableWithinMaxLag() throws SQLException {
+        lag(1.5);
+
+        monitor.check();
+
+        assertTrue(monitor.isAvailable());
+        assertEquals(1.5, monitor.getLagSeconds());
+    }
+
+    @Test
+    void testUnavailableBeyondMaxLag() throws SQLException {
+        lag(12.0);
+
+        monitor.check();
+
+        assertFalse(monitor.isAvailable());
+        assertEquals(12.0, monitor.getLagSeconds());
+    }
+
+    @Test
+    void testUnavailableBeforeFirstReplay() throws SQLException {
+        when(resultSet.getDouble(anyInt())).thenReturn(0.0);
+        when(resultSet.wasNull()).thenReturn(true);
+
+        monitor.check();
+
+        assertFalse(monitor.isAvailable());
+        assertTrue(Double.isNaN(monitor.getLagSeconds()));
+    }
+
+    @Test
+    void testFailedCheckMarksReplicaUnavailable() throws SQLException {
+        lag(0.0);
+        monitor.check();
+        when(replica.getConnection()).thenThrow(new SQLException("Connection refused"));
+
+        monitor.check();
+
+        assertFalse(monitor.isAvailable());
+        assertTrue(Double.isNaN(monitor.getLagSeconds()));
+    }
+
+    private void lag(double seconds) throws SQLException {
+        when(resultSet.getDouble(anyInt())).thenReturn(seconds);
+        when(resultSet.wasNull()).thenReturn(false);
+    }
+}
@@ -0,0 +1,116 @@
+package com.main.docmanager.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.ConnectionProxy;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Routes through a real transaction manager and lazy proxy, with mocked pools standing in for the
+ * primary and replica.
+ */
+public class ReplicaRoutingDataSourceTest {
+
+    private static final String QA_SEARCH = "com.main.docmanager.service.QaService.search";
+
+    private DataSource primary;
+    private DataSource replica;
+    private Connection primaryConnection;
+    private Connection replicaConnection;
+    private ReplicaLagMonitor lagMonitor;
+    private SimpleMeterRegistry meterRegistry;
+    private DataSourceTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        primary = mock(DataSource.class);
+        replica = mock(DataSource.class);
+        primaryConnection = mock(Connection.class);
+        replicaConnection = mock(Connection.class);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        when(replica.getConnection()).thenReturn(replicaConnection);
+        when(primaryConnection.getAutoCommit()).thenReturn(true);
+        when(primaryConnection.getTransactionIsolation()).thenReturn(Connection.TRANSACTION_READ_COMMITTED);
+        when(replicaConnection.getAutoCommit()).thenReturn(true);
+        lagMonitor = mock(ReplicaLagMonitor.class);
+        meterRegistry = new SimpleMeterRegistry();
+
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(lagMonitor, List.of("com.main.docmanager.service.QaService"), meterRegistry);
+        routing.setTargetDataSources(Map.of(
+                ReplicaRoutingDataSource.Route.PRIMARY, primary,
+                ReplicaRoutingDataSource.Route.REPLICA, replica));
+        routing.setDefaultTargetDataSource(primary);
+        routing.afterPropertiesSet();
+        transactionManager = new DataSourceTransactionManager(new LazyConnectionDataSourceProxy(routing));
+    }
+
+    @Test
+    void testRoutedReadOnlyTransactionUsesReplica() {
+        when(lagMonitor.isAvailable()).thenReturn(true);
+
+        Connection used = runInTransaction(QA_SEARCH, true);
+
+        assertEquals(replicaConnection, used);
+        assertEquals(1.0, routeCount("replica"));
+    }
+
+    @Test
+    void testLaggingReplicaFallsBackToPrimary() {
+        when(lagMonitor.isAvailable()).thenReturn(false);
+
+        Connection used = runInTransaction(QA_SEARCH, true);
+
+        assertEquals(primaryConnection, used);
+        assertEquals(1.0, routeCount("fallback"));
+    }
+
+    @Test
+    void testWriteTransactionUsesPrimary() {
+        when(lagMonitor.isAvailable()).thenReturn(true);
+
+        Connection used = runInTransaction(QA_SEARCH, false);
+
+        assertEquals(primaryConnection, used);
+        assertEquals(0.0, routeCount("replica"));
+    }
+
+    @Test
+    void testReadOnlyTransactionOfOtherServiceUsesPrimary() {
+        when(lagMonitor.isAvailable()).thenReturn(true);
+
+        // Repository reads outside QaService, like the registration username check, read their own writes
+        Connection used = runInTransaction("org.springframework.data.jpa.repository.support.SimpleJpaRepository.exists", true);
+        Connection prefixOnly = runInTransaction("com.main.docmanager.service.QaServiceHelper.search", true);
+
+        assertEquals(primaryConnection, used);
+        assertEquals(primaryConnection, prefixOnly);
+    }
+
+    private Connection runInTransaction(String name, boolean readOnly) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setName(name);
+        template.setReadOnly(readOnly);
+        // The first use of the lazy connection is what picks the pool
+        return template.execute(status -> ((ConnectionProxy) DataSourceUtils.getConnection(transactionManager.getDataSource())).getTargetConnection());
+    }
+
+    private double routeCount(String route) {
+        return meterRegistry.get("docmanager.datasource.routing").tag("route", route).counter().count();
+    }
+}
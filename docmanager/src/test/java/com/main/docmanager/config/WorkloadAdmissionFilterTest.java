@@ -0,0 +1,192 @@
+package com.main.docmanager.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.main.docmanager.config.WorkloadAdmissionFilter.Workload;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Part;
+
+public class WorkloadAdmissionFilterTest {
+
+    private WorkloadAdmissionFilter filter;
+    private SimpleMeterRegistry meterRegistry;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        filter = new WorkloadAdmissionFilter();
+        ReflectionTestUtils.setField(filter, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(filter, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(filter, "enabled", true);
+        ReflectionTestUtils.setField(filter, "maxWait", Duration.ofMillis(20));
+        ReflectionTestUtils.setField(filter, "authBudget", 1);
+        ReflectionTestUtils.setField(filter, "ingestBudget", 1);
+        ReflectionTestUtils.setField(filter, "searchBudget", 1);
+        filter.initBudgets();
+        executor = Executors.newSingleThreadExecutor();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testClassify() {
+        assertEquals(Workload.AUTH, WorkloadAdmissionFilter.classify(request("POST", "/api/auth/login")));
+        assertEquals(Workload.SEARCH, WorkloadAdmissionFilter.classify(request("GET", "/api/documents/search")));
+        assertEquals(Workload.SEARCH, WorkloadAdmissionFilter.classify(request("GET", "/api/documents/7/file")));
+        assertEquals(Workload.INGEST, WorkloadAdmissionFilter.classify(request("POST", "/api/documents/upload")));
+        assertEquals(Workload.INGEST, WorkloadAdmissionFilter.classify(request("POST", "/api/documents/uploads/abc/complete")));
+        // Chunk bodies only go to disk, so their transfer holds no connection budget
+        assertNull(WorkloadAdmissionFilter.classify(request("PUT", "/api/documents/uploads/abc")));
+        assertEquals(Workload.INGEST, WorkloadAdmissionFilter.classify(request("DELETE", "/api/documents/delete")));
+        assertNull(WorkloadAdmissionFilter.classify(request("GET", "/api/documents/jobs/abc")));
+        assertNull(WorkloadAdmissionFilter.classify(request("GET", "/actuator/health")));
+    }
+
+    @Test
+    void testFullBudgetIsRejectedWithServiceUnavailable() throws Exception {
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<?> slowSearch = executor.submit(() -> {
+            filter.doFilter(request("GET", "/api/documents/search"), new MockHttpServletResponse(), (req, res) -> {
+                holding.countDown();
+                await(release);
+            });
+            return null;
+        });
+        assertTrue(holding.await(5, TimeUnit.SECONDS));
+
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(request("GET", "/api/documents/filter"), rejected, chain);
+
+        assertEquals(503, rejected.getStatus());
+        assertEquals("1", rejected.getHeader("Retry-After"));
+        assertTrue(rejected.getContentAsString().contains("search"));
+        assertNull(chain.getRequest());
+        assertEquals(1.0, meterRegistry.get("docmanager.db.admission.rejected").tag("workload", "search").counter().count());
+        assertEquals(1.0, meterRegistry.get("docmanager.db.admission.active").tag("workload", "search").gauge().value());
+
+        release.countDown();
+        slowSearch.get(5, TimeUnit.SECONDS);
+        assertEquals(0.0, meterRegistry.get("docmanager.db.admission.active").tag("workload", "search").gauge().value());
+    }
+
+    @Test
+    void testSearchStormLeavesAuthBudget() throws Exception {
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<?> slowSearch = executor.submit(() -> {
+            filter.doFilter(request("GET", "/api/documents/search"), new MockHttpServletResponse(), (req, res) -> {
+                holding.countDown();
+                await(release);
+            });
+            return null;
+        });
+        assertTrue(holding.await(5, TimeUnit.SECONDS));
+
+        MockHttpServletResponse login = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(request("POST", "/api/auth/login"), login, chain);
+
+        assertEquals(200, login.getStatus());
+        assertNotNull(chain.getRequest());
+        release.countDown();
+        slowSearch.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void testSlowMultipartBodyHoldsNoPermit() throws Exception {
+        CountDownLatch receiving = new CountDownLatch(1);
+        CountDownLatch arrived = new CountDownLatch(1);
+        MockHttpServletRequest slowUpload = new MockHttpServletRequest("POST", "/api/documents/upload") {
+            @Override
+            public Collection<Part> getParts() throws IOException, ServletException {
+                receiving.countDown();
+                await(arrived);
+                return super.getParts();
+            }
+        };
+        slowUpload.setContentType("multipart/form-data; boundary=x");
+        Future<?> upload = executor.submit(() -> {
+            filter.doFilter(slowUpload, new MockHttpServletResponse(), new MockFilterChain());
+            return null;
+        });
+        assertTrue(receiving.await(5, TimeUnit.SECONDS));
+
+        MockHttpServletResponse delete = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(request("DELETE", "/api/documents/delete"), delete, chain);
+
+        assertEquals(200, delete.getStatus());
+        assertNotNull(chain.getRequest());
+        arrived.countDown();
+        upload.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void testPermitReleasedWhenChainThrows() throws Exception {
+        FilterChain failing = (req, res) -> {
+            throw new ServletException("boom");
+        };
+        assertThrows(ServletException.class,
+                () -> filter.doFilter(request("POST", "/api/documents/upload"), new MockHttpServletResponse(), failing));
+
+        MockHttpServletResponse next = new MockHttpServletResponse();
+        filter.doFilter(request("POST", "/api/documents/upload"), next, new MockFilterChain());
+
+        assertEquals(200, next.getStatus());
+    }
+
+    @Test
+    void testDisabledPassesEverythingThrough() throws Exception {
+        ReflectionTestUtils.setField(filter, "enabled", false);
+        ReflectionTestUtils.setField(filter, "searchBudget", 0);
+        filter.initBudgets();
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request("GET", "/api/documents/search"), response, new MockFilterChain());
+
+        assertEquals(200, response.getStatus());
+    }
+
+    private static MockHttpServletRequest request(String method, String uri) {
+        return new MockHttpServletRequest(method, uri);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
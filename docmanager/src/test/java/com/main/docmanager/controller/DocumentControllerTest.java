@@ -2,32 +2,49 @@
 package com.main.docmanager.controller;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doCallRealMethod;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
 
+import com.main.docmanager.dto.IngestionJob;
+import com.main.docmanager.exception.IngestionQueueFullException;
 import com.main.docmanager.model.Document;
 import com.main.docmanager.model.User;
 import com.main.docmanager.security.JwtUtil;
+import com.main.docmanager.service.BlobStore;
 import com.main.docmanager.service.DocumentService;
+import com.main.docmanager.service.IngestionService;
 
 @SpringBootTest
 @AutoConfigureMockMvc
@@ -39,6 +56,15 @@ public class DocumentControllerTest {
     @MockBean
     private DocumentService documentService;
 
+    @MockBean
+    private IngestionService ingestionService;
+
+    @MockBean
+    private BlobStore blobStore;
+
+    @TempDir
+    Path tempDir;
+
     @Autowired
     private JwtUtil jwtUtil;
 
@@ -147,6 +173,50 @@ public class DocumentControllerTest {
                 .andExpect(status().isInternalServerError());
     }
 
+    // POST /api/documents/upload/async
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void testUploadAsyncAccepted() throws Exception {
+        MockMultipartFile file = new MockMultipartFile(
+            "file", "test.pdf", "application/pdf", "Sample content".getBytes());
+        when(ingestionService.submit(any(MockMultipartFile.class), eq("John")))
+            .thenReturn(new IngestionJob("job-1", "test.pdf", "John"));
+
+        mockMvc.perform(multipart("/api/documents/upload/async")
+                .file(file)
+                .param("author", "John")
+                .header("Authorization", "Bearer " + adminToken))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/api/documents/jobs/job-1"))
+                .andExpect(jsonPath("$.id").value("job-1"))
+                .andExpect(jsonPath("$.status").value("QUEUED"));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void testUploadAsyncQueueFull() throws Exception {
+        MockMultipartFile file = new MockMultipartFile(
+            "file", "test.pdf", "application/pdf", "Sample content".getBytes());
+        when(ingestionService.submit(any(MockMultipartFile.class), eq("John")))
+            .thenThrow(new IngestionQueueFullException("Ingestion queue is full, retry later"));
+
+        mockMvc.perform(multipart("/api/documents/upload/async")
+                .file(file)
+                .param("author", "John")
+                .header("Authorization", "Bearer " + adminToken))
+                .andExpect(status().isTooManyRequests());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void testJobNotFound() throws Exception {
+        when(ingestionService.getJob("missing")).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/api/documents/jobs/missing")
+                .header("Authorization", "Bearer " + adminToken))
+                .andExpect(status().isNotFound());
+    }
+
     // DELETE /api/documents/delete
     @Test
     @WithMockUser(roles = "ADMIN")
@@ -196,6 +266,35 @@ public class DocumentControllerTest {
                 .header("Authorization", "Bearer " + adminToken))
                 .andExpect(status().isInternalServerError());
     }
+
+    // POST /api/documents/bulk-delete
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void testBulkDeleteByIds() throws Exception {
+        when(documentService.deleteByIds(List.of(1L, 2L, 3L))).thenReturn(List.of(1L, 3L));
+
+        mockMvc.perform(post("/api/documents/bulk-delete")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"ids\": [1, 2, 3]}")
+                .header("Authorization", "Bearer " + adminToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.deleted").value(2))
+                .andExpect(jsonPath("$.ids[1]").value(3));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void testBulkDeleteByFilter() throws Exception {
+        LocalDateTime before = LocalDateTime.of(2024, 1, 1, 0, 0);
+        when(documentService.deleteMatching(null, "text/plain", null, before)).thenReturn(List.of(7L));
+
+        mockMvc.perform(post("/api/documents/bulk-delete")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"fileType\": \"text/plain\", \"toDate\": \"2024-01-01T00:00:00\"}")
+                .header("Authorization", "Bearer " + adminToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.deleted").value(1));
+    }
     @Test
     @WithMockUser(username = "admin", roles = "ADMIN")
     void testUploadFailure() throws Exception {
@@ -222,4 +321,82 @@ public class DocumentControllerTest {
             .andExpect(status().isInternalServerError());
 
     }
+
+    // GET /api/documents/{id}/file
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void testDownloadWholeFile() throws Exception {
+        BlobStore.Blob blob = storedOriginal("0123456789");
+
+        mockMvc.perform(get("/api/documents/1/file")
+                .header("Authorization", "Bearer " + adminToken))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"" + blob.hash() + "\""))
+                .andExpect(header().string("Accept-Ranges", "bytes"))
+                .andExpect(header().string("Content-Type", "application/pdf"))
+                .andExpect(content().string("0123456789"));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void testDownloadSingleRange() throws Exception {
+        storedOriginal("0123456789");
+
+        mockMvc.perform(get("/api/documents/1/file")
+                .header("Range", "bytes=2-5")
+                .header("Authorization", "Bearer " + adminToken))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string("Content-Range", "bytes 2-5/10"))
+                .andExpect(header().longValue("Content-Length", 4))
+                .andExpect(content().string("2345"));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void testDownloadStaleIfRangeReturnsWholeFile() throws Exception {
+        storedOriginal("0123456789");
+
+        mockMvc.perform(get("/api/documents/1/file")
+                .header("Range", "bytes=2-5")
+                .header("If-Range", "\"stale\"")
+                .header("Authorization", "Bearer " + adminToken))
+                .andExpect(status().isOk())
+                .andExpect(content().string("0123456789"));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void testDownloadRangePastEnd() throws Exception {
+        storedOriginal("0123456789");
+
+        mockMvc.perform(get("/api/documents/1/file")
+                .header("Range", "bytes=10-")
+                .header("Authorization", "Bearer " + adminToken))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string("Content-Range", "bytes */10"));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void testDownloadWithoutStoredOriginal() throws Exception {
+        sampleDocument.setContentHash("ab".repeat(32));
+        when(documentService.findById(1L)).thenReturn(Optional.of(sampleDocument));
+        when(blobStore.find("ab".repeat(32))).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/api/documents/1/file")
+                .header("Authorization", "Bearer " + adminToken))
+                .andExpect(status().isNotFound());
+    }
+
+    private BlobStore.Blob storedOriginal(String body) throws Exception {
+        String hash = "cd".repeat(32);
+        Path file = Files.writeString(tempDir.resolve(hash), body, StandardCharsets.UTF_8);
+        BlobStore.Blob blob = new BlobStore.Blob(hash, file, Files.size(file));
+        sampleDocument.setContentHash(hash);
+        sampleDocument.setFileType("application/pdf");
+        when(documentService.findById(1L)).thenReturn(Optional.of(sampleDocument));
+        when(blobStore.find(hash)).thenReturn(Optional.of(blob));
+        doCallRealMethod().when(blobStore).transferTo(any(), anyLong(), anyLong(), any());
+        return blob;
+    }
 }
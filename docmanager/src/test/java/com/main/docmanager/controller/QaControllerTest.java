@@ -185,4 +185,15 @@ public class QaControllerTest {
                 .andExpect(status().isBadRequest());
     }
    
+
+    @Test
+    void testFilterInvalidCountMode() throws Exception {
+        setSecurityContext(new User(
+            "admin", "password", Collections.singletonList(new SimpleGrantedAuthority("ROLE_ADMIN"))));
+
+        mockMvc.perform(get("/api/documents/filter")
+                .param("count", "approximate")
+                .header("Authorization", "Bearer " + adminToken))
+                .andExpect(status().isBadRequest());
+    }
 }
@@ -4,8 +4,10 @@ package com.main.docmanager.exception;
 import com.main.docmanager.dto.ErrorResponse;
 import org.apache.tika.exception.TikaException;
 import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.web.multipart.MaxUploadSizeExceededException;
 import org.xml.sax.SAXException;
 
@@ -95,6 +97,45 @@ public class GlobalExceptionHandlerTest {
         assertEquals("Failed to process file: null", error.getMessage());
     }
 
+    @Test
+    void testHandleIngestionQueueFull() {
+        IngestionQueueFullException ex = new IngestionQueueFullException("Ingestion queue is full, retry later");
+        ResponseEntity<ErrorResponse> response = exceptionHandler.handleIngestionQueueFull(ex);
+
+        assertNotNull(response);
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, response.getStatusCode());
+        ErrorResponse error = response.getBody();
+        assertNotNull(error);
+        assertEquals("Too many requests", error.getError());
+        assertEquals("Ingestion queue is full, retry later", error.getMessage());
+    }
+
+    @Test
+    void testHandleConnectionUnavailable() {
+        CannotCreateTransactionException ex = new CannotCreateTransactionException("Could not open JPA EntityManager for transaction");
+        ResponseEntity<ErrorResponse> response = exceptionHandler.handleConnectionUnavailable(ex);
+
+        assertNotNull(response);
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertEquals("1", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        ErrorResponse error = response.getBody();
+        assertNotNull(error);
+        assertEquals("Service busy", error.getError());
+    }
+
+    @Test
+    void testHandleParseTimeout() {
+        ParseTimeoutException ex = new ParseTimeoutException("Parsing did not finish within 60 seconds");
+        ResponseEntity<ErrorResponse> response = exceptionHandler.handleParseTimeout(ex);
+
+        assertNotNull(response);
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode());
+        ErrorResponse error = response.getBody();
+        assertNotNull(error);
+        assertEquals("File parsing timed out", error.getError());
+        assertEquals("Parsing did not finish within 60 seconds", error.getMessage());
+    }
+
     @Test
     void testHandleMaxUploadSizeExceeded() {
         MaxUploadSizeExceededException ex = new MaxUploadSizeExceededException(1024);
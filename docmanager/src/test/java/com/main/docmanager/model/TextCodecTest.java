@@ -0,0 +1,56 @@
+package com.main.docmanager.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class TextCodecTest {
+
+    private static final String TEXT = "Quarterly revenue grew in every region. Überblick: naïve café résumé – ✓\n".repeat(200);
+
+    @Test
+    void testRoundTripPreservesMultiByteText() {
+        byte[] encoded = TextCodec.encode(TEXT, 1);
+
+        assertEquals(TEXT, TextCodec.decode(encoded));
+        assertEquals(TEXT.getBytes(StandardCharsets.UTF_8).length, TextCodec.rawLength(encoded));
+        assertTrue(encoded.length < TEXT.length() / 4);
+    }
+
+    @Test
+    void testDecodeRejectsForeignAndTruncatedBytes() {
+        byte[] encoded = TextCodec.encode(TEXT, 6);
+
+        assertThrows(IllegalStateException.class, () -> TextCodec.decode("plain text".getBytes(StandardCharsets.UTF_8)));
+        assertThrows(IllegalStateException.class, () -> TextCodec.decode(Arrays.copyOf(encoded, encoded.length / 2)));
+    }
+
+    @Test
+    void testContentInflatesLazilyAndSkipsIncompressibleText() {
+        DocumentContent content = new DocumentContent(TEXT);
+        assertTrue(content.compress(1));
+        assertTrue(content.isCompressed());
+
+        // A freshly loaded row only has the stored bytes
+        DocumentContent loaded = new DocumentContent();
+        ReflectionTestUtils.setField(loaded, "compressedText", content.getCompressedText());
+        assertEquals(TEXT, loaded.getText());
+
+        DocumentContent tiny = new DocumentContent("x");
+        assertFalse(tiny.compress(1));
+        assertFalse(tiny.isCompressed());
+        assertEquals("x", tiny.getText());
+
+        content.setText(null);
+        assertNull(content.getText());
+        assertFalse(content.isCompressed());
+    }
+}
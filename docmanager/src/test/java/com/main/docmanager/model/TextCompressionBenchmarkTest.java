@@ -0,0 +1,134 @@
+package com.main.docmanager.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Weighs the CPU cost of deflating document bodies against the bytes it keeps off disk and out of the
+ * buffer cache. The corpus is synthetic extracted text (Zipf-distributed vocabulary, repeated page
+ * headers); real extracted text usually compresses better. Size it with {@code -Dbenchmark.corpus.docs}
+ * and {@code -Dbenchmark.corpus.doc-chars}, and set {@code -Dbenchmark.disk.mbps} to the storage
+ * throughput of the target database host. Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+public class TextCompressionBenchmarkTest {
+
+    private static final int DOCS = Integer.getInteger("benchmark.corpus.docs", 2000);
+    private static final int DOC_CHARS = Integer.getInteger("benchmark.corpus.doc-chars", 40_000);
+    private static final int DISK_MBPS = Integer.getInteger("benchmark.disk.mbps", 250);
+    private static final int PAGE_BYTES = 8192;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void compareCompressionCostWithStorageSavings() throws IOException {
+        List<String> corpus = corpus(new Random(42));
+        long rawBytes = corpus.stream().mapToLong(text -> text.getBytes(StandardCharsets.UTF_8).length).sum();
+        Path rawFile = write(tempDir.resolve("raw.bin"), corpus.stream().map(text -> text.getBytes(StandardCharsets.UTF_8)).toList());
+        long rawReadNanos = readAll(rawFile);
+
+        System.out.printf("Corpus: %d documents, %.1f MB of UTF-8 text, disk model %d MB/s%n", DOCS, rawBytes / 1e6, DISK_MBPS);
+        System.out.printf("  %-8s %8s %7s %12s %12s %14s %14s %12s%n",
+                "level", "stored", "ratio", "compress", "inflate", "inflate/doc", "disk saved", "pages saved");
+        for (int level : new int[] {1, 6, 9}) {
+            // One warm-up pass so the JIT has compiled both paths before timing
+            corpus.subList(0, Math.min(50, DOCS)).forEach(text -> TextCodec.decode(TextCodec.encode(text, level)));
+
+            long start = System.nanoTime();
+            List<byte[]> encoded = new ArrayList<>(DOCS);
+            for (String text : corpus) {
+                encoded.add(TextCodec.encode(text, level));
+            }
+            long compressNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            long chars = 0;
+            for (byte[] stored : encoded) {
+                chars += TextCodec.decode(stored).length();
+            }
+            long inflateNanos = System.nanoTime() - start;
+            assertEquals(corpus.stream().mapToLong(String::length).sum(), chars);
+            assertEquals(corpus.get(0), TextCodec.decode(encoded.get(0)));
+
+            long storedBytes = encoded.stream().mapToLong(bytes -> bytes.length).sum();
+            readAll(write(tempDir.resolve("level" + level + ".bin"), encoded));
+            double savedDiskMillis = (rawBytes - storedBytes) / (DISK_MBPS * 1e6) * 1000;
+
+            System.out.printf("  %-8d %6.1fMB %6.2fx %9d ms %9d ms %11.1f us %11.0f ms %12d%n",
+                    level, storedBytes / 1e6, (double) rawBytes / storedBytes,
+                    TimeUnit.NANOSECONDS.toMillis(compressNanos), TimeUnit.NANOSECONDS.toMillis(inflateNanos),
+                    inflateNanos / 1e3 / DOCS, savedDiskMillis, (rawBytes - storedBytes) / PAGE_BYTES);
+        }
+        System.out.printf("  raw page-cache read of the uncompressed corpus: %d ms%n", TimeUnit.NANOSECONDS.toMillis(rawReadNanos));
+        System.out.println("  Compression pays off when inflate/doc is below the time to fetch the saved pages from disk,");
+        System.out.println("  or when the saved pages keep the hot set inside shared_buffers and the OS cache.");
+    }
+
+    private static List<String> corpus(Random random) {
+        String[] vocabulary = new String[5000];
+        for (int i = 0; i < vocabulary.length; i++) {
+            StringBuilder word = new StringBuilder();
+            int length = 2 + random.nextInt(9);
+            for (int c = 0; c < length; c++) {
+                word.append((char) ('a' + random.nextInt(26)));
+            }
+            vocabulary[i] = word.toString();
+        }
+        List<String> corpus = new ArrayList<>(DOCS);
+        for (int doc = 0; doc < DOCS; doc++) {
+            StringBuilder text = new StringBuilder(DOC_CHARS + 200);
+            int page = 1;
+            while (text.length() < DOC_CHARS) {
+                text.append("Annual report ").append(doc).append(" - Confidential - Page ").append(page++).append('\n');
+                for (int line = 0; line < 40 && text.length() < DOC_CHARS; line++) {
+                    for (int word = 0; word < 12; word++) {
+                        // Zipf-like: low ranks dominate, as in natural language
+                        int rank = (int) Math.min(vocabulary.length - 1, Math.pow(vocabulary.length, random.nextDouble()) - 1);
+                        text.append(vocabulary[rank]).append(word == 11 ? ".\n" : " ");
+                    }
+                    if (random.nextInt(10) == 0) {
+                        text.append(random.nextInt(1_000_000)).append(' ');
+                    }
+                }
+            }
+            corpus.add(text.toString());
+        }
+        return corpus;
+    }
+
+    private static Path write(Path file, List<byte[]> rows) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            for (byte[] row : rows) {
+                channel.write(ByteBuffer.wrap(row));
+            }
+            channel.force(false);
+        }
+        return file;
+    }
+
+    private static long readAll(Path file) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20);
+        long start = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (channel.read(buffer) >= 0) {
+                buffer.clear();
+            }
+        }
+        return System.nanoTime() - start;
+    }
+}
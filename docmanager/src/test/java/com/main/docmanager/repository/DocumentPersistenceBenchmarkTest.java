@@ -0,0 +1,155 @@
+package com.main.docmanager.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.main.docmanager.model.Document;
+
+/**
+ * Inserts/sec for {@code -Dbenchmark.persistence.docs} documents (10k by default) against a real
+ * Postgres, comparing what IDENTITY ids force on Hibernate (one INSERT ... RETURNING round trip per row)
+ * with JDBC batches, with pgjdbc's reWriteBatchedInserts, and with the repository's own saveAll under
+ * the application's settings. Run with {@code mvn test -Pbenchmark}; skipped without Docker.
+ */
+@Tag("benchmark")
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class DocumentPersistenceBenchmarkTest {
+
+    private static final int DOCS = Integer.getInteger("benchmark.persistence.docs", 10_000);
+    private static final int BATCH_SIZE = 50;
+    private static final String INSERT = "INSERT INTO documents (id, title, file_type, author, uploaded_at) VALUES (?, ?, ?, ?, ?)";
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    private DocumentRepository documentRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void truncate() {
+        jdbcTemplate.execute("TRUNCATE documents CASCADE");
+    }
+
+    @Test
+    void compareInsertStrategies() throws SQLException {
+        System.out.printf("Inserting %d documents per strategy into %s%n", DOCS, postgres.getDockerImageName());
+        // Warm both the server and the JIT before any timing
+        rowByRowReturning(Math.min(DOCS, 1000));
+        truncate();
+
+        report("identity-style, row by row with RETURNING", rowByRowReturning(DOCS));
+        truncate();
+        report("JDBC batch of " + BATCH_SIZE, batched(DOCS, false));
+        truncate();
+        report("JDBC batch of " + BATCH_SIZE + " + reWriteBatchedInserts", batched(DOCS, true));
+        truncate();
+        report("JPA saveAll (pooled sequence, application settings)", jpaSaveAll(DOCS));
+        assertEquals(DOCS, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM documents", Integer.class));
+    }
+
+    /** What GenerationType.IDENTITY makes Hibernate do: every persist is its own statement and round trip. */
+    private long rowByRowReturning(int docs) throws SQLException {
+        try (Connection connection = connect(false)) {
+            connection.setAutoCommit(false);
+            long start = System.nanoTime();
+            try (PreparedStatement insert = connection.prepareStatement(
+                    "INSERT INTO documents (id, title, file_type, author, uploaded_at) VALUES (nextval('documents_seq'), ?, ?, ?, ?) RETURNING id")) {
+                for (int i = 0; i < docs; i++) {
+                    insert.setString(1, "doc " + i);
+                    insert.setString(2, "text/plain");
+                    insert.setString(3, "author" + (i % 50));
+                    insert.setTimestamp(4, Timestamp.valueOf(LocalDateTime.now()));
+                    try (ResultSet keys = insert.executeQuery()) {
+                        keys.next();
+                    }
+                }
+            }
+            connection.commit();
+            return System.nanoTime() - start;
+        }
+    }
+
+    private long batched(int docs, boolean rewrite) throws SQLException {
+        try (Connection connection = connect(rewrite)) {
+            connection.setAutoCommit(false);
+            long start = System.nanoTime();
+            try (PreparedStatement insert = connection.prepareStatement(INSERT)) {
+                for (int i = 0; i < docs; i++) {
+                    insert.setLong(1, i + 1);
+                    insert.setString(2, "doc " + i);
+                    insert.setString(3, "text/plain");
+                    insert.setString(4, "author" + (i % 50));
+                    insert.setTimestamp(5, Timestamp.valueOf(LocalDateTime.now()));
+                    insert.addBatch();
+                    if ((i + 1) % BATCH_SIZE == 0) {
+                        insert.executeBatch();
+                    }
+                }
+                insert.executeBatch();
+            }
+            connection.commit();
+            return System.nanoTime() - start;
+        }
+    }
+
+    private long jpaSaveAll(int docs) {
+        List<Document> documents = new ArrayList<>(docs);
+        for (int i = 0; i < docs; i++) {
+            Document document = new Document();
+            document.setTitle("doc " + i);
+            document.setFileType("text/plain");
+            document.setAuthor("author" + (i % 50));
+            documents.add(document);
+        }
+        long start = System.nanoTime();
+        transactionTemplate.executeWithoutResult(status -> documentRepository.saveAll(documents));
+        return System.nanoTime() - start;
+    }
+
+    private static Connection connect(boolean rewrite) throws SQLException {
+        Properties properties = new Properties();
+        properties.setProperty("user", postgres.getUsername());
+        properties.setProperty("password", postgres.getPassword());
+        properties.setProperty("reWriteBatchedInserts", String.valueOf(rewrite));
+        return DriverManager.getConnection(postgres.getJdbcUrl(), properties);
+    }
+
+    private static void report(String strategy, long nanos) {
+        System.out.printf("  %-55s %8d ms %10.0f inserts/s%n", strategy, nanos / 1_000_000, DOCS / (nanos / 1e9));
+    }
+}
@@ -0,0 +1,180 @@
+package com.main.docmanager.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.SqlParameterValue;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.main.docmanager.model.Document;
+import com.main.docmanager.repository.DocumentRepositoryCustom.DeletedDocument;
+
+/**
+ * Runs the Flyway migrations against a real Postgres and checks that the metadata filter applies its
+ * date range and that the planner picks the filter indexes. Skipped when Docker is not available.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+public class DocumentRepositoryPlanTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+    private static final int ROWS = 200_000;
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    private DocumentRepository documentRepository;
+
+    @Autowired
+    private DocumentChunkRepository documentChunkRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void seed() {
+        // One row every 15 seconds (about 35 days), 500 authors, 4 file types, in insertion order like real uploads
+        jdbcTemplate.update("INSERT INTO documents (id, title, author, file_type, uploaded_at) " +
+                "SELECT g, 'doc ' || g, 'author' || (g % 500), " +
+                "(ARRAY['application/pdf', 'text/plain', 'application/msword', 'text/html'])[1 + g % 4], " +
+                "TIMESTAMP '2024-01-01' + g * INTERVAL '15 seconds' FROM generate_series(1, ?) g", ROWS);
+        jdbcTemplate.execute("ANALYZE documents");
+    }
+
+    @Test
+    void testFilterAppliesDateRange() {
+        LocalDateTime from = START.plusDays(3);
+        LocalDateTime to = START.plusDays(4);
+
+        Page<Document> page = documentRepository.findByFilters(null, "text/plain", from, to, PageRequest.of(0, 50));
+
+        // 5760 rows per day, a quarter of them text/plain, both bounds inclusive
+        assertEquals(1440, page.getTotalElements());
+        assertTrue(page.getContent().stream().allMatch(doc ->
+                !doc.getUploadedAt().isBefore(from) && !doc.getUploadedAt().isAfter(to) && "text/plain".equals(doc.getFileType())));
+    }
+
+    @Test
+    void testAuthorAndDateRangeUseAuthorIndex() throws Exception {
+        String plan = plan("author7", null, START.plusDays(3), START.plusDays(10));
+
+        assertTrue(plan.contains("idx_documents_author_uploaded_at"), plan);
+    }
+
+    @Test
+    void testFileTypeAndDateRangeUseFileTypeIndex() throws Exception {
+        String plan = plan(null, "text/plain", START.plusDays(3), START.plusDays(4));
+
+        assertTrue(plan.contains("idx_documents_file_type_uploaded_at"), plan);
+    }
+
+    @Test
+    void testDateOnlyRangeUsesBrinIndex() throws Exception {
+        // The keyset B-tree also covers uploaded_at; without it the BRIN summary has to carry the range.
+        // DDL is transactional in Postgres, so the test rollback restores the index.
+        jdbcTemplate.execute("DROP INDEX idx_documents_uploaded_at_id");
+
+        String plan = plan(null, null, START.plusDays(3), START.plusDays(4));
+
+        assertTrue(plan.contains("idx_documents_uploaded_at_brin"), plan);
+        assertFalse(plan.contains("Seq Scan"), plan);
+    }
+
+    @Test
+    void testFilterEstimateTracksExactCount() {
+        long exact = documentRepository.findByFilters(null, null, START.plusDays(3), START.plusDays(10), PageRequest.of(0, 1)).getTotalElements();
+
+        long estimate = documentRepository.estimateFilterCount(null, null, START.plusDays(3), START.plusDays(10));
+
+        // Range estimates come from the uploaded_at histogram, so they land close to the real count
+        assertTrue(estimate > exact / 2 && estimate < exact * 2, "estimate " + estimate + " vs exact " + exact);
+    }
+
+    @Test
+    void testBulkDeleteReturnsRowsAndSweepsOnlyUnreferencedContent() {
+        jdbcTemplate.update("INSERT INTO document_contents (id, text) VALUES (1, 'shared'), (2, 'last')");
+        jdbcTemplate.update("UPDATE documents SET content_id = 1, content_hash = 'aa' WHERE id IN (1, 2)");
+        jdbcTemplate.update("UPDATE documents SET content_id = 2, content_hash = 'bb' WHERE id = 3");
+
+        List<DeletedDocument> deleted = documentRepository.deleteByIdIn(List.of(1L, 3L, -1L));
+
+        assertEquals(List.of(new DeletedDocument(1L, 1L, "aa"), new DeletedDocument(3L, 2L, "bb")),
+                deleted.stream().sorted(Comparator.comparing(DeletedDocument::id)).toList());
+        // Document 2 still holds content 1 and hash aa
+        assertEquals(1, documentRepository.deleteUnreferencedContents(List.of(1L, 2L)));
+        assertEquals(List.of("bb"), documentRepository.findUnreferencedHashes(List.of("aa", "bb")));
+    }
+
+    @Test
+    void testFirstMatchingChunkMatchesAnyTerm() {
+        documentChunkRepository.insertChunks(1L, List.of("Intro", "Revenue rose", "Quarterly revenue"));
+        documentChunkRepository.insertChunks(2L, List.of("50% of QUARTERLY sales"));
+        documentChunkRepository.insertChunks(3L, List.of("Nothing here"));
+
+        // One chunk per content row, the earliest with any term, and _ is no wildcard
+        assertEquals(Map.of(1L, "Revenue rose", 2L, "50% of QUARTERLY sales"),
+                documentChunkRepository.findFirstMatching(List.of(1L, 2L, 3L), List.of("quarterly", "revenue", "o_")));
+    }
+
+    @Test
+    void testDeleteMatchingStopsAtLimit() {
+        // 400 rows per author
+        List<DeletedDocument> deleted = documentRepository.deleteMatching("author7", null, null, null, 150);
+
+        assertEquals(150, deleted.size());
+        assertEquals(250, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM documents WHERE author = 'author7'", Integer.class));
+    }
+
+    /**
+     * EXPLAINs the repository's own SQL for the whole match set (which the page's count query reads
+     * as well), bound the way Hibernate binds it: one typed positional parameter per occurrence of a
+     * named parameter.
+     */
+    private String plan(String author, String fileType, LocalDateTime fromDate, LocalDateTime toDate) throws Exception {
+        String sql = DocumentRepository.class.getMethod("findByFilters",
+                String.class, String.class, LocalDateTime.class, LocalDateTime.class, Pageable.class)
+                .getAnnotation(Query.class).value();
+        Map<String, SqlParameterValue> values = Map.of(
+                "author", new SqlParameterValue(Types.VARCHAR, author),
+                "fileType", new SqlParameterValue(Types.VARCHAR, fileType),
+                "fromDate", new SqlParameterValue(Types.TIMESTAMP, fromDate),
+                "toDate", new SqlParameterValue(Types.TIMESTAMP, toDate));
+        List<Object> args = new ArrayList<>();
+        StringBuilder positional = new StringBuilder();
+        Matcher matcher = Pattern.compile(":(\\w+)").matcher(sql);
+        while (matcher.find()) {
+            args.add(values.get(matcher.group(1)));
+            matcher.appendReplacement(positional, "?");
+        }
+        matcher.appendTail(positional);
+
+        List<String> lines = jdbcTemplate.queryForList("EXPLAIN " + positional, String.class, args.toArray());
+        return String.join("\n", lines);
+    }
+}
@@ -0,0 +1,157 @@
+package com.main.docmanager.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.main.docmanager.model.Document;
+
+/**
+ * Checks that the UNION form of the substring search returns exactly what the original OR predicate
+ * returned, over awkward data and random substrings, and that Postgres serves it from the pg_trgm
+ * indexes. Skipped when Docker is not available.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+public class SubstringSearchDifferentialTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    // The predicate SEARCH_MATCHES replaced, kept as the reference
+    private static final String REFERENCE_SQL = "SELECT d.id FROM documents d LEFT JOIN document_contents b ON b.id = d.content_id WHERE " +
+            "LOWER(b.text) LIKE LOWER('%' || ? || '%') OR LOWER(d.title) LIKE LOWER('%' || ? || '%') " +
+            "OR EXISTS (SELECT 1 FROM document_chunks c WHERE c.content_id = b.id AND LOWER(c.text) LIKE LOWER('%' || ? || '%'))";
+
+    private static final String[] WORDS = {"invoice", "Invoices", "INV-2024-0042", "inventory", "report", "Reporting",
+            "50% off", "snake_case", "under_score", "Straße", "ÉCOLE", "quarterly", "q3", "revenue", "voice", "in", "x"};
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    private DocumentRepository documentRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final Random random = new Random(23);
+    private final List<String> texts = new ArrayList<>();
+
+    @BeforeEach
+    void seed() {
+        // Plain bodies, chunked bodies (content row without text), shared content, no content at all
+        for (int content = 1; content <= 60; content++) {
+            boolean chunked = content % 5 == 0;
+            jdbcTemplate.update("INSERT INTO document_contents (id, text) VALUES (?, ?)", content, chunked ? null : sentence(12));
+            if (chunked) {
+                for (int chunk = 0; chunk < 3; chunk++) {
+                    jdbcTemplate.update("INSERT INTO document_chunks (id, content_id, chunk_index, text) VALUES (?, ?, ?, ?)",
+                            content * 10 + chunk, content, chunk, sentence(8));
+                }
+            }
+        }
+        for (int id = 1; id <= 150; id++) {
+            Integer content = id % 7 == 0 ? null : 1 + id % 60;
+            jdbcTemplate.update("INSERT INTO documents (id, title, author, file_type, uploaded_at, content_id) VALUES (?, ?, 'a', 'text/plain', ?, ?)",
+                    id, sentence(3), START.plusMinutes(id % 40), content);
+        }
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    @Test
+    void testMatchesReferenceForFixedQueries() {
+        for (String query : List.of("inv", "INV-2024", "voice", "Report", "50%", "_", "%", "e_c", "straße", "école",
+                "q3 revenue", "in", "x", "no such text", "")) {
+            assertSameMatches(query);
+        }
+    }
+
+    @Test
+    void testMatchesReferenceForRandomSubstrings() {
+        for (int i = 0; i < 200; i++) {
+            String text = texts.get(random.nextInt(texts.size()));
+            int from = random.nextInt(text.length());
+            int to = Math.min(text.length(), from + 1 + random.nextInt(12));
+            String query = text.substring(from, to);
+            assertSameMatches(random.nextBoolean() ? query.toUpperCase() : query);
+        }
+    }
+
+    @Test
+    void testSubstringsUseTrigramIndexes() {
+        jdbcTemplate.execute("SET LOCAL enable_seqscan = off");
+
+        String plan = String.join("\n", jdbcTemplate.queryForList(
+                "EXPLAIN " + DocumentRepositoryImpl.SEARCH_SQL.replace(":query", "'invoice'"), String.class));
+
+        assertTrue(plan.contains("idx_documents_title_trgm"), plan);
+        assertTrue(plan.contains("idx_document_contents_text_trgm"), plan);
+        assertTrue(plan.contains("idx_document_chunks_text_trgm"), plan);
+        assertFalse(plan.contains("Seq Scan on document_contents"), plan);
+    }
+
+    private void assertSameMatches(String query) {
+        Set<Long> expected = new TreeSet<>(jdbcTemplate.queryForList(REFERENCE_SQL, Long.class, query, query, query));
+
+        Set<Long> paged = ids(documentRepository.findByContentOrTitleContainingIgnoreCase(query, PageRequest.of(0, 1000)).getContent());
+        Set<Long> sliced = ids(documentRepository.searchSlice(query, PageRequest.of(0, 1000, Sort.by("id"))).getContent());
+        Set<Long> keyset = new TreeSet<>();
+        LocalDateTime afterUploadedAt = START.minusDays(1);
+        long afterId = 0;
+        List<Document> page;
+        do {
+            page = documentRepository.searchAfter(query, afterUploadedAt, afterId, Limit.of(16));
+            keyset.addAll(ids(page));
+            if (!page.isEmpty()) {
+                afterUploadedAt = page.get(page.size() - 1).getUploadedAt();
+                afterId = page.get(page.size() - 1).getId();
+            }
+        } while (page.size() == 16);
+
+        assertEquals(expected, paged, "paged: " + query);
+        assertEquals(expected, sliced, "sliced: " + query);
+        assertEquals(expected, keyset, "keyset: " + query);
+        assertEquals(expected.size(), documentRepository.findByContentOrTitleContainingIgnoreCase(query, PageRequest.of(0, 1))
+                .getTotalElements(), "count: " + query);
+    }
+
+    private Set<Long> ids(List<Document> documents) {
+        return documents.stream().map(Document::getId).collect(Collectors.toCollection(TreeSet::new));
+    }
+
+    private String sentence(int words) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) {
+                text.append(random.nextInt(4) == 0 ? "" : " ");
+            }
+            text.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        texts.add(text.toString());
+        return text.toString();
+    }
+}
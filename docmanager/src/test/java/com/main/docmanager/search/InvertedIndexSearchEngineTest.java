@@ -0,0 +1,68 @@
+package com.main.docmanager.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.main.docmanager.repository.DocumentRepositoryCustom.DeletedDocument;
+import com.main.docmanager.service.DocumentsDeletedEvent;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class InvertedIndexSearchEngineTest {
+
+    private InvertedIndexSearchEngine engine;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        engine = new InvertedIndexSearchEngine();
+        ReflectionTestUtils.setField(engine, "meterRegistry", meterRegistry);
+        engine.registerMetrics();
+        engine.index(1, "Annual Report", List.of("Sales by region."));
+        engine.index(2, "Report archive", List.of("Annual figures for each year."));
+    }
+
+    @Test
+    void testQueryIsCaseAndPunctuationInsensitive() {
+        assertEquals(List.of(1L, 2L), engine.search("ANNUAL, report!", 0, 10).ids());
+    }
+
+    @Test
+    void testQuotedQueryIsAPhrase() {
+        assertEquals(List.of(1L), engine.search("\"annual report\"", 0, 10).ids());
+        assertEquals(List.of(2L), engine.search("\"figures for each\"", 0, 10).ids());
+    }
+
+    @Test
+    void testTermsAreTheIndexedWords() {
+        assertEquals(List.of("annual", "report"), engine.terms("\"ANNUAL, report!\" annual"));
+        assertEquals(List.of(), engine.terms(null));
+    }
+
+    @Test
+    void testBlankQueryMatchesNothing() {
+        assertEquals(0, engine.search("  ", 0, 10).total());
+        assertEquals(0, engine.search(null, 0, 10).total());
+    }
+
+    @Test
+    void testDeleteEventRemovesDocuments() {
+        engine.onDocumentsDeleted(new DocumentsDeletedEvent(List.of(new DeletedDocument(1L, 10L, "hash"))));
+
+        assertEquals(List.of(2L), engine.search("annual", 0, 10).ids());
+        assertEquals(1.0, meterRegistry.get("docmanager.search.index.documents").gauge().value());
+    }
+
+    @Test
+    void testSearchesAreTimed() {
+        engine.search("report", 0, 10);
+
+        assertEquals(1, meterRegistry.get("docmanager.search.latency").tag("engine", "inverted-index").timer().count());
+    }
+}
@@ -0,0 +1,107 @@
+package com.main.docmanager.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class InvertedIndexTest {
+
+    private InvertedIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new InvertedIndex();
+        index.add(1, "Quarterly report", List.of("Revenue grew in every region this quarter."));
+        index.add(2, "Meeting notes", List.of("The report on revenue is due. Revenue, revenue, revenue."));
+        index.add(3, "Holiday plan", List.of("Nothing about money here at all, just a long list of places to visit."));
+    }
+
+    @Test
+    void testRanksByTermFrequency() {
+        SearchHits hits = index.search(List.of("revenue"), false, 0, 10);
+
+        assertEquals(List.of(2L, 1L), hits.ids());
+        assertEquals(2, hits.total());
+    }
+
+    @Test
+    void testRequiresEveryTerm() {
+        assertEquals(List.of(2L, 1L), index.search(List.of("report", "revenue"), false, 0, 10).ids());
+        assertEquals(List.of(), index.search(List.of("report", "holiday"), false, 0, 10).ids());
+        assertEquals(List.of(), index.search(List.of("missing"), false, 0, 10).ids());
+    }
+
+    @Test
+    void testPhraseNeedsConsecutiveWords() {
+        assertEquals(List.of(2L), index.search(List.of("report", "on", "revenue"), true, 0, 10).ids());
+        assertEquals(List.of(), index.search(List.of("revenue", "report"), true, 0, 10).ids());
+        // The title and body are separate fields, so "report revenue" across them is not a phrase
+        assertEquals(List.of(), index.search(List.of("report", "revenue"), true, 0, 10).ids());
+    }
+
+    @Test
+    void testPagesKeepRankOrderAndTotal() {
+        SearchHits first = index.search(List.of("revenue"), false, 0, 1);
+        SearchHits second = index.search(List.of("revenue"), false, 1, 1);
+        SearchHits beyond = index.search(List.of("revenue"), false, 5, 1);
+
+        assertEquals(List.of(2L), first.ids());
+        assertEquals(List.of(1L), second.ids());
+        assertEquals(List.of(), beyond.ids());
+        assertEquals(2, beyond.total());
+    }
+
+    @Test
+    void testKeysetPagesFollowRankOrder() {
+        // Same score as document 1, so the tie goes to the newer id
+        index.add(4, "Quarterly report", List.of("Revenue grew in every region this quarter."));
+        SearchHits first = index.searchAfter(List.of("revenue"), false, Double.POSITIVE_INFINITY, Long.MAX_VALUE, 2);
+        SearchHits second = index.searchAfter(List.of("revenue"), false, first.scores().get(1), first.ids().get(1), 2);
+
+        assertEquals(List.of(2L, 4L), first.ids());
+        assertEquals(List.of(1L), second.ids());
+        assertEquals(index.search(List.of("revenue"), false, 0, 10).ids(), List.of(2L, 4L, 1L));
+        assertEquals(first.scores().get(1), second.scores().get(0));
+    }
+
+    @Test
+    void testWordSplitAcrossChunksIsOneTerm() {
+        index.add(4, "Chunked", List.of("the quart", "erly figures"));
+
+        assertEquals(List.of(4L), index.search(List.of("quarterly", "figures"), true, 0, 10).ids());
+    }
+
+    @Test
+    void testRemovedDocumentsDisappearAndStayOut() {
+        index.remove(2);
+
+        assertEquals(List.of(1L), index.search(List.of("revenue"), false, 0, 10).ids());
+        assertEquals(2, index.documentCount());
+        // A late index call for a document deleted in the meantime is ignored
+        assertFalse(index.add(2, "Meeting notes", List.of("revenue")));
+        assertTrue(index.add(5, "Other", List.of("revenue")));
+    }
+
+    @Test
+    void testCompactionDropsTombstonedPostings() {
+        int terms = index.termCount();
+        index.remove(3);
+
+        index.compact();
+
+        assertTrue(index.termCount() < terms);
+        assertEquals(List.of(2L, 1L), index.search(List.of("revenue"), false, 0, 10).ids());
+        assertEquals(List.of(), index.search(List.of("holiday"), false, 0, 10).ids());
+    }
+
+    @Test
+    void testDuplicateAddIsIgnored() {
+        assertFalse(index.add(1, "Quarterly report", List.of("Revenue grew")));
+        assertEquals(3, index.documentCount());
+    }
+}
@@ -0,0 +1,146 @@
+package com.main.docmanager.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.main.docmanager.search.SearchVectorBackfill.Target;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Runs the Flyway migrations against a real Postgres and checks the trigger-maintained vectors, the
+ * ranking and snippets of the postgres-fts engine, and the backfill. Skipped when Docker is not available.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+public class PostgresFullTextSearchEngineTest {
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private PostgresFullTextSearchEngine engine;
+
+    @BeforeEach
+    void seed() {
+        engine = new PostgresFullTextSearchEngine();
+        ReflectionTestUtils.setField(engine, "jdbcTemplate", new NamedParameterJdbcTemplate(jdbcTemplate));
+        ReflectionTestUtils.setField(engine, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(engine, "highlightStart", "**");
+        ReflectionTestUtils.setField(engine, "highlightStop", "**");
+        ReflectionTestUtils.setField(engine, "maxFragments", 2);
+        ReflectionTestUtils.setField(engine, "maxWords", 25);
+        engine.registerMetrics();
+
+        jdbcTemplate.update("INSERT INTO document_contents (id, text) VALUES "
+                + "(1, 'Revenue grew in every region this quarter.'), "
+                + "(2, 'The report on revenue is due. Revenue figures follow, revenue by month.'), "
+                + "(3, NULL)");
+        jdbcTemplate.update("INSERT INTO document_chunks (id, content_id, chunk_index, text) VALUES "
+                + "(1, 3, 0, 'Opening remarks about the holiday schedule.'), (2, 3, 1, 'Closing notes on quarterly revenue.')");
+        jdbcTemplate.update("INSERT INTO documents (id, title, author, file_type, uploaded_at, content_id) VALUES "
+                + "(1, 'Quarterly report', 'a', 'text/plain', now(), 1), "
+                + "(2, 'Meeting notes', 'a', 'text/plain', now(), 2), "
+                + "(3, 'Chunked minutes', 'a', 'text/plain', now(), 3), "
+                + "(4, 'Revenue forecast', 'a', 'text/plain', now(), NULL)");
+    }
+
+    @Test
+    void testTriggersFillVectors() {
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT count(*) FROM documents WHERE title_tsv IS NULL", Integer.class));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT count(*) FROM document_contents WHERE text_tsv IS NULL", Integer.class));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT count(*) FROM document_chunks WHERE text_tsv IS NULL", Integer.class));
+    }
+
+    @Test
+    void testMatchesTitlesBodiesAndChunksWithStemming() {
+        // "revenues" stems to the same lexeme as "revenue"
+        SearchHits hits = engine.search("revenues", 0, 10);
+
+        assertEquals(4, hits.total());
+        assertEquals(List.of(1L, 2L, 3L, 4L), hits.ids().stream().sorted().toList());
+        // Title matches are weighted above body matches
+        assertEquals(4L, hits.ids().get(0));
+    }
+
+    @Test
+    void testPhraseAndPaging() {
+        assertEquals(List.of(2L), engine.search("\"report on revenue\"", 0, 10).ids());
+
+        SearchHits second = engine.search("revenue", 1, 2);
+        SearchHits beyond = engine.search("revenue", 10, 2);
+
+        assertEquals(2, second.ids().size());
+        assertEquals(4, second.total());
+        assertTrue(beyond.ids().isEmpty());
+        assertEquals(4, beyond.total());
+    }
+
+    @Test
+    void testKeysetPagesMatchOffsetPages() {
+        List<Long> ranked = engine.search("revenue", 0, 10).ids();
+
+        SearchHits first = engine.searchAfter("revenue", Double.POSITIVE_INFINITY, Long.MAX_VALUE, 3);
+        SearchHits rest = engine.searchAfter("revenue", first.scores().get(2), first.ids().get(2), 3);
+
+        assertEquals(ranked.subList(0, 3), first.ids());
+        assertEquals(ranked.subList(3, ranked.size()), rest.ids());
+    }
+
+    @Test
+    void testHeadlinesHighlightMatches() {
+        SearchHits hits = engine.search("holiday", 0, 10);
+
+        assertEquals(List.of(3L), hits.ids());
+        assertTrue(hits.snippets().get(3L).contains("**holiday**"), hits.snippets().get(3L));
+    }
+
+    @Test
+    void testBackfillFillsRowsWrittenBeforeTheVectors() throws Exception {
+        jdbcTemplate.update("UPDATE document_contents SET text_tsv = NULL");
+        assertTrue(engine.search("region", 0, 10).ids().isEmpty());
+        SearchVectorBackfill backfill = new SearchVectorBackfill();
+        ReflectionTestUtils.setField(backfill, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(backfill, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(backfill, "batchSize", 2);
+        ReflectionTestUtils.setField(backfill, "pause", Duration.ZERO);
+
+        assertEquals(3, backfill.backfill(Target.CONTENTS));
+
+        assertEquals(List.of(1L), engine.search("region", 0, 10).ids());
+    }
+
+    @Test
+    void testMatchesUseGinIndexes() {
+        jdbcTemplate.execute("SET LOCAL enable_seqscan = off");
+
+        String plan = String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + PostgresFullTextSearchEngine.SEARCH_SQL
+                .replace(":query", "'revenue'").replace(":limit", "10").replace(":offset", "0"), String.class));
+
+        assertTrue(plan.contains("idx_documents_title_tsv"), plan);
+        assertTrue(plan.contains("idx_document_contents_text_tsv"), plan);
+        assertTrue(plan.contains("idx_document_chunks_text_tsv"), plan);
+        assertFalse(plan.contains("Seq Scan on document_contents"), plan);
+    }
+}
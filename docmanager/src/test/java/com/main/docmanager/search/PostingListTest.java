@@ -0,0 +1,88 @@
+package com.main.docmanager.search;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class PostingListTest {
+
+    @Test
+    void testRoundTripsDocsFrequenciesAndPositions() {
+        PostingList postings = new PostingList();
+        postings.add(3, new int[] {0, 7, 300}, 3);
+        postings.add(200_000, new int[] {5}, 1);
+        postings.add(5_000_000_000L, new int[] {1, 2}, 2);
+
+        PostingList.Reader reader = postings.reader();
+        assertTrue(reader.next());
+        assertEquals(3, reader.doc());
+        assertArrayEquals(new int[] {0, 7, 300}, Arrays.copyOf(reader.positions(), reader.freq()));
+        // Positions left undecoded are skipped
+        assertTrue(reader.next());
+        assertEquals(200_000, reader.doc());
+        assertEquals(1, reader.freq());
+        assertTrue(reader.next());
+        assertEquals(5_000_000_000L, reader.doc());
+        assertArrayEquals(new int[] {1, 2}, Arrays.copyOf(reader.positions(), reader.freq()));
+        assertFalse(reader.next());
+        assertEquals(3, postings.docCount());
+    }
+
+    @Test
+    void testSmallGapsTakeOneByteEach() {
+        PostingList postings = new PostingList();
+        for (long doc = 1; doc <= 1000; doc++) {
+            postings.add(doc, new int[] {10}, 1);
+        }
+
+        // Doc gap, frequency and position all fit in a single byte
+        assertEquals(3000, postings.sizeInBytes());
+    }
+
+    @Test
+    void testOutOfOrderDocumentIsInsertedInPlace() {
+        PostingList postings = new PostingList();
+        postings.add(10, new int[] {1}, 1);
+        postings.add(30, new int[] {2}, 1);
+        postings.add(20, new int[] {3, 4}, 2);
+        postings.add(5, new int[] {5}, 1);
+        postings.add(40, new int[] {6}, 1);
+
+        assertEquals(List.of(5L, 10L, 20L, 30L, 40L), docs(postings));
+        PostingList.Reader reader = postings.reader();
+        while (reader.next() && reader.doc() != 20) {
+        }
+        assertArrayEquals(new int[] {3, 4}, Arrays.copyOf(reader.positions(), reader.freq()));
+    }
+
+    @Test
+    void testRemoveIfRewritesWithoutDroppedDocs() {
+        PostingList postings = new PostingList();
+        for (long doc = 1; doc <= 6; doc++) {
+            postings.add(doc, new int[] {(int) doc}, 1);
+        }
+
+        postings.removeIf(doc -> doc % 2 == 0);
+
+        assertEquals(List.of(1L, 3L, 5L), docs(postings));
+        assertEquals(3, postings.docCount());
+        postings.add(7, new int[] {7}, 1);
+        assertEquals(List.of(1L, 3L, 5L, 7L), docs(postings));
+    }
+
+    private static List<Long> docs(PostingList postings) {
+        List<Long> docs = new ArrayList<>();
+        PostingList.Reader reader = postings.reader();
+        while (reader.next()) {
+            docs.add(reader.doc());
+        }
+        return docs;
+    }
+}
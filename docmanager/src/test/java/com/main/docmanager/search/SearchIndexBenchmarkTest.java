@@ -0,0 +1,117 @@
+package com.main.docmanager.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Search latency percentiles of the in-memory index over a synthetic corpus (Zipf-distributed
+ * vocabulary), next to a lowercase substring scan of the same bodies, which is what the LIKE query
+ * asks Postgres to do before any I/O. Size it with {@code -Dbenchmark.corpus.docs} and
+ * {@code -Dbenchmark.corpus.doc-chars}. Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+public class SearchIndexBenchmarkTest {
+
+    private static final int DOCS = Integer.getInteger("benchmark.corpus.docs", 20_000);
+    private static final int DOC_CHARS = Integer.getInteger("benchmark.corpus.doc-chars", 8_000);
+    private static final int QUERIES = 200;
+
+    @Test
+    void compareIndexWithScan() {
+        Random random = new Random(42);
+        String[] vocabulary = vocabulary(random);
+        List<String> corpus = new ArrayList<>(DOCS);
+        for (int doc = 0; doc < DOCS; doc++) {
+            corpus.add(body(random, vocabulary));
+        }
+
+        InvertedIndex index = new InvertedIndex();
+        long start = System.nanoTime();
+        for (int doc = 0; doc < DOCS; doc++) {
+            index.add(doc + 1, "Document " + doc, List.of(corpus.get(doc)));
+        }
+        long buildNanos = System.nanoTime() - start;
+        long rawChars = corpus.stream().mapToLong(String::length).sum();
+        System.out.printf("Corpus: %d documents, %.1f M chars; index built in %d ms, %d terms, %.1f MB of postings%n",
+                DOCS, rawChars / 1e6, buildNanos / 1_000_000, index.termCount(), index.postingBytes() / 1e6);
+
+        report("common term", index, corpus, () -> List.of(vocabulary[random.nextInt(10)]), false);
+        report("mid-frequency term", index, corpus, () -> List.of(vocabulary[100 + random.nextInt(400)]), false);
+        report("two terms", index, corpus, () -> List.of(vocabulary[random.nextInt(50)], vocabulary[50 + random.nextInt(500)]), false);
+        report("two-word phrase", index, corpus, () -> List.of(vocabulary[random.nextInt(20)], vocabulary[random.nextInt(20)]), true);
+    }
+
+    private static void report(String label, InvertedIndex index, List<String> corpus,
+            Supplier<List<String>> queries, boolean phrase) {
+        List<List<String>> sample = new ArrayList<>(QUERIES);
+        for (int i = 0; i < QUERIES; i++) {
+            sample.add(queries.get());
+        }
+        // Warm the JIT on the same query shape before timing
+        sample.forEach(terms -> index.search(terms, phrase, 0, 10));
+
+        long[] indexed = new long[QUERIES];
+        long total = 0;
+        for (int i = 0; i < QUERIES; i++) {
+            long start = System.nanoTime();
+            total += index.search(sample.get(i), phrase, 0, 10).total();
+            indexed[i] = System.nanoTime() - start;
+        }
+
+        // A LIKE scan of every body, done in memory; only a handful of queries since each reads the corpus
+        int scans = Math.min(QUERIES, 10);
+        long[] scanned = new long[scans];
+        long scanTotal = 0;
+        for (int i = 0; i < scans; i++) {
+            String needle = String.join(" ", sample.get(i)).toLowerCase(Locale.ROOT);
+            long start = System.nanoTime();
+            int matches = 0;
+            for (String body : corpus) {
+                if (body.toLowerCase(Locale.ROOT).contains(needle)) {
+                    matches++;
+                }
+            }
+            scanned[i] = System.nanoTime() - start;
+            scanTotal += matches;
+        }
+        // Substring matches include words that merely contain the query, so the scan finds more
+        System.out.printf("  %-20s index p50 %7.3f ms p99 %7.3f ms (avg %d hits)   scan p50 %8.1f ms (avg %d hits)%n",
+                label, percentile(indexed, 0.50), percentile(indexed, 0.99), total / QUERIES, percentile(scanned, 0.50), scanTotal / scans);
+    }
+
+    private static double percentile(long[] nanos, double p) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1)] / 1e6;
+    }
+
+    private static String[] vocabulary(Random random) {
+        String[] vocabulary = new String[20_000];
+        for (int i = 0; i < vocabulary.length; i++) {
+            StringBuilder word = new StringBuilder();
+            int length = 2 + random.nextInt(9);
+            for (int c = 0; c < length; c++) {
+                word.append((char) ('a' + random.nextInt(26)));
+            }
+            vocabulary[i] = word.toString();
+        }
+        return vocabulary;
+    }
+
+    private static String body(Random random, String[] vocabulary) {
+        StringBuilder text = new StringBuilder(DOC_CHARS + 20);
+        while (text.length() < DOC_CHARS) {
+            // Zipf-like: low ranks dominate, as in natural language
+            int rank = (int) Math.min(vocabulary.length - 1, Math.pow(vocabulary.length, random.nextDouble()) - 1);
+            text.append(vocabulary[rank]).append(random.nextInt(15) == 0 ? ". " : " ");
+        }
+        return text.toString();
+    }
+}
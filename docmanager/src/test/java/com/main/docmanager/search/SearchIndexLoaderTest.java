@@ -0,0 +1,64 @@
+package com.main.docmanager.search;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.sql.SQLException;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.DefaultApplicationArguments;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import com.main.docmanager.service.SearchCache;
+
+public class SearchIndexLoaderTest {
+
+    private SearchIndexLoader loader;
+    private SearchCache searchCache;
+    private DataSource dataSource;
+
+    @BeforeEach
+    void setUp() {
+        loader = new SearchIndexLoader();
+        searchCache = mock(SearchCache.class);
+        dataSource = mock(DataSource.class);
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        ReflectionTestUtils.setField(loader, "searchEngine", mock(SearchEngine.class));
+        ReflectionTestUtils.setField(loader, "searchCache", searchCache);
+        ReflectionTestUtils.setField(loader, "jdbcTemplate", new JdbcTemplate(dataSource));
+        ReflectionTestUtils.setField(loader, "transactionManager", transactionManager);
+        ReflectionTestUtils.setField(loader, "enabled", true);
+        ReflectionTestUtils.setField(loader, "fetchSize", 200);
+    }
+
+    @Test
+    void testCacheInvalidatedEvenWhenLoadFails() throws Exception {
+        when(dataSource.getConnection()).thenThrow(new SQLException("database down"));
+
+        assertThrows(DataAccessException.class, () -> loader.run(new DefaultApplicationArguments()));
+
+        // Pages cached from the partial index while the load ran must not outlive it
+        verify(searchCache).invalidate();
+    }
+
+    @Test
+    void testDisabledLoadLeavesCacheAlone() {
+        ReflectionTestUtils.setField(loader, "enabled", false);
+
+        loader.run(new DefaultApplicationArguments());
+
+        verifyNoInteractions(searchCache);
+    }
+}
@@ -0,0 +1,89 @@
+package com.main.docmanager.search;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Bytes allocated and time per snippet for bodies of growing size, next to the lowercase-and-indexOf
+ * snippet it replaced. Allocation is read from the thread's allocation counter, so the numbers are
+ * exact for this thread rather than sampled. Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+public class SnippetsBenchmarkTest {
+
+    // Enough calls to scan about 20M chars per measurement, and never fewer than 50
+    private static final long CHARS_PER_MEASUREMENT = 20_000_000;
+    private static final com.sun.management.ThreadMXBean THREADS = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    @Test
+    void compareWithLowercaseCopy() {
+        Random random = new Random(25);
+        for (int chars : new int[] {10_000, 1_000_000, 8_000_000}) {
+            String body = body(random, chars);
+            String query = "Quarterly Revenue";
+
+            int calls = (int) Math.max(50, CHARS_PER_MEASUREMENT / chars);
+            Measurement copy = measure(calls, () -> lowercaseSnippet(body, "revenue", 50));
+            Measurement snippets = measure(calls, () -> Snippets.best(body, query, 50, 3));
+
+            System.out.printf("  %,10d chars   lowercase copy %,12d B/call %8.3f ms   snippets %,8d B/call %8.3f ms%n",
+                    chars, copy.bytes(), copy.millis(), snippets.bytes(), snippets.millis());
+            // What a call allocates must not grow with the body
+            assertTrue(snippets.bytes() < 16 * 1024, "snippets allocated " + snippets.bytes() + " bytes per call");
+        }
+    }
+
+    private static Measurement measure(int calls, Supplier<Object> call) {
+        // Warm the JIT so the counts exclude interpreter and compiler allocations
+        for (int i = 0; i < calls; i++) {
+            call.get();
+        }
+        long thread = Thread.currentThread().getId();
+        long bytes = THREADS.getThreadAllocatedBytes(thread);
+        long start = System.nanoTime();
+        Object sink = null;
+        for (int i = 0; i < calls; i++) {
+            sink = call.get();
+        }
+        long nanos = System.nanoTime() - start;
+        long allocated = THREADS.getThreadAllocatedBytes(thread) - bytes;
+        assertTrue(sink != null);
+        return new Measurement(allocated / calls, nanos / 1e6 / calls);
+    }
+
+    // The snippet QaService built before Snippets
+    private static String lowercaseSnippet(String content, String keyword, int contextLength) {
+        int index = content.toLowerCase().indexOf(keyword.toLowerCase());
+        if (index == -1) {
+            return content.length() > contextLength * 2 ? content.substring(0, contextLength * 2) + "..." : content;
+        }
+        int start = Math.max(0, index - contextLength);
+        int end = Math.min(content.length(), index + keyword.length() + contextLength);
+        return (start > 0 ? "..." : "") + content.substring(start, end) + (end < content.length() ? "..." : "");
+    }
+
+    // Filler text with the query words scattered through it, mostly apart and once together near the end
+    private static String body(Random random, int chars) {
+        List<String> words = List.of("the", "report", "covers", "sales", "Quarterly", "Region", "growth", "notes", "figures", "Outlook");
+        StringBuilder text = new StringBuilder(chars + 40);
+        while (text.length() < chars) {
+            text.append(words.get(random.nextInt(words.size()))).append(random.nextInt(12) == 0 ? ". " : " ");
+            if (random.nextInt(2_000) == 0) {
+                text.append("revenue ");
+            }
+            if (text.length() > chars - 200 && text.indexOf("quarterly REVENUE", chars - 400) < 0) {
+                text.append("quarterly REVENUE rose. ");
+            }
+        }
+        return text.toString();
+    }
+
+    private record Measurement(long bytes, double millis) {}
+}
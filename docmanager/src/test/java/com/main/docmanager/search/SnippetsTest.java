@@ -0,0 +1,99 @@
+package com.main.docmanager.search;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.main.docmanager.search.Snippets.Fragment;
+
+public class SnippetsTest {
+
+    @Test
+    void testMatchesIgnoringCaseWithOffsetsIntoBody() {
+        String content = "Quarterly REVENUE grew.";
+
+        List<Fragment> fragments = Snippets.best(content, "revenue", 50, 3);
+
+        assertEquals(1, fragments.size());
+        assertEquals(content, text(content, fragments.get(0)));
+        assertArrayEquals(new int[] {10, 17}, fragments.get(0).highlights());
+    }
+
+    @Test
+    void testOffsetsSurviveCaseMappingsThatChangeLength() {
+        // Lowercasing "İ" yields two chars, which shifted every offset after it when the body was lowercased first
+        String content = "İİİİ keyword";
+
+        Fragment fragment = Snippets.best(content, "KEYWORD", 50, 1).get(0);
+
+        assertArrayEquals(new int[] {5, 12}, fragment.highlights());
+    }
+
+    @Test
+    void testReturnsSeparateFragmentsInBodyOrder() {
+        String content = "alpha first. " + "filler ".repeat(30) + "alpha second. " + "filler ".repeat(30) + "alpha third.";
+
+        List<Fragment> fragments = Snippets.best(content, "alpha", 10, 2);
+
+        assertEquals(2, fragments.size());
+        assertTrue(fragments.get(0).start() < fragments.get(1).start());
+        fragments.forEach(fragment -> assertEquals(2, fragment.highlights().length));
+    }
+
+    @Test
+    void testPrefersWindowsWithMoreDistinctTerms() {
+        String content = "revenue alone. " + "filler ".repeat(30) + "quarterly revenue together. " + "filler ".repeat(30) + "revenue again.";
+
+        Fragment best = Snippets.best(content, "revenue quarterly", 10, 1).get(0);
+
+        assertTrue(text(content, best).contains("quarterly revenue together"), text(content, best));
+        assertEquals(4, best.highlights().length);
+    }
+
+    @Test
+    void testPrefersWholeWordMatches() {
+        String content = "prereport notes. " + "filler ".repeat(30) + "the report itself.";
+
+        Fragment best = Snippets.best(content, "report", 10, 1).get(0);
+
+        assertTrue(text(content, best).contains("the report itself"), text(content, best));
+    }
+
+    @Test
+    void testCutsAtWordBoundaries() {
+        String content = "lorem ipsum dolorsitamet keyword consecteturadipiscing elit";
+
+        Fragment fragment = Snippets.best(content, "keyword", 10, 1).get(0);
+
+        assertEquals("keyword", text(content, fragment));
+    }
+
+    @Test
+    void testWithoutMatchReturnsLead() {
+        String content = "Nothing relevant in this body at all.";
+
+        List<Fragment> fragments = Snippets.best(content, "absent", 6, 3);
+
+        assertEquals(1, fragments.size());
+        assertEquals("Nothing", text(content, fragments.get(0)));
+        assertEquals(0, fragments.get(0).highlights().length);
+    }
+
+    @Test
+    void testManyMatchesInOneWindow() {
+        String content = "ab ".repeat(1000);
+
+        List<Fragment> fragments = Snippets.best(content, "ab", 5, 3);
+
+        assertEquals(3, fragments.size());
+        fragments.forEach(fragment -> assertTrue(fragment.end() - fragment.start() <= 20, text(content, fragment)));
+    }
+
+    private static String text(String content, Fragment fragment) {
+        return content.substring(fragment.start(), fragment.end());
+    }
+}
@@ -0,0 +1,95 @@
+package com.main.docmanager.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class BlobStoreTest {
+
+    private static final byte[] BYTES = "Original upload bytes for the blob store".getBytes(StandardCharsets.UTF_8);
+
+    @TempDir
+    Path tempDir;
+
+    private BlobStore blobStore;
+    private String hash;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        blobStore = new BlobStore();
+        ReflectionTestUtils.setField(blobStore, "enabled", true);
+        ReflectionTestUtils.setField(blobStore, "blobDir", tempDir.toString());
+        hash = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(BYTES));
+    }
+
+    @Test
+    void testStagedReadIsCommittedUnderShardedHashPath() throws Exception {
+        try (BlobStore.Staged staged = blobStore.stage();
+             InputStream in = staged.tee(new ByteArrayInputStream(BYTES))) {
+            in.transferTo(OutputStream.nullOutputStream());
+            staged.commit(hash);
+        }
+
+        Path expected = tempDir.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash);
+        assertArrayEquals(BYTES, Files.readAllBytes(expected));
+        assertEquals(BYTES.length, blobStore.find(hash).orElseThrow().size());
+        assertStagingEmpty();
+    }
+
+    @Test
+    void testUncommittedStageIsDiscardedAndDuplicatesAreNoOps() throws Exception {
+        try (BlobStore.Staged staged = blobStore.stage()) {
+            staged.tee(new ByteArrayInputStream(BYTES)).transferTo(OutputStream.nullOutputStream());
+        }
+        assertStagingEmpty();
+        assertTrue(blobStore.find(hash).isEmpty());
+
+        blobStore.storeIfAbsent(hash, new ByteArrayResource(BYTES));
+        blobStore.storeIfAbsent(hash, new ByteArrayResource("ignored".getBytes(StandardCharsets.UTF_8)));
+        assertArrayEquals(BYTES, Files.readAllBytes(blobStore.find(hash).orElseThrow().path()));
+
+        blobStore.delete(hash);
+        assertFalse(blobStore.find(hash).isPresent());
+    }
+
+    @Test
+    void testTransferToSendsRequestedRange() throws Exception {
+        blobStore.storeIfAbsent(hash, new ByteArrayResource(BYTES));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        blobStore.transferTo(blobStore.find(hash).orElseThrow(), 9, 6, Channels.newChannel(out));
+
+        assertEquals("upload", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testRejectsNonHashNames() {
+        assertThrows(IllegalArgumentException.class, () -> blobStore.find("../../etc/passwd"));
+    }
+
+    private void assertStagingEmpty() throws Exception {
+        try (Stream<Path> staged = Files.list(tempDir.resolve("staging"))) {
+            assertEquals(0, staged.count());
+        }
+    }
+}
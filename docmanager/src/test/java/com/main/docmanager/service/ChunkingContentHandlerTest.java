@@ -0,0 +1,84 @@
+package com.main.docmanager.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.tika.exception.TikaException;
+import org.junit.jupiter.api.Test;
+import org.xml.sax.SAXException;
+
+public class ChunkingContentHandlerTest {
+
+    private final List<String> chunks = new ArrayList<>();
+
+    @Test
+    void testSplitsIntoFixedSizeChunks() throws SAXException {
+        ChunkingContentHandler handler = new ChunkingContentHandler(4, -1, chunks::add);
+
+        characters(handler, "abcdef");
+        characters(handler, "ghij");
+        handler.endDocument();
+
+        assertEquals(List.of("abcd", "efgh", "ij"), chunks);
+        assertEquals(10, handler.getTotalChars());
+        assertEquals(3, handler.getChunkCount());
+    }
+
+    @Test
+    void testStopsAtMaxChars() throws SAXException {
+        ChunkingContentHandler handler = new ChunkingContentHandler(4, 6, chunks::add);
+
+        assertThrows(ChunkingContentHandler.LimitReachedException.class, () -> characters(handler, "abcdefghij"));
+        handler.flush();
+
+        assertEquals(List.of("abcd", "ef"), chunks);
+        assertEquals(6, handler.getTotalChars());
+    }
+
+    @Test
+    void testNeverSplitsSurrogatePair() throws SAXException {
+        ChunkingContentHandler handler = new ChunkingContentHandler(4, -1, chunks::add);
+
+        // The emoji's high surrogate is char 4, the last one of the first chunk
+        characters(handler, "abc\uD83D\uDE00defgh");
+        handler.endDocument();
+
+        assertEquals(List.of("abc", "\uD83D\uDE00de", "fgh"), chunks);
+        assertEquals(10, handler.getTotalChars());
+        chunks.forEach(chunk -> assertEquals(chunk, new String(chunk.getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void testFlushIsIdempotent() throws SAXException {
+        ChunkingContentHandler handler = new ChunkingContentHandler(4, -1, chunks::add);
+
+        characters(handler, "ab");
+        handler.flush();
+        handler.flush();
+
+        assertEquals(List.of("ab"), chunks);
+    }
+
+    @Test
+    void testIsLimitReachedWalksCauses() {
+        TikaException wrapped = new TikaException("parse failed", new ChunkingContentHandler.LimitReachedException(10));
+
+        assertTrue(ChunkingContentHandler.isLimitReached(wrapped));
+        assertFalse(ChunkingContentHandler.isLimitReached(new TikaException("other")));
+    }
+
+    @Test
+    void testRejectsNonPositiveChunkSize() {
+        assertThrows(IllegalArgumentException.class, () -> new ChunkingContentHandler(0, -1, chunks::add));
+    }
+
+    private void characters(ChunkingContentHandler handler, String text) throws SAXException {
+        handler.characters(text.toCharArray(), 0, text.length());
+    }
+}
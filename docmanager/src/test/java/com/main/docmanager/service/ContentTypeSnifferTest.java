@@ -0,0 +1,84 @@
+package com.main.docmanager.service;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.apache.tika.config.TikaConfig;
+import org.apache.tika.mime.MediaType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class ContentTypeSnifferTest {
+
+    private static final String DOCX = "application/vnd.openxmlformats-officedocument.wordprocessingml.document";
+
+    private SimpleMeterRegistry meterRegistry;
+    private ContentTypeSniffer sniffer;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        meterRegistry = new SimpleMeterRegistry();
+        sniffer = new ContentTypeSniffer();
+        ReflectionTestUtils.setField(sniffer, "tikaConfig", TikaConfig.getDefaultConfig());
+        ReflectionTestUtils.setField(sniffer, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(sniffer, "sniffBytes", 8192);
+    }
+
+    @Test
+    void testMatchingTypesAreAccepted() throws Exception {
+        assertDoesNotThrow(() -> sniffer.verify(pdfHead(), "report.pdf", "application/pdf"));
+        assertDoesNotThrow(() -> sniffer.verify(text("plain notes"), "notes.txt", "text/plain; charset=UTF-8"));
+        // Specialisations of an allowed type pass, e.g. CSV declared as plain text
+        assertDoesNotThrow(() -> sniffer.verify(text("a,b\n1,2\n"), "table.csv", "text/plain"));
+        assertDoesNotThrow(() -> sniffer.verify(new ByteArrayInputStream(docx()), "letter.docx", DOCX));
+    }
+
+    @Test
+    void testContentMismatchIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> sniffer.verify(text("not a pdf"), "fake.pdf", "application/pdf"));
+        assertThrows(IllegalArgumentException.class, () -> sniffer.verify(pdfHead(), "report.txt", "text/plain"));
+        assertThrows(IllegalArgumentException.class, () -> sniffer.verify(new byte[] {'P', 'K', 3, 4}, "letter.pdf", DOCX));
+        assertThrows(IllegalArgumentException.class, () -> sniffer.verify(pdfHead(), "report.pdf", null));
+
+        assertEquals(4, meterRegistry.get("docmanager.upload.sniff.rejected").counter().count());
+    }
+
+    @Test
+    void testOnlyLeadingBytesAreRead() throws Exception {
+        ReflectionTestUtils.setField(sniffer, "sniffBytes", 16);
+        ByteArrayInputStream in = new ByteArrayInputStream(new byte[1024]);
+
+        assertThrows(IllegalArgumentException.class, () -> sniffer.verify(in, "zeros.pdf", "application/pdf"));
+        assertEquals(1024 - 16, in.available());
+    }
+
+    @Test
+    void testDetectUsesMagicBeforeFileName() throws Exception {
+        assertEquals(MediaType.application("pdf"), sniffer.detect(pdfHead(), "renamed.txt"));
+    }
+
+    private static byte[] pdfHead() {
+        return "%PDF-1.7\n%âãÏÓ\n1 0 obj\n".getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    private static byte[] text(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] docx() throws Exception {
+        try (XWPFDocument document = new XWPFDocument(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            document.createParagraph().createRun().setText("Sniffed letter");
+            document.write(out);
+            return out.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.main.docmanager.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.main.docmanager.repository.DocumentRepository;
+import com.main.docmanager.repository.DocumentRepositoryCustom.DeletedDocument;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+public class DocumentCleanupServiceTest {
+
+    private static final String SHARED_HASH = "ab".repeat(32);
+    private static final String LAST_HASH = "cd".repeat(32);
+
+    @Mock
+    private DocumentRepository documentRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Spy
+    private BlobStore blobStore = new BlobStore();
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private DocumentCleanupService cleanupService;
+
+    @TempDir
+    Path tempDir;
+
+    private final ThreadPoolExecutor cleanupExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(10));
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ReflectionTestUtils.setField(blobStore, "enabled", true);
+        ReflectionTestUtils.setField(blobStore, "blobDir", tempDir.toString());
+        ReflectionTestUtils.setField(cleanupService, "cleanupExecutor", cleanupExecutor);
+        blobStore.storeIfAbsent(SHARED_HASH, new ByteArrayResource("shared".getBytes(StandardCharsets.UTF_8)));
+        blobStore.storeIfAbsent(LAST_HASH, new ByteArrayResource("last".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @AfterEach
+    void shutDown() {
+        cleanupExecutor.shutdownNow();
+    }
+
+    @Test
+    void testRemovesOnlyUnreferencedArtifacts() throws Exception {
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        when(documentRepository.deleteUnreferencedContents(List.of(11L, 12L))).thenReturn(1);
+        when(documentRepository.findUnreferencedHashes(List.of(SHARED_HASH, LAST_HASH))).thenReturn(List.of(LAST_HASH));
+
+        cleanupService.onDocumentsDeleted(new DocumentsDeletedEvent(List.of(
+                new DeletedDocument(1L, 11L, SHARED_HASH),
+                new DeletedDocument(2L, 12L, LAST_HASH),
+                new DeletedDocument(3L, 11L, SHARED_HASH))));
+        cleanupExecutor.shutdown();
+        assertTrue(cleanupExecutor.awaitTermination(5, TimeUnit.SECONDS));
+
+        assertTrue(blobStore.find(SHARED_HASH).isPresent());
+        assertTrue(blobStore.find(LAST_HASH).isEmpty());
+        assertEquals(1.0, meterRegistry.get("docmanager.delete.cleanup").tag("artifact", "contents").counter().count());
+        assertEquals(1.0, meterRegistry.get("docmanager.delete.cleanup").tag("artifact", "blobs").counter().count());
+        // References are checked under the hash locks uploads store their blobs under
+        InOrder order = inOrder(documentRepository);
+        order.verify(documentRepository).lockContentHashes(List.of(SHARED_HASH, LAST_HASH));
+        order.verify(documentRepository).findUnreferencedHashes(List.of(SHARED_HASH, LAST_HASH));
+    }
+
+    @Test
+    void testSkipsQueriesWithoutKeys() {
+        cleanupService.cleanUp(List.of(new DeletedDocument(1L, null, null)));
+
+        verify(documentRepository, never()).deleteUnreferencedContents(any());
+        verify(documentRepository, never()).findUnreferencedHashes(any());
+    }
+}
@@ -1,43 +1,88 @@
 
 package com.main.docmanager.service;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.Mockito.doNothing;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
+import org.apache.tika.config.TikaConfig;
 import org.apache.tika.exception.TikaException;
 import org.apache.tika.metadata.Metadata;
 import org.apache.tika.metadata.TikaCoreProperties;
 import org.apache.tika.parser.AutoDetectParser;
 import org.apache.tika.sax.BodyContentHandler;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.util.unit.DataSize;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 import org.xml.sax.SAXException;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import com.main.docmanager.config.TikaParserConfig;
 import com.main.docmanager.constants.ConstantsUtil;
 import com.main.docmanager.model.Document;
+import com.main.docmanager.model.DocumentContent;
 import com.main.docmanager.model.User;
+import com.main.docmanager.repository.DocumentChunkRepository;
+import com.main.docmanager.repository.DocumentContentRepository;
 import com.main.docmanager.repository.DocumentRepository;
+import com.main.docmanager.repository.DocumentRepositoryCustom.DeletedDocument;
 import com.main.docmanager.repository.UserRepository;
+import com.main.docmanager.search.SearchEngine;
 
 @ExtendWith(MockitoExtension.class)
 public class DocumentServiceTest {
@@ -48,6 +93,21 @@ public class DocumentServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private DocumentContentRepository documentContentRepository;
+
+    @Mock
+    private DocumentChunkRepository documentChunkRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private SearchCache searchCache;
+
     @Mock
     private MultipartFile multipartFile;
 
@@ -60,6 +120,18 @@ public class DocumentServiceTest {
     @Mock
     private Metadata metadata;
 
+    @Spy
+    private ExtractionService extractionService = new ExtractionService();
+
+    @Spy
+    private ContentTypeSniffer contentTypeSniffer = new ContentTypeSniffer();
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private BlobStore blobStore = new BlobStore();
+
     @InjectMocks
     private DocumentService documentService;
 
@@ -69,9 +141,34 @@ public class DocumentServiceTest {
     private User sampleUser;
     private Document sampleDocument;
     private File tempFile;
+    private final ExecutorService parseExecutor = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void shutDownParseExecutor() {
+        parseExecutor.shutdownNow();
+    }
 
     @BeforeEach
-    void setUp() throws IOException {
+    void setUp() throws Exception {
+        ReflectionTestUtils.setField(extractionService, "documentParser",
+                new TikaParserConfig().documentParser(TikaConfig.getDefaultConfig(), new SimpleMeterRegistry()));
+        ReflectionTestUtils.setField(extractionService, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(extractionService, "tikaParseExecutor", parseExecutor);
+        ReflectionTestUtils.setField(extractionService, "parseTimeout", Duration.ofMinutes(1));
+        ReflectionTestUtils.setField(extractionService, "parallelPdfThreshold", DataSize.ofBytes(-1));
+        ReflectionTestUtils.setField(extractionService, "storage", "inline");
+        ReflectionTestUtils.setField(extractionService, "chunkSize", 65536);
+        ReflectionTestUtils.setField(extractionService, "maxChars", -1L);
+        ReflectionTestUtils.setField(extractionService, "spillDir", tempDir.toString());
+        ReflectionTestUtils.setField(documentService, "dedupEnabled", true);
+        ReflectionTestUtils.setField(documentService, "deleteBatchSize", 1000);
+        ReflectionTestUtils.setField(documentService, "maxDeleteIds", 10000);
+        ReflectionTestUtils.setField(contentTypeSniffer, "tikaConfig", TikaConfig.getDefaultConfig());
+        ReflectionTestUtils.setField(contentTypeSniffer, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(contentTypeSniffer, "sniffBytes", 8192);
+        ReflectionTestUtils.setField(blobStore, "enabled", true);
+        ReflectionTestUtils.setField(blobStore, "blobDir", tempDir.resolve("blobs").toString());
+
         sampleUser = new User("user", "password", "ROLE_USER");
         sampleUser.setId(1L);
 
@@ -89,14 +186,26 @@ public class DocumentServiceTest {
 
     // Tests for validateFile
     @Test
-    void testValidateFileSuccess() {
+    void testValidateFileSuccess() throws Exception {
         when(multipartFile.isEmpty()).thenReturn(false);
         when(multipartFile.getSize()).thenReturn(1024L);
         when(multipartFile.getContentType()).thenReturn("application/pdf");
+        when(multipartFile.getOriginalFilename()).thenReturn("test.pdf");
+        when(multipartFile.getInputStream()).thenReturn(new ByteArrayInputStream("%PDF-1.4\n%âãÏÓ\n".getBytes(StandardCharsets.ISO_8859_1)));
 
         assertDoesNotThrow(() -> documentService.validateFile(multipartFile));
     }
 
+    @Test
+    void testValidateFileRejectsContentNotMatchingDeclaredType() {
+        MockMultipartFile file = new MockMultipartFile("file", "invoice.pdf", "application/pdf",
+                "just some text pretending to be a PDF".getBytes(StandardCharsets.UTF_8));
+
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> documentService.validateFile(file));
+        assertTrue(exception.getMessage().startsWith("File content is text/plain"));
+        assertEquals(1, meterRegistry.get("docmanager.upload.sniff.rejected").counter().count());
+    }
+
     @Test
     void testValidateFileNull() {
         assertThrows(IllegalArgumentException.class, () -> documentService.validateFile(null));
@@ -127,34 +236,349 @@ public class DocumentServiceTest {
         assertEquals("Unsupported file type: image/jpeg", exception.getMessage());
     }
 
-    // Tests for createTempFile
+    // Tests for upload
+    @Test
+    void testUploadParsesStreamAndHashesContent() throws Exception {
+        byte[] bytes = "Quarterly report for the streaming parser".getBytes(StandardCharsets.UTF_8);
+        MockMultipartFile file = new MockMultipartFile("file", "report.txt", "text/plain", bytes);
+        when(userRepository.findByUsername("user")).thenReturn(Optional.of(sampleUser));
+        runTransactionsInline();
+        when(documentRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Document result = documentService.upload(file, "user");
+
+        assertTrue(result.getContent().getText().contains("Quarterly report for the streaming parser"));
+        verify(documentContentRepository).saveAll(List.of(result.getContent()));
+        assertEquals("report.txt", result.getTitle());
+        assertEquals(HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes)), result.getContentHash());
+        assertEquals(sampleUser, result.getUploadedBy());
+        // The original bytes are kept under their hash from the same read that fed the parser
+        assertArrayEquals(bytes, Files.readAllBytes(blobStore.find(result.getContentHash()).orElseThrow().path()));
+        // Stored under the lock cleanup deletes under, in the transaction that inserts the row
+        InOrder order = inOrder(documentRepository, documentContentRepository);
+        order.verify(documentRepository).lockContentHashes(List.of(result.getContentHash()));
+        order.verify(documentContentRepository).saveAll(anyList());
+    }
+
+    @Test
+    void testUploadDuplicateSkipsParsing() throws Exception {
+        byte[] bytes = "Already stored body".getBytes(StandardCharsets.UTF_8);
+        String hash = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        sampleDocument.setContentHash(hash);
+        MockMultipartFile file = new MockMultipartFile("file", "copy.txt", "text/plain", bytes);
+        when(userRepository.findByUsername("user")).thenReturn(Optional.of(sampleUser));
+        when(documentRepository.findFirstByContentHash(hash)).thenReturn(Optional.of(sampleDocument));
+        runTransactionsInline();
+        when(documentRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Document result = documentService.upload(file, "user");
+
+        assertTrue(result.isDeduplicated());
+        // The duplicate shares the original's content row instead of copying the text
+        assertSame(sampleDocument.getContent(), result.getContent());
+        assertEquals(hash, result.getContentHash());
+        // Named after this upload, never after the file another user uploaded first
+        assertEquals("copy.txt", result.getTitle());
+        verify(documentContentRepository).saveAll(List.of());
+        verify(extractionService, never()).parse(any(), any(), any());
+        assertEquals(1.0, meterRegistry.get("docmanager.ingest.dedup").tag("result", "hit").counter().count());
+    }
+
+    @Test
+    void testUploadCompressesLargeBodyBeforeSaving() throws Exception {
+        ReflectionTestUtils.setField(documentService, "compressionEnabled", true);
+        ReflectionTestUtils.setField(documentService, "compressionMinChars", 4096);
+        ReflectionTestUtils.setField(documentService, "compressionLevel", 1);
+        String body = "Revenue grew in every region this quarter.\n".repeat(500);
+        MockMultipartFile file = new MockMultipartFile("file", "large.txt", "text/plain", body.getBytes(StandardCharsets.UTF_8));
+        when(userRepository.findByUsername("user")).thenReturn(Optional.of(sampleUser));
+        runTransactionsInline();
+        when(documentRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Document result = documentService.upload(file, "user");
+
+        assertTrue(result.getContent().isCompressed());
+        assertTrue(result.getContent().getText().contains("Revenue grew in every region"));
+        double stored = meterRegistry.get("docmanager.content.compression.bytes").tag("form", "stored").counter().count();
+        double raw = meterRegistry.get("docmanager.content.compression.bytes").tag("form", "raw").counter().count();
+        assertTrue(stored > 0 && stored < raw / 4);
+    }
+
+    @Test
+    void testCompressionRequiresInvertedIndexEngine() {
+        ReflectionTestUtils.setField(documentService, "compressionEnabled", true);
+        ReflectionTestUtils.setField(documentService, "searchEngineName", "inverted-index");
+        assertDoesNotThrow(() -> documentService.checkCompression());
+
+        for (String engine : List.of("like", "postgres-fts")) {
+            ReflectionTestUtils.setField(documentService, "searchEngineName", engine);
+            assertThrows(IllegalStateException.class, () -> documentService.checkCompression());
+        }
+
+        ReflectionTestUtils.setField(documentService, "compressionEnabled", false);
+        assertDoesNotThrow(() -> documentService.checkCompression());
+    }
+
+    @Test
+    void testUploadNewContentCountsDedupMiss() throws Exception {
+        MockMultipartFile file = new MockMultipartFile("file", "new.txt", "text/plain", "Fresh body".getBytes(StandardCharsets.UTF_8));
+        when(userRepository.findByUsername("user")).thenReturn(Optional.of(sampleUser));
+        runTransactionsInline();
+        when(documentRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Document result = documentService.upload(file, "user");
+
+        assertFalse(result.isDeduplicated());
+        assertEquals(1.0, meterRegistry.get("docmanager.ingest.dedup").tag("result", "miss").counter().count());
+    }
+
+    @Test
+    void testUploadChunkedStreamsChunksToRepository() throws Exception {
+        ReflectionTestUtils.setField(extractionService, "storage", "chunked");
+        ReflectionTestUtils.setField(extractionService, "chunkSize", 4);
+        MockMultipartFile file = new MockMultipartFile("file", "long.txt", "text/plain", "abcdefghij".getBytes(StandardCharsets.UTF_8));
+        when(userRepository.findByUsername("user")).thenReturn(Optional.of(sampleUser));
+        runTransactionsInline();
+        when(documentContentRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<DocumentContent> contents = invocation.getArgument(0);
+            contents.forEach(content -> content.setId(7L));
+            return contents;
+        });
+        when(documentRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        List<String> stored = new ArrayList<>();
+        when(documentChunkRepository.insertChunks(eq(7L), any())).thenAnswer(invocation -> {
+            Iterable<String> chunks = invocation.getArgument(1);
+            chunks.forEach(stored::add);
+            return stored.size();
+        });
+
+        Document result = documentService.upload(file, "user");
+
+        assertNull(result.getContent().getText());
+        assertEquals("abcdefghij", String.join("", stored).strip());
+        assertEquals("abcd", stored.get(0));
+        try (var spills = Files.list(tempDir)) {
+            assertEquals(0, spills.filter(path -> path.getFileName().toString().startsWith("extract-")).count());
+        }
+    }
+
+    @Test
+    void testUploadTruncatesAtMaxChars() throws Exception {
+        ReflectionTestUtils.setField(extractionService, "maxChars", 5L);
+        MockMultipartFile file = new MockMultipartFile("file", "long.txt", "text/plain", "abcdefghij".getBytes(StandardCharsets.UTF_8));
+        when(userRepository.findByUsername("user")).thenReturn(Optional.of(sampleUser));
+        runTransactionsInline();
+        when(documentRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Document result = documentService.upload(file, "user");
+
+        assertEquals("abcde", result.getContent().getText());
+    }
+
+    @Test
+    void testUploadIndexesCommittedDocument() throws Exception {
+        SearchEngine searchEngine = mock(SearchEngine.class);
+        ReflectionTestUtils.setField(documentService, "searchEngine", searchEngine);
+        MockMultipartFile file = new MockMultipartFile("file", "report.txt", "text/plain", "Quarterly revenue".getBytes(StandardCharsets.UTF_8));
+        when(userRepository.findByUsername("user")).thenReturn(Optional.of(sampleUser));
+        runTransactionsInline();
+        when(documentRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Document> documents = invocation.getArgument(0);
+            documents.forEach(document -> document.setId(9L));
+            return documents;
+        });
+        List<String> indexed = new ArrayList<>();
+        doAnswer(invocation -> {
+            invocation.<Iterable<String>>getArgument(2).forEach(indexed::add);
+            return null;
+        }).when(searchEngine).index(eq(9L), eq("report.txt"), any());
+
+        documentService.upload(file, "user");
+
+        assertTrue(String.join("", indexed).contains("Quarterly revenue"));
+        // Cached search pages are dropped only once the new document is searchable
+        InOrder order = inOrder(searchEngine, searchCache);
+        order.verify(searchEngine).index(eq(9L), eq("report.txt"), any());
+        order.verify(searchCache).invalidate();
+    }
+
+    @Test
+    void testUploadChunkedIndexesChunksBeforeSpillIsDeleted() throws Exception {
+        SearchEngine searchEngine = mock(SearchEngine.class);
+        ReflectionTestUtils.setField(documentService, "searchEngine", searchEngine);
+        ReflectionTestUtils.setField(extractionService, "storage", "chunked");
+        ReflectionTestUtils.setField(extractionService, "chunkSize", 4);
+        MockMultipartFile file = new MockMultipartFile("file", "long.txt", "text/plain", "abcdefghij".getBytes(StandardCharsets.UTF_8));
+        when(userRepository.findByUsername("user")).thenReturn(Optional.of(sampleUser));
+        runTransactionsInline();
+        when(documentRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Document> documents = invocation.getArgument(0);
+            documents.forEach(document -> document.setId(9L));
+            return documents;
+        });
+        List<String> indexed = new ArrayList<>();
+        doAnswer(invocation -> {
+            invocation.<Iterable<String>>getArgument(2).forEach(indexed::add);
+            return null;
+        }).when(searchEngine).index(eq(9L), eq("long.txt"), any());
+
+        documentService.upload(file, "user");
+
+        assertEquals("abcdefghij", String.join("", indexed).strip());
+    }
+
+    @Test
+    void testUploadDuplicateIndexesStoredBody() throws Exception {
+        SearchEngine searchEngine = mock(SearchEngine.class);
+        ReflectionTestUtils.setField(documentService, "searchEngine", searchEngine);
+        byte[] bytes = "Already stored body".getBytes(StandardCharsets.UTF_8);
+        String hash = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        sampleDocument.setContentHash(hash);
+        sampleDocument.getContent().setId(4L);
+        when(userRepository.findByUsername("user")).thenReturn(Optional.of(sampleUser));
+        when(documentRepository.findFirstByContentHash(hash)).thenReturn(Optional.of(sampleDocument));
+        when(documentContentRepository.findById(4L)).thenReturn(Optional.of(sampleDocument.getContent()));
+        runTransactionsInline();
+        when(documentRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Document> documents = invocation.getArgument(0);
+            documents.forEach(document -> document.setId(9L));
+            return documents;
+        });
+
+        documentService.upload(new MockMultipartFile("file", "copy.txt", "text/plain", bytes), "user");
+
+        verify(searchEngine).index(9L, "copy.txt", List.of("Sample content"));
+    }
+
+    @Test
+    void testUploadChoosesExtractionPathBySniffedType() throws Exception {
+        ReflectionTestUtils.setField(extractionService, "parallelPdfThreshold", DataSize.ofBytes(0));
+        MockMultipartFile file = new MockMultipartFile("file", "notes.pdf", "application/pdf", "Plain text named pdf".getBytes(StandardCharsets.UTF_8));
+        when(userRepository.findByUsername("user")).thenReturn(Optional.of(sampleUser));
+        runTransactionsInline();
+        when(documentRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Document result = documentService.ingest(file, "notes.pdf", "user");
+
+        verify(extractionService, never()).extractPdfPages(any(), any());
+        assertTrue(result.getContent().getText().contains("Plain text named pdf"));
+        assertTrue(result.getFileType().startsWith("text/plain"));
+    }
+
+    @Test
+    void testUploadUnknownUser() {
+        MockMultipartFile file = new MockMultipartFile("file", "report.txt", "text/plain", "text".getBytes(StandardCharsets.UTF_8));
+        when(userRepository.findByUsername("ghost")).thenReturn(Optional.empty());
+
+        assertThrows(IllegalArgumentException.class, () -> documentService.upload(file, "ghost"));
+    }
+
+    // Tests for uploadBatch
+    @Test
+    void testUploadBatchParsesAllFilesAndSavesOnce() throws Exception {
+        ReflectionTestUtils.setField(documentService, "batchParseExecutor", Executors.newFixedThreadPool(2));
+        ReflectionTestUtils.setField(documentService, "maxBatchFiles", 10);
+        List<MultipartFile> files = List.of(
+                new MockMultipartFile("files", "first.txt", "text/plain", "First body".getBytes(StandardCharsets.UTF_8)),
+                new MockMultipartFile("files", "second.txt", "text/plain", "Second body".getBytes(StandardCharsets.UTF_8)));
+        when(userRepository.findByUsername("user")).thenReturn(Optional.of(sampleUser));
+        runTransactionsInline();
+        when(documentRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        List<Document> result = documentService.uploadBatch(files, "user");
+
+        assertEquals(2, result.size());
+        assertEquals("first.txt", result.get(0).getTitle());
+        assertTrue(result.get(1).getContent().getText().contains("Second body"));
+        verify(documentRepository).saveAll(anyList());
+        verify(documentRepository, never()).save(any(Document.class));
+    }
+
     @Test
-    void testCreateTempFileSuccess() throws IOException {
-        when(multipartFile.getOriginalFilename()).thenReturn("Test.pdf");
-//        when(multipartFile.transferTo(any(File.class))).thenAnswer(invocation -> {
-//            File file = invocation.getArgument(0);
-//            file.createNewFile();
-//            return null;
-//        });
+    void testUploadBatchFailureReleasesSpillFilesOfEveryParse() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        ReflectionTestUtils.setField(documentService, "batchParseExecutor", executor);
+        ReflectionTestUtils.setField(documentService, "maxBatchFiles", 10);
+        ReflectionTestUtils.setField(extractionService, "storage", "chunked");
+        byte[] failing = "Fails its dedup lookup".getBytes(StandardCharsets.UTF_8);
+        byte[] second = "Second body".getBytes(StandardCharsets.UTF_8);
+        byte[] third = "Third body".getBytes(StandardCharsets.UTF_8);
+        List<MultipartFile> files = List.of(
+                new MockMultipartFile("files", "failing.txt", "text/plain", failing),
+                new MockMultipartFile("files", "second.txt", "text/plain", second),
+                new MockMultipartFile("files", "third.txt", "text/plain", third));
+        when(userRepository.findByUsername("user")).thenReturn(Optional.of(sampleUser));
+        CountDownLatch laterParsed = new CountDownLatch(2);
+        when(documentRepository.findFirstByContentHash(any())).thenAnswer(invocation -> {
+            if (sha256(failing).equals(invocation.getArgument(0))) {
+                // Fail only once the later files have been parsed and hold their spill and staging files
+                laterParsed.await(10, TimeUnit.SECONDS);
+                throw new IllegalStateException("database down");
+            }
+            laterParsed.countDown();
+            return Optional.empty();
+        });
 
-        File result = documentService.createTempFile(multipartFile);
-        assertTrue(result.exists());
-        assertTrue(result.delete());
+        try {
+            assertThrows(IllegalStateException.class, () -> documentService.uploadBatch(files, "user"));
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Parses that finished after the failing one are drained, not left holding their spill files
+        try (var spills = Files.list(tempDir)) {
+            assertEquals(0, spills.filter(path -> path.getFileName().toString().startsWith("extract-")).count());
+        }
+        try (var staged = Files.list(tempDir.resolve("blobs").resolve("staging"))) {
+            assertEquals(0, staged.count());
+        }
+        assertTrue(blobStore.find(sha256(second)).isEmpty());
+        try (var staged = Files.list(tempDir.resolve("blobs").resolve("staging"))) {
+            assertEquals(0, staged.count());
+        }
+        assertTrue(blobStore.find(sha256(second)).isEmpty());
+        verify(documentRepository, never()).saveAll(anyList());
     }
 
+    @Test
+    void testUploadBatchRejectsInvalidFileBeforeParsing() {
+        ReflectionTestUtils.setField(documentService, "maxBatchFiles", 10);
+        List<MultipartFile> files = List.of(
+                new MockMultipartFile("files", "ok.txt", "text/plain", "Body".getBytes(StandardCharsets.UTF_8)),
+                new MockMultipartFile("files", "image.jpg", "image/jpeg", new byte[] {1, 2, 3}));
+
+        assertThrows(IllegalArgumentException.class, () -> documentService.uploadBatch(files, "user"));
+        verify(documentRepository, never()).saveAll(anyList());
+    }
 
+    @Test
+    void testUploadBatchTooManyFiles() {
+        ReflectionTestUtils.setField(documentService, "maxBatchFiles", 1);
+        List<MultipartFile> files = List.of(
+                new MockMultipartFile("files", "a.txt", "text/plain", "A".getBytes(StandardCharsets.UTF_8)),
+                new MockMultipartFile("files", "b.txt", "text/plain", "B".getBytes(StandardCharsets.UTF_8)));
+
+        assertThrows(IllegalArgumentException.class, () -> documentService.uploadBatch(files, "user"));
+    }
 
     // Tests for delete
     @Test
     void testDeleteSuccess() throws FileNotFoundException {
+        sampleDocument.getContent().setId(11L);
+        runTransactionsInline();
         when(documentRepository.findById(1L)).thenReturn(Optional.of(sampleDocument));
-        doNothing().when(documentRepository).deleteById(1L);
+        DeletedDocument deleted = new DeletedDocument(1L, 11L, "ab".repeat(32));
+        when(documentRepository.deleteByIdIn(List.of(1L))).thenReturn(List.of(deleted));
 
         Document result = documentService.delete(1L);
 
         assertNotNull(result);
         assertEquals(sampleDocument, result);
-        verify(documentRepository).deleteById(1L);
+        verify(documentRepository, never()).deleteById(any());
+        // Contents, chunks and blobs are left to the cleanup listener
+        verify(eventPublisher).publishEvent(new DocumentsDeletedEvent(List.of(deleted)));
+        verify(documentContentRepository, never()).deleteById(any());
+        verify(searchCache).invalidate();
     }
 
     @Test
@@ -163,4 +587,63 @@ public class DocumentServiceTest {
 
         assertThrows(FileNotFoundException.class, () -> documentService.delete(1L));
     }
-}
\ No newline at end of file
+
+    @Test
+    void testDeleteByIdsRunsOneStatementPerBatch() {
+        ReflectionTestUtils.setField(documentService, "deleteBatchSize", 2);
+        runTransactionsInline();
+        when(documentRepository.deleteByIdIn(List.of(1L, 2L))).thenReturn(List.of(new DeletedDocument(1L, 11L, null)));
+        when(documentRepository.deleteByIdIn(List.of(3L))).thenReturn(List.of(new DeletedDocument(3L, 13L, null)));
+
+        List<Long> deleted = documentService.deleteByIds(List.of(1L, 2L, 3L));
+
+        // Id 2 did not exist and is simply not reported
+        assertEquals(List.of(1L, 3L), deleted);
+        verify(eventPublisher).publishEvent(new DocumentsDeletedEvent(List.of(new DeletedDocument(1L, 11L, null))));
+        verify(eventPublisher).publishEvent(new DocumentsDeletedEvent(List.of(new DeletedDocument(3L, 13L, null))));
+        assertEquals(2.0, meterRegistry.get("docmanager.documents.deleted").counter().count());
+    }
+
+    @Test
+    void testDeleteByIdsRejectsEmptyAndOversizedLists() {
+        ReflectionTestUtils.setField(documentService, "maxDeleteIds", 2);
+
+        assertThrows(IllegalArgumentException.class, () -> documentService.deleteByIds(List.of()));
+        assertThrows(IllegalArgumentException.class, () -> documentService.deleteByIds(List.of(1L, 2L, 3L)));
+        verify(documentRepository, never()).deleteByIdIn(any());
+    }
+
+    @Test
+    void testDeleteMatchingLoopsUntilShortBatch() {
+        ReflectionTestUtils.setField(documentService, "deleteBatchSize", 2);
+        runTransactionsInline();
+        LocalDateTime before = LocalDateTime.of(2024, 1, 1, 0, 0);
+        when(documentRepository.deleteMatching(null, null, null, before, 2)).thenReturn(
+                List.of(new DeletedDocument(1L, 11L, null), new DeletedDocument(2L, 12L, null)),
+                List.of(new DeletedDocument(3L, 13L, null)));
+
+        List<Long> deleted = documentService.deleteMatching(null, null, null, before);
+
+        assertEquals(List.of(1L, 2L, 3L), deleted);
+        verify(transactionTemplate, times(2)).execute(any());
+    }
+
+    @Test
+    void testDeleteMatchingRequiresCriterion() {
+        assertThrows(IllegalArgumentException.class, () -> documentService.deleteMatching(null, null, null, null));
+        verify(documentRepository, never()).deleteMatching(any(), any(), any(), any(), anyInt());
+    }
+
+    private void runTransactionsInline() {
+        lenient().when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        lenient().doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+
+    private static String sha256(byte[] bytes) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+    }
+}
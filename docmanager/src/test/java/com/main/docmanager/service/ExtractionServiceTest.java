@@ -0,0 +1,320 @@
+package com.main.docmanager.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.tika.config.TikaConfig;
+import org.apache.tika.io.TikaInputStream;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.metadata.TikaCoreProperties;
+import org.apache.tika.mime.MediaType;
+import org.apache.tika.parser.AbstractParser;
+import org.apache.tika.parser.ParseContext;
+import org.apache.tika.sax.BodyContentHandler;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+
+import com.main.docmanager.config.TikaParserConfig;
+import com.main.docmanager.config.TikaWarmup;
+import com.main.docmanager.exception.IngestionQueueFullException;
+import com.main.docmanager.exception.ParseTimeoutException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class ExtractionServiceTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private ExtractionService extractionService;
+    private ThreadPoolExecutor parseExecutor;
+    private ForkJoinPool pdfPool;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        meterRegistry = new SimpleMeterRegistry();
+        parseExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1));
+        pdfPool = new ForkJoinPool(2);
+        PdfPageRangeExtractor pdfExtractor = new PdfPageRangeExtractor();
+        ReflectionTestUtils.setField(pdfExtractor, "pdfExtractionPool", pdfPool);
+        ReflectionTestUtils.setField(pdfExtractor, "minPagesPerTask", 4);
+        TikaParserConfig parserConfig = new TikaParserConfig();
+        ReflectionTestUtils.setField(parserConfig, "tikaConfigResource", new ClassPathResource("tika-config.xml"));
+        TikaConfig tikaConfig = parserConfig.tikaConfig(meterRegistry);
+
+        extractionService = new ExtractionService();
+        ReflectionTestUtils.setField(extractionService, "documentParser", parserConfig.documentParser(tikaConfig, meterRegistry));
+        ReflectionTestUtils.setField(extractionService, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(extractionService, "tikaParseExecutor", parseExecutor);
+        ReflectionTestUtils.setField(extractionService, "parseTimeout", Duration.ofMinutes(1));
+        ReflectionTestUtils.setField(extractionService, "pdfPageRangeExtractor", pdfExtractor);
+        ReflectionTestUtils.setField(extractionService, "parallelPdfThreshold", DataSize.ofMegabytes(5));
+        ReflectionTestUtils.setField(extractionService, "spillDir", tempDir.toString());
+        ReflectionTestUtils.setField(extractionService, "storage", "inline");
+        ReflectionTestUtils.setField(extractionService, "chunkSize", 65536);
+        ReflectionTestUtils.setField(extractionService, "maxChars", -1L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        parseExecutor.shutdownNow();
+        pdfPool.shutdownNow();
+    }
+
+    @Test
+    void testSetupCostIsRecordedOnce() {
+        assertEquals(1, meterRegistry.get("docmanager.tika.setup").tag("stage", "config").timer().count());
+        assertEquals(1, meterRegistry.get("docmanager.tika.setup").tag("stage", "parser").timer().count());
+    }
+
+    @Test
+    void testParsePlainText() throws Exception {
+        BodyContentHandler handler = new BodyContentHandler(-1);
+        Metadata metadata = metadata("notes.txt");
+
+        try (TikaInputStream in = TikaInputStream.get(new ByteArrayInputStream("Plain text body".getBytes(StandardCharsets.UTF_8)))) {
+            extractionService.parse(in, handler, metadata);
+        }
+
+        assertTrue(handler.toString().contains("Plain text body"));
+        assertTrue(metadata.get(Metadata.CONTENT_TYPE).startsWith("text/plain"));
+        assertEquals(1, meterRegistry.get("docmanager.tika.parse").tag("outcome", "success").timer().count());
+    }
+
+    @Test
+    void testTypesOutsideAllowListAreNotParsed() throws Exception {
+        BodyContentHandler handler = new BodyContentHandler(-1);
+        ByteArrayOutputStream zip = new ByteArrayOutputStream();
+        try (ZipOutputStream out = new ZipOutputStream(zip)) {
+            out.putNextEntry(new ZipEntry("hidden.txt"));
+            out.write("Hidden paragraph".getBytes(StandardCharsets.UTF_8));
+            out.closeEntry();
+        }
+
+        try (TikaInputStream in = TikaInputStream.get(new ByteArrayInputStream(zip.toByteArray()))) {
+            extractionService.parse(in, handler, metadata("archive.zip"));
+        }
+
+        assertNotNull(handler.toString());
+        assertTrue(handler.toString().isBlank());
+    }
+
+    @Test
+    void testWarmupParsesEveryAllowedType() throws Exception {
+        TikaWarmup warmup = new TikaWarmup();
+        ReflectionTestUtils.setField(warmup, "extractionService", extractionService);
+        ReflectionTestUtils.setField(warmup, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(warmup, "enabled", true);
+        ReflectionTestUtils.setField(warmup, "iterations", 2);
+
+        warmup.run(null);
+
+        assertEquals(6, meterRegistry.get("docmanager.tika.parse").tag("outcome", "success").timer().count());
+        assertEquals(1, meterRegistry.get("docmanager.tika.setup").tag("stage", "per-upload-baseline").timer().count());
+    }
+
+    @Test
+    void testParallelPdfOnlyForLargePdfs() {
+        assertTrue(extractionService.isParallelPdf(sniffed("scan.PDF", "application/pdf"), DataSize.ofMegabytes(6).toBytes()));
+        assertFalse(extractionService.isParallelPdf(sniffed("scan.pdf", "application/pdf"), DataSize.ofMegabytes(1).toBytes()));
+        assertFalse(extractionService.isParallelPdf(sniffed("notes.txt", "text/plain"), DataSize.ofMegabytes(6).toBytes()));
+        // The sniffed type decides, not the name
+        assertFalse(extractionService.isParallelPdf(sniffed("notes.pdf", "text/plain; charset=UTF-8"), DataSize.ofMegabytes(6).toBytes()));
+        assertTrue(extractionService.isParallelPdf(sniffed("scan", "application/pdf"), DataSize.ofMegabytes(6).toBytes()));
+
+        ReflectionTestUtils.setField(extractionService, "parallelPdfThreshold", DataSize.ofBytes(-1));
+        assertFalse(extractionService.isParallelPdf(sniffed("scan.pdf", "application/pdf"), DataSize.ofMegabytes(60).toBytes()));
+    }
+
+    @Test
+    void testForkIsolationKeepsLargePdfsOutOfThisJvm() {
+        ReflectionTestUtils.setField(extractionService, "isolationMode", "fork");
+
+        assertFalse(extractionService.isParallelPdf(sniffed("scan.pdf", "application/pdf"), DataSize.ofMegabytes(60).toBytes()));
+    }
+
+    @Test
+    void testPdfPageRangesHonourCharacterCap() throws Exception {
+        Path pdf = PdfSamples.write(tempDir.resolve("capped.pdf"), 12, 2, "Capped");
+        ReflectionTestUtils.setField(extractionService, "maxChars", 20L);
+
+        try (TikaInputStream in = TikaInputStream.get(pdf);
+             ExtractedText text = extractionService.extractPdfPages(in, metadata("capped.pdf"))) {
+            assertTrue(text.isTruncated());
+            assertEquals(20, text.getInline().length());
+            assertTrue(text.getInline().startsWith("Page 1"));
+        }
+        assertEquals(1, meterRegistry.get("docmanager.extract.pdf.parallel").tag("outcome", "truncated").timer().count());
+        try (var spooled = Files.list(tempDir)) {
+            assertEquals(1, spooled.count());
+        }
+    }
+
+    @Test
+    void testRunawayParseIsCancelledAtDeadline() throws Exception {
+        ReflectionTestUtils.setField(extractionService, "documentParser", new RunawayParser());
+        ReflectionTestUtils.setField(extractionService, "parseTimeout", Duration.ofMillis(200));
+
+        try (TikaInputStream in = TikaInputStream.get(new ByteArrayInputStream(new byte[1]))) {
+            assertThrows(ParseTimeoutException.class,
+                    () -> extractionService.parse(in, new BodyContentHandler(-1), metadata("endless.pdf")));
+        }
+
+        assertEquals(1, meterRegistry.get("docmanager.tika.parse").tag("outcome", "timeout").timer().count());
+        // The interrupt surfaces at the runaway parser's next SAX event, which frees the parse thread
+        parseExecutor.shutdown();
+        assertTrue(parseExecutor.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(0, meterRegistry.get("docmanager.tika.parse.abandoned").gauge().value());
+    }
+
+    @Test
+    void testAbandonedParseGivesUpItsPoolSlotAndStream() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        StuckParser stuck = new StuckParser(release);
+        ReflectionTestUtils.setField(extractionService, "documentParser", stuck);
+        ReflectionTestUtils.setField(extractionService, "parseTimeout", Duration.ofMillis(200));
+        ReflectionTestUtils.setField(extractionService, "maxAbandoned", 1);
+
+        try (TikaInputStream in = TikaInputStream.get(new ByteArrayInputStream("text".getBytes(StandardCharsets.UTF_8)))) {
+            assertThrows(ParseTimeoutException.class,
+                    () -> extractionService.parse(in, new BodyContentHandler(-1), metadata("stuck.pdf")));
+        }
+        // The single parse thread is still spinning, yet the next upload gets a thread of its own
+        assertEquals(2, parseExecutor.getCorePoolSize());
+        ReflectionTestUtils.setField(extractionService, "parseTimeout", Duration.ofMinutes(1));
+        ReflectionTestUtils.setField(extractionService, "documentParser", new TikaParserConfig().documentParser(
+                TikaConfig.getDefaultConfig(), meterRegistry));
+        BodyContentHandler handler = new BodyContentHandler(-1);
+        try (TikaInputStream in = TikaInputStream.get(new ByteArrayInputStream("Next body".getBytes(StandardCharsets.UTF_8)))) {
+            extractionService.parse(in, handler, metadata("next.txt"));
+        }
+        assertTrue(handler.toString().contains("Next body"));
+
+        release.countDown();
+        // Once it stops spinning, the stuck parse finds its stream detached and hands the extra thread back
+        assertTrue(stuck.finished.await(5, TimeUnit.SECONDS));
+        assertTrue(stuck.readFailed);
+        // The core size drops before the maximum and the gauge, so wait for all three to settle
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while ((parseExecutor.getCorePoolSize() != 1 || parseExecutor.getMaximumPoolSize() != 1
+                || meterRegistry.get("docmanager.tika.parse.abandoned").gauge().value() != 0) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, parseExecutor.getCorePoolSize());
+        assertEquals(1, parseExecutor.getMaximumPoolSize());
+        assertEquals(0, meterRegistry.get("docmanager.tika.parse.abandoned").gauge().value());
+    }
+
+    @Test
+    void testFullParsePoolRejectsInsteadOfQueueing() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        parseExecutor.execute(() -> awaitQuietly(release));
+        parseExecutor.execute(() -> awaitQuietly(release));
+
+        try (TikaInputStream in = TikaInputStream.get(new ByteArrayInputStream("text".getBytes(StandardCharsets.UTF_8)))) {
+            assertThrows(IngestionQueueFullException.class,
+                    () -> extractionService.parse(in, new BodyContentHandler(-1), metadata("notes.txt")));
+        } finally {
+            release.countDown();
+        }
+        assertEquals(1, meterRegistry.get("docmanager.tika.parse").tag("outcome", "rejected").timer().count());
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** Emits text forever without ever checking for interrupts, like a parser stuck in a malformed file. */
+    private static final class RunawayParser extends AbstractParser {
+
+        @Override
+        public Set<MediaType> getSupportedTypes(ParseContext context) {
+            return Set.of(MediaType.application("pdf"));
+        }
+
+        @Override
+        public void parse(InputStream stream, ContentHandler handler, Metadata metadata, ParseContext context) throws SAXException {
+            char[] text = "loop ".toCharArray();
+            handler.startDocument();
+            while (true) {
+                handler.characters(text, 0, text.length);
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    /** Burns CPU without SAX events or reads until released, then tries to read its input. */
+    private static final class StuckParser extends AbstractParser {
+
+        private final CountDownLatch release;
+        private final CountDownLatch finished = new CountDownLatch(1);
+        private volatile boolean readFailed;
+
+        StuckParser(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public Set<MediaType> getSupportedTypes(ParseContext context) {
+            return Set.of(MediaType.application("pdf"));
+        }
+
+        @Override
+        public void parse(InputStream stream, ContentHandler handler, Metadata metadata, ParseContext context) {
+            try {
+                while (release.getCount() > 0) {
+                    Thread.onSpinWait();
+                }
+                stream.read();
+            } catch (IOException e) {
+                readFailed = true;
+            } finally {
+                finished.countDown();
+            }
+        }
+    }
+
+    private Metadata metadata(String fileName) {
+        Metadata metadata = new Metadata();
+        metadata.set(TikaCoreProperties.RESOURCE_NAME_KEY, fileName);
+        return metadata;
+    }
+
+    private Metadata sniffed(String fileName, String contentType) {
+        Metadata metadata = metadata(fileName);
+        metadata.set(Metadata.CONTENT_TYPE, contentType);
+        return metadata;
+    }
+}
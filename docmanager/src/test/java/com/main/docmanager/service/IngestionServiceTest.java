@@ -0,0 +1,129 @@
+package com.main.docmanager.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.main.docmanager.dto.IngestionJob;
+import com.main.docmanager.exception.IngestionQueueFullException;
+import com.main.docmanager.model.Document;
+
+@ExtendWith(MockitoExtension.class)
+public class IngestionServiceTest {
+
+    @Mock
+    private DocumentService documentService;
+
+    @InjectMocks
+    private IngestionService ingestionService;
+
+    @TempDir
+    Path spoolDir;
+
+    private ThreadPoolExecutor executor;
+    private MockMultipartFile file;
+
+    @BeforeEach
+    void setUp() {
+        executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1));
+        ReflectionTestUtils.setField(ingestionService, "ingestionExecutor", executor);
+        ReflectionTestUtils.setField(ingestionService, "spoolDir", spoolDir.toString());
+        ReflectionTestUtils.setField(ingestionService, "jobRetention", Duration.ofHours(1));
+        file = new MockMultipartFile("file", "test.txt", "text/plain", "Sample content".getBytes());
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testSubmitCompletesJob() throws Exception {
+        Document saved = new Document();
+        saved.setId(42L);
+        when(documentService.ingest(any(InputStreamSource.class), eq("test.txt"), eq("John"))).thenReturn(saved);
+
+        IngestionJob job = ingestionService.submit(file, "John");
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+
+        IngestionJob result = ingestionService.getJob(job.getId()).orElseThrow();
+        assertEquals(IngestionJob.Status.COMPLETED, result.getStatus());
+        assertEquals(42L, result.getDocumentId());
+        assertFalse(Files.exists(spoolDir.resolve(job.getId())));
+    }
+
+    @Test
+    void testSubmitRecordsFailure() throws Exception {
+        when(documentService.ingest(any(InputStreamSource.class), eq("test.txt"), eq("John")))
+            .thenThrow(new IllegalArgumentException("User not found: John"));
+
+        IngestionJob job = ingestionService.submit(file, "John");
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+
+        IngestionJob result = ingestionService.getJob(job.getId()).orElseThrow();
+        assertEquals(IngestionJob.Status.FAILED, result.getStatus());
+        assertEquals("User not found: John", result.getError());
+    }
+
+    @Test
+    void testSubmitRejectsWhenQueueFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        // Occupy the single worker and the single queue slot
+        executor.execute(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        executor.execute(() -> { });
+
+        assertThrows(IngestionQueueFullException.class, () -> ingestionService.submit(file, "John"));
+        try (var spooled = Files.list(spoolDir)) {
+            assertEquals(0, spooled.count());
+        }
+        release.countDown();
+    }
+
+    @Test
+    void testSubmitValidatesBeforeQueueing() throws Exception {
+        doThrow(new IllegalArgumentException("File is empty or not provided")).when(documentService).validateFile(file);
+
+        assertThrows(IllegalArgumentException.class, () -> ingestionService.submit(file, "John"));
+        verify(documentService, never()).ingest(any(InputStreamSource.class), any(), any());
+    }
+
+    @Test
+    void testGetUnknownJob() {
+        assertTrue(ingestionService.getJob("missing").isEmpty());
+    }
+}
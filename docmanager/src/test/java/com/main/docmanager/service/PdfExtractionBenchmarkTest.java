@@ -0,0 +1,138 @@
+package com.main.docmanager.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.tika.config.TikaConfig;
+import org.apache.tika.io.TikaInputStream;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.metadata.TikaCoreProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import com.main.docmanager.config.TikaParserConfig;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Wall-clock comparison of the single-threaded Tika parse against parallel page-range extraction on a
+ * 600-page PDF. Run with {@code mvn test -Pbenchmark}; excluded from the default build.
+ */
+@Tag("benchmark")
+public class PdfExtractionBenchmarkTest {
+
+    private static final int PAGES = 600;
+    private static final int WARMUP_ROUNDS = 2;
+    private static final int MEASURED_ROUNDS = 5;
+
+    @TempDir
+    Path tempDir;
+
+    private ExecutorService parseExecutor;
+    private ForkJoinPool pdfPool;
+    private ExtractionService extractionService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        TikaParserConfig parserConfig = new TikaParserConfig();
+        ReflectionTestUtils.setField(parserConfig, "tikaConfigResource", new ClassPathResource("tika-config.xml"));
+        TikaConfig tikaConfig = parserConfig.tikaConfig(meterRegistry);
+
+        parseExecutor = Executors.newCachedThreadPool();
+        pdfPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        PdfPageRangeExtractor pdfExtractor = new PdfPageRangeExtractor();
+        ReflectionTestUtils.setField(pdfExtractor, "pdfExtractionPool", pdfPool);
+        ReflectionTestUtils.setField(pdfExtractor, "minPagesPerTask", 25);
+
+        extractionService = new ExtractionService();
+        ReflectionTestUtils.setField(extractionService, "documentParser", parserConfig.documentParser(tikaConfig, meterRegistry));
+        ReflectionTestUtils.setField(extractionService, "pdfPageRangeExtractor", pdfExtractor);
+        ReflectionTestUtils.setField(extractionService, "tikaParseExecutor", parseExecutor);
+        ReflectionTestUtils.setField(extractionService, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(extractionService, "parseTimeout", Duration.ofMinutes(10));
+        ReflectionTestUtils.setField(extractionService, "parallelPdfThreshold", DataSize.ofBytes(0));
+        ReflectionTestUtils.setField(extractionService, "storage", "inline");
+        ReflectionTestUtils.setField(extractionService, "chunkSize", 65536);
+        ReflectionTestUtils.setField(extractionService, "maxChars", -1L);
+        ReflectionTestUtils.setField(extractionService, "spillDir", tempDir.toString());
+    }
+
+    @AfterEach
+    void tearDown() {
+        parseExecutor.shutdownNow();
+        pdfPool.shutdownNow();
+    }
+
+    @Test
+    void compareSingleThreadedAndPageRangeExtraction() throws Exception {
+        Path pdf = PdfSamples.write(tempDir.resolve("large.pdf"), PAGES, 45, "Benchmark report");
+
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            run(pdf, false);
+            run(pdf, true);
+        }
+        long[] single = new long[MEASURED_ROUNDS];
+        long[] parallel = new long[MEASURED_ROUNDS];
+        long singleChars = 0;
+        long parallelChars = 0;
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            long start = System.nanoTime();
+            singleChars = run(pdf, false);
+            single[i] = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            parallelChars = run(pdf, true);
+            parallel[i] = System.nanoTime() - start;
+        }
+
+        long singleMedian = median(single);
+        long parallelMedian = median(parallel);
+        System.out.printf("PDF extraction, %d pages (%d KB), %d cores%n", PAGES, Files.size(pdf) / 1024,
+                Runtime.getRuntime().availableProcessors());
+        System.out.printf("  single-threaded Tika parse : median %d ms, %d chars%n", TimeUnit.NANOSECONDS.toMillis(singleMedian), singleChars);
+        System.out.printf("  page-range fork/join       : median %d ms, %d chars%n", TimeUnit.NANOSECONDS.toMillis(parallelMedian), parallelChars);
+        System.out.printf("  speed-up                   : %.2fx%n", (double) singleMedian / parallelMedian);
+
+        // Both paths must see every page; whitespace differs slightly between Tika's XHTML output and the plain stripper
+        assertEquals(PAGES, countPages(run(pdf, true, true)));
+    }
+
+    private long run(Path pdf, boolean pageRanges) throws Exception {
+        return run(pdf, pageRanges, false).length();
+    }
+
+    private String run(Path pdf, boolean pageRanges, boolean keepText) throws Exception {
+        Metadata metadata = new Metadata();
+        metadata.set(TikaCoreProperties.RESOURCE_NAME_KEY, "large.pdf");
+        try (InputStream in = TikaInputStream.get(pdf);
+             ExtractedText text = pageRanges ? extractionService.extractPdfPages(in, metadata) : extractionService.extract(in, metadata)) {
+            return text.getInline();
+        }
+    }
+
+    private static int countPages(String text) {
+        return (int) text.lines().filter(line -> line.matches("Page \\d+")).count();
+    }
+
+    private static long median(long[] samples) {
+        long[] sorted = samples.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+}
@@ -0,0 +1,84 @@
+package com.main.docmanager.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.ForkJoinPool;
+
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.metadata.TikaCoreProperties;
+import org.apache.tika.sax.ToTextContentHandler;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.main.docmanager.exception.ParseTimeoutException;
+
+public class PdfPageRangeExtractorTest {
+
+    @TempDir
+    Path tempDir;
+
+    private ForkJoinPool pool;
+    private PdfPageRangeExtractor extractor;
+
+    @BeforeEach
+    void setUp() {
+        pool = new ForkJoinPool(4);
+        extractor = new PdfPageRangeExtractor();
+        ReflectionTestUtils.setField(extractor, "pdfExtractionPool", pool);
+        ReflectionTestUtils.setField(extractor, "minPagesPerTask", 7);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void testRangesAreReassembledInPageOrder() throws Exception {
+        Path pdf = PdfSamples.write(tempDir.resolve("ordered.pdf"), 40, 3, "Ordered report");
+        ToTextContentHandler handler = new ToTextContentHandler();
+        Metadata metadata = new Metadata();
+
+        extractor.extract(pdf, metadata, handler, Duration.ofMinutes(1));
+
+        String text = handler.toString();
+        int previous = -1;
+        for (int page = 1; page <= 40; page++) {
+            int position = text.indexOf("Page " + page + "\n");
+            assertTrue(position > previous, "page " + page + " out of order");
+            previous = position;
+        }
+        assertEquals("Ordered report", metadata.get(TikaCoreProperties.TITLE));
+        assertEquals("application/pdf", metadata.get(Metadata.CONTENT_TYPE));
+    }
+
+    @Test
+    void testMatchesSingleRangeExtraction() throws Exception {
+        Path pdf = PdfSamples.write(tempDir.resolve("same.pdf"), 15, 5, null);
+        ToTextContentHandler parallel = new ToTextContentHandler();
+        extractor.extract(pdf, new Metadata(), parallel, Duration.ofMinutes(1));
+
+        ReflectionTestUtils.setField(extractor, "minPagesPerTask", 1000);
+        ToTextContentHandler single = new ToTextContentHandler();
+        extractor.extract(pdf, new Metadata(), single, Duration.ofMinutes(1));
+
+        assertEquals(single.toString(), parallel.toString());
+    }
+
+    @Test
+    void testDeadlineCancelsRemainingRanges() throws Exception {
+        Path pdf = PdfSamples.write(tempDir.resolve("slow.pdf"), 30, 40, null);
+
+        assertThrows(ParseTimeoutException.class,
+                () -> extractor.extract(pdf, new Metadata(), new ToTextContentHandler(), Duration.ZERO));
+        assertTrue(Files.exists(pdf));
+    }
+}
@@ -0,0 +1,43 @@
+package com.main.docmanager.service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+
+/** Generates multi-page text PDFs for the page-range extraction tests and benchmarks. */
+final class PdfSamples {
+
+    private PdfSamples() {
+    }
+
+    /** Writes a PDF whose page {@code n} starts with the line "Page n" followed by {@code linesPerPage} filler lines. */
+    static Path write(Path target, int pages, int linesPerPage, String title) throws IOException {
+        PDType1Font font = new PDType1Font(Standard14Fonts.FontName.HELVETICA);
+        try (PDDocument document = new PDDocument()) {
+            document.getDocumentInformation().setTitle(title);
+            for (int n = 1; n <= pages; n++) {
+                PDPage page = new PDPage();
+                document.addPage(page);
+                try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                    content.beginText();
+                    content.setFont(font, 9);
+                    content.setLeading(11);
+                    content.newLineAtOffset(40, 750);
+                    content.showText("Page " + n);
+                    for (int line = 0; line < linesPerPage; line++) {
+                        content.newLine();
+                        content.showText("Line " + line + " of page " + n + " in the quarterly ingestion report sample.");
+                    }
+                    content.endText();
+                }
+            }
+            document.save(target.toFile());
+        }
+        return target;
+    }
+}
@@ -2,25 +2,42 @@
 package com.main.docmanager.service;
 
 import com.main.docmanager.constants.ConstantsUtil;
+import com.main.docmanager.dto.CountMode;
+import com.main.docmanager.dto.CursorPage;
+import com.main.docmanager.dto.KeysetCursor;
 import com.main.docmanager.dto.SearchResultDTO;
+import com.main.docmanager.dto.SnippetFragment;
 import com.main.docmanager.model.Document;
+import com.main.docmanager.model.DocumentChunk;
 import com.main.docmanager.model.User;
+import com.main.docmanager.repository.DocumentChunkRepository;
 import com.main.docmanager.repository.DocumentRepository;
 import com.main.docmanager.repository.UserRepository;
+import com.main.docmanager.search.InvertedIndexSearchEngine;
+import com.main.docmanager.search.SearchEngine;
+import com.main.docmanager.search.SearchHits;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -35,6 +52,9 @@ public class QaServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private DocumentChunkRepository documentChunkRepository;
+
     @Mock
     private Pageable pageable;
 
@@ -55,6 +75,10 @@ public class QaServiceTest {
         sampleDocument = new Document("Test Document", "application/pdf", "user", "This is a sample content with keyword.", sampleUser);
         sampleDocument.setId(1L);
         sampleDocument.setUploadedAt(sampleDateTime);
+
+        ReflectionTestUtils.setField(qaService, "maxCursorPageSize", 100);
+        ReflectionTestUtils.setField(qaService, "snippetContext", 50);
+        ReflectionTestUtils.setField(qaService, "snippetFragments", 3);
     }
 
    
@@ -62,25 +86,260 @@ public class QaServiceTest {
     @Test
     void testSearchEmptyResults() {
         Page<Document> emptyPage = new PageImpl<>(Collections.emptyList(), PageRequest.of(0, 10), 0);
-        when(documentRepository.findByContentOrTitleContainingIgnoreCase("keyword", pageable)).thenReturn(emptyPage);
+        when(documentRepository.searchSlice("keyword", pageable)).thenReturn(emptyPage);
 
         List<SearchResultDTO> results = qaService.search("keyword", pageable);
 
         assertNotNull(results);
         assertTrue(results.isEmpty());
-        verify(documentRepository).findByContentOrTitleContainingIgnoreCase("keyword", pageable);
+        verify(documentRepository).searchSlice("keyword", pageable);
     }
 
     @Test
     void testSearchNullQuery() {
         Page<Document> emptyPage = new PageImpl<>(Collections.emptyList(), PageRequest.of(0, 10), 0);
-        when(documentRepository.findByContentOrTitleContainingIgnoreCase(null, pageable)).thenReturn(emptyPage);
+        when(documentRepository.searchSlice(null, pageable)).thenReturn(emptyPage);
 
         List<SearchResultDTO> results = qaService.search(null, pageable);
 
         assertNotNull(results);
         assertTrue(results.isEmpty());
-        verify(documentRepository).findByContentOrTitleContainingIgnoreCase(null, pageable);
+        verify(documentRepository).searchSlice(null, pageable);
+    }
+
+    @Test
+    void testSearchChunkedDocumentUsesMatchingChunkForSnippet() {
+        Document chunked = new Document("Chunked", "text/plain", "user", null, sampleUser);
+        chunked.setId(2L);
+        chunked.getContent().setId(5L);
+        Page<Document> page = new PageImpl<>(List.of(chunked), PageRequest.of(0, 10), 1);
+        when(documentRepository.searchSlice("keyword", pageable)).thenReturn(page);
+        when(documentChunkRepository.findMatching(eq(5L), eq("keyword"), any(Pageable.class)))
+            .thenReturn(List.of(new DocumentChunk(5L, 3, "text around the keyword here")));
+
+        List<SearchResultDTO> results = qaService.search("keyword", pageable);
+
+        assertEquals(1, results.size());
+        assertTrue(results.get(0).getSnippet().contains("keyword"));
+    }
+
+    @Test
+    void testSearchReturnsHighlightedFragments() {
+        Page<Document> page = new PageImpl<>(List.of(sampleDocument), PageRequest.of(0, 10), 1);
+        when(documentRepository.searchSlice("KEYWORD", pageable)).thenReturn(page);
+
+        List<SearchResultDTO> results = qaService.search("KEYWORD", pageable);
+
+        SnippetFragment fragment = results.get(0).getFragments().get(0);
+        assertEquals("This is a sample content with keyword.", fragment.text());
+        assertEquals(List.of(new SnippetFragment.Highlight(30, 37)), fragment.highlights());
+        assertEquals(fragment.text(), results.get(0).getSnippet());
+    }
+
+    @Test
+    void testSearchWithEngineKeepsRankOrderAndTotal() {
+        SearchEngine searchEngine = mock(SearchEngine.class);
+        ReflectionTestUtils.setField(qaService, "searchEngine", searchEngine);
+        Document other = new Document("Other", "text/plain", "user", "Another keyword body", sampleUser);
+        other.setId(2L);
+        Pageable firstPage = PageRequest.of(0, 2);
+        when(searchEngine.search("keyword", 0, 2)).thenReturn(new SearchHits(List.of(2L, 1L), 5));
+        when(documentRepository.findAllWithContentByIdIn(List.of(2L, 1L))).thenReturn(List.of(sampleDocument, other));
+
+        Slice<SearchResultDTO> exact = qaService.search("keyword", firstPage, CountMode.EXACT);
+        Slice<SearchResultDTO> none = qaService.search("keyword", firstPage, CountMode.NONE);
+
+        assertEquals(List.of(2L, 1L), exact.getContent().stream().map(SearchResultDTO::getId).toList());
+        assertEquals(5, ((Page<SearchResultDTO>) exact).getTotalElements());
+        assertTrue(exact.getContent().get(0).getSnippet().contains("keyword"));
+        assertFalse(none instanceof Page);
+        assertTrue(none.hasNext());
+        verify(documentRepository, never()).searchSlice(any(), any());
+    }
+
+    @Test
+    void testSearchWithEngineFindsChunkSnippetForApartWords() {
+        SearchEngine searchEngine = mock(SearchEngine.class);
+        ReflectionTestUtils.setField(qaService, "searchEngine", searchEngine);
+        Document chunked = new Document("Chunked", "text/plain", "user", null, sampleUser);
+        chunked.setId(2L);
+        chunked.getContent().setId(5L);
+        when(searchEngine.search("quarterly revenue", 0, 10)).thenReturn(new SearchHits(List.of(2L), 1));
+        when(searchEngine.terms("quarterly revenue")).thenReturn(List.of("quarterly", "revenue"));
+        when(documentRepository.findAllWithContentByIdIn(List.of(2L))).thenReturn(List.of(chunked));
+        when(documentChunkRepository.findFirstMatching(List.of(5L), List.of("quarterly", "revenue")))
+            .thenReturn(Map.of(5L, "Revenue rose in every region this quarterly period."));
+
+        Slice<SearchResultDTO> results = qaService.search("quarterly revenue", PageRequest.of(0, 10), CountMode.NONE);
+
+        SearchResultDTO result = results.getContent().get(0);
+        assertEquals("Revenue rose in every region this quarterly period.", result.getSnippet());
+        assertEquals(List.of(new SnippetFragment.Highlight(0, 7), new SnippetFragment.Highlight(34, 43)),
+                result.getFragments().get(0).highlights());
+        verify(documentChunkRepository, never()).findMatching(any(), any(), any());
+    }
+
+    @Test
+    void testCursorSearchWithEnginePagesThroughTheSameHits() {
+        InvertedIndexSearchEngine searchEngine = new InvertedIndexSearchEngine();
+        ReflectionTestUtils.setField(searchEngine, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.invokeMethod(searchEngine, "registerMetrics");
+        ReflectionTestUtils.setField(qaService, "searchEngine", searchEngine);
+        List<Document> corpus = new ArrayList<>();
+        String[] bodies = {
+                "Revenue rose this quarter.", "Quarterly revenue, revenue and more revenue.",
+                "Quarterly figures: revenue up.", "Nothing relevant.", "Revenue for the quarterly close."};
+        for (int i = 0; i < bodies.length; i++) {
+            Document doc = new Document("Doc " + i, "text/plain", "user", bodies[i], sampleUser);
+            doc.setId(i + 1L);
+            doc.setUploadedAt(sampleDateTime.plusDays(i));
+            corpus.add(doc);
+            searchEngine.index(doc.getId(), doc.getTitle(), List.of(bodies[i]));
+        }
+        when(documentRepository.findAllWithContentByIdIn(anyList())).thenAnswer(invocation -> corpus.stream()
+                .filter(doc -> invocation.<List<Long>>getArgument(0).contains(doc.getId())).toList());
+
+        // Both words, not side by side, which only the engine matches
+        List<Long> ranked = qaService.search("quarterly revenue", PageRequest.of(0, 10), CountMode.NONE)
+                .getContent().stream().map(SearchResultDTO::getId).toList();
+        List<Long> paged = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPage<SearchResultDTO> page = qaService.searchAfter("quarterly revenue", cursor, 1);
+            page.getItems().forEach(result -> paged.add(result.getId()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertEquals(List.of(2L, 3L, 5L), ranked);
+        assertEquals(ranked, paged);
+        verify(documentRepository, never()).searchAfter(any(), any(), any(), any());
+    }
+
+    @Test
+    void testCursorSearchWithEngineFindsCompressedBody() {
+        InvertedIndexSearchEngine searchEngine = new InvertedIndexSearchEngine();
+        ReflectionTestUtils.setField(searchEngine, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.invokeMethod(searchEngine, "registerMetrics");
+        ReflectionTestUtils.setField(qaService, "searchEngine", searchEngine);
+        Document compressed = new Document("Archive", "text/plain", "user", "Quarterly revenue archive. ".repeat(200), sampleUser);
+        compressed.setId(7L);
+        assertTrue(compressed.getContent().compress(1));
+        searchEngine.index(7L, compressed.getTitle(), List.of(compressed.getContent().getText()));
+        when(documentRepository.findAllWithContentByIdIn(List.of(7L))).thenReturn(List.of(compressed));
+
+        CursorPage<SearchResultDTO> page = qaService.searchAfter("revenue", null, 10);
+
+        // The text column of a compressed body is null, so the LIKE query would never have found it
+        assertEquals(List.of(7L), page.getItems().stream().map(SearchResultDTO::getId).toList());
+        assertTrue(page.getItems().get(0).getSnippet().contains("revenue"));
+        verify(documentRepository, never()).searchAfter(any(), any(), any(), any());
+    }
+
+    @Test
+    void testSearchWithEngineSnippetsSkipsBodies() {
+        SearchEngine searchEngine = mock(SearchEngine.class);
+        ReflectionTestUtils.setField(qaService, "searchEngine", searchEngine);
+        when(searchEngine.search("keyword", 0, 10)).thenReturn(new SearchHits(List.of(1L), 1, Map.of(1L, "with **keyword**")));
+        when(documentRepository.findAllById(List.of(1L))).thenReturn(List.of(sampleDocument));
+
+        Slice<SearchResultDTO> results = qaService.search("keyword", PageRequest.of(0, 10), CountMode.EXACT);
+
+        assertEquals("with **keyword**", results.getContent().get(0).getSnippet());
+        verify(documentRepository, never()).findAllWithContentByIdIn(any());
+    }
+
+    @Test
+    void testSearchWithEngineSkipsLoadForNoHits() {
+        SearchEngine searchEngine = mock(SearchEngine.class);
+        ReflectionTestUtils.setField(qaService, "searchEngine", searchEngine);
+        when(searchEngine.search("\"no such phrase\"", 0, 10)).thenReturn(new SearchHits(List.of(), 0));
+
+        Slice<SearchResultDTO> results = qaService.search("\"no such phrase\"", PageRequest.of(0, 10), CountMode.NONE);
+
+        assertTrue(results.getContent().isEmpty());
+        assertFalse(results.hasNext());
+        verifyNoInteractions(documentRepository);
+    }
+
+    @Test
+    void testSearchExactCountRunsCountQuery() {
+        Page<Document> page = new PageImpl<>(List.of(sampleDocument), PageRequest.of(0, 10), 42);
+        when(documentRepository.findByContentOrTitleContainingIgnoreCase("keyword", pageable)).thenReturn(page);
+
+        Slice<SearchResultDTO> results = qaService.search("keyword", pageable, CountMode.EXACT);
+
+        assertEquals(42, ((Page<SearchResultDTO>) results).getTotalElements());
+        verify(documentRepository, never()).searchSlice(any(), any());
+    }
+
+    @Test
+    void testSearchEstimateNeverUndercutsRowsAlreadySeen() {
+        Pageable secondPage = PageRequest.of(1, 10);
+        List<Document> tenDocuments = Collections.nCopies(10, sampleDocument);
+        when(documentRepository.searchSlice("keyword", secondPage)).thenReturn(new SliceImpl<>(tenDocuments, secondPage, true));
+        when(documentRepository.estimateSearchCount("keyword")).thenReturn(5L);
+
+        Page<SearchResultDTO> results = (Page<SearchResultDTO>) qaService.search("keyword", secondPage, CountMode.ESTIMATE);
+
+        // 20 rows through this page plus at least one more
+        assertEquals(21, results.getTotalElements());
+        verify(documentRepository, never()).findByContentOrTitleContainingIgnoreCase(any(), any());
+    }
+
+    @Test
+    void testFilterWithoutCountSkipsCountAndEstimate() {
+        Pageable firstPage = PageRequest.of(0, 10);
+        when(documentRepository.filterSlice("user", null, null, null, firstPage))
+            .thenReturn(new SliceImpl<>(List.of(sampleDocument), firstPage, false));
+
+        Slice<Document> result = qaService.filter("user", null, null, null, firstPage, CountMode.NONE);
+
+        assertFalse(result instanceof Page);
+        assertFalse(result.hasNext());
+        verify(documentRepository, never()).findByFilters(any(), any(), any(), any(), any());
+        verify(documentRepository, never()).estimateFilterCount(any(), any(), any(), any());
+    }
+
+    @Test
+    void testFilterEstimateOnLastPageIsExact() {
+        Pageable firstPage = PageRequest.of(0, 10);
+        when(documentRepository.filterSlice("user", null, null, null, firstPage))
+            .thenReturn(new SliceImpl<>(List.of(sampleDocument), firstPage, false));
+
+        Page<Document> result = (Page<Document>) qaService.filter("user", null, null, null, firstPage, CountMode.ESTIMATE);
+
+        assertEquals(1, result.getTotalElements());
+        verify(documentRepository, never()).estimateFilterCount(any(), any(), any(), any());
+    }
+
+    @Test
+    void testCountModeParsing() {
+        assertEquals(CountMode.ESTIMATE, CountMode.from(" Estimate "));
+        assertThrows(IllegalArgumentException.class, () -> CountMode.from("approximate"));
+    }
+
+    @Test
+    void testGetContentInline() {
+        when(documentRepository.findById(1L)).thenReturn(Optional.of(sampleDocument));
+
+        assertEquals(Optional.of("This is a sample content with keyword."), qaService.getContent(1L));
+    }
+
+    @Test
+    void testGetContentJoinsChunksInOrder() {
+        Document chunked = new Document("Chunked", "text/plain", "user", null, sampleUser);
+        chunked.getContent().setId(5L);
+        when(documentRepository.findById(2L)).thenReturn(Optional.of(chunked));
+        when(documentChunkRepository.findTexts(5L)).thenReturn(List.of("first ", "second"));
+
+        assertEquals(Optional.of("first second"), qaService.getContent(2L));
+    }
+
+    @Test
+    void testGetContentMissingDocument() {
+        when(documentRepository.findById(9L)).thenReturn(Optional.empty());
+
+        assertTrue(qaService.getContent(9L).isEmpty());
     }
 
     // Tests for filter
@@ -159,6 +418,15 @@ public class QaServiceTest {
         assertEquals("Short text.", snippet);
     }
 
+    @Test
+    void testGenerateSnippetJoinsSeparateFragments() {
+        String content = "Revenue opens the report. " + "Filler words fill the middle of it. ".repeat(20) + "Closing revenue figures.";
+
+        String snippet = qaService.generateSnippet(content, "revenue", 10);
+
+        assertEquals("Revenue opens the ... Closing revenue figures.", snippet);
+    }
+
     // Tests for parseDateTime
     @Test
     void testParseDateTimeSuccess() {
@@ -185,4 +453,57 @@ public class QaServiceTest {
         });
         assertTrue(exception.getMessage().contains("Invalid date-time format for fromDate: invalid-date"));
     }
+
+    @Test
+    void testSearchAfterFirstPageStartsAtBeginning() {
+        when(documentRepository.searchAfter(eq("keyword"), eq(KeysetCursor.START.uploadedAt()), eq(0L), eq(Limit.of(11))))
+                .thenReturn(List.of(sampleDocument));
+
+        CursorPage<SearchResultDTO> page = qaService.searchAfter("keyword", null, 10);
+
+        assertEquals(1, page.getItems().size());
+        assertEquals("Test Document", page.getItems().get(0).getTitle());
+        assertFalse(page.isHasMore());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void testSearchAfterReturnsCursorOfLastItemWhenMoreRowsExist() {
+        Document second = new Document("Second", "application/pdf", "user", "keyword again", sampleUser);
+        second.setId(2L);
+        second.setUploadedAt(sampleDateTime.plusMinutes(1));
+        Document third = new Document("Third", "application/pdf", "user", "keyword more", sampleUser);
+        third.setId(3L);
+        third.setUploadedAt(sampleDateTime.plusMinutes(2));
+        when(documentRepository.searchAfter(eq("keyword"), any(), anyLong(), eq(Limit.of(3))))
+                .thenReturn(List.of(sampleDocument, second, third));
+
+        CursorPage<SearchResultDTO> page = qaService.searchAfter("keyword", null, 2);
+
+        assertEquals(2, page.getItems().size());
+        assertTrue(page.isHasMore());
+        KeysetCursor next = KeysetCursor.decode(page.getNextCursor());
+        assertEquals(second.getUploadedAt(), next.uploadedAt());
+        assertEquals(2L, next.id());
+    }
+
+    @Test
+    void testFilterAfterSeeksPastDecodedCursor() {
+        String cursor = new KeysetCursor(sampleDateTime, 1L).encode();
+        when(documentRepository.filterAfter("user", null, null, null, sampleDateTime, 1L, Limit.of(21)))
+                .thenReturn(Collections.emptyList());
+
+        CursorPage<Document> page = qaService.filterAfter("user", null, null, null, cursor, 20);
+
+        assertTrue(page.getItems().isEmpty());
+        assertFalse(page.isHasMore());
+    }
+
+    @Test
+    void testCursorEndpointsRejectInvalidInput() {
+        assertThrows(IllegalArgumentException.class, () -> qaService.searchAfter("keyword", "not-a-cursor", 10));
+        assertThrows(IllegalArgumentException.class, () -> qaService.searchAfter("keyword", null, 0));
+        assertThrows(IllegalArgumentException.class, () -> qaService.filterAfter(null, null, null, null, null, 101));
+        verifyNoInteractions(documentRepository);
+    }
 }
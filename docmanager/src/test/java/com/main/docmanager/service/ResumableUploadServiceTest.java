@@ -0,0 +1,164 @@
+package com.main.docmanager.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import org.apache.tika.config.TikaConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import com.main.docmanager.dto.IngestionJob;
+import com.main.docmanager.dto.UploadSession;
+import com.main.docmanager.exception.IngestionQueueFullException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+public class ResumableUploadServiceTest {
+
+    private static final byte[] CONTENT = "Resumable upload content".getBytes(StandardCharsets.UTF_8);
+
+    @Mock
+    private IngestionService ingestionService;
+
+    @Spy
+    private ContentTypeSniffer contentTypeSniffer = new ContentTypeSniffer();
+
+    @InjectMocks
+    private ResumableUploadService resumableUploadService;
+
+    @TempDir
+    Path uploadDir;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ReflectionTestUtils.setField(contentTypeSniffer, "tikaConfig", TikaConfig.getDefaultConfig());
+        ReflectionTestUtils.setField(contentTypeSniffer, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(contentTypeSniffer, "sniffBytes", 8192);
+        ReflectionTestUtils.setField(resumableUploadService, "uploadDir", uploadDir.toString());
+        ReflectionTestUtils.setField(resumableUploadService, "maxSize", DataSize.ofMegabytes(1));
+        ReflectionTestUtils.setField(resumableUploadService, "maxChunkSize", DataSize.ofBytes(16));
+        ReflectionTestUtils.setField(resumableUploadService, "sessionTtl", Duration.ofHours(1));
+    }
+
+    @Test
+    void testRangesOutOfOrderAssembleFile() throws Exception {
+        UploadSession session = resumableUploadService.initiate("big.txt", "text/plain", CONTENT.length, "tester");
+        String id = session.getId();
+
+        putRange(id, 12, CONTENT.length - 1);
+        assertFalse(session.isComplete());
+        putRange(id, 0, 11);
+        // Resending a range must not break the bookkeeping
+        putRange(id, 4, 9);
+
+        assertTrue(session.isComplete());
+        assertEquals(List.of(new UploadSession.ByteRange(0, CONTENT.length - 1)), session.getReceived());
+
+        IngestionJob job = new IngestionJob("job-1", "big.txt", "tester");
+        ArgumentCaptor<Path> file = ArgumentCaptor.forClass(Path.class);
+        when(ingestionService.submitFile(file.capture(), eq("big.txt"), eq("tester"))).thenReturn(job);
+
+        assertEquals(job, resumableUploadService.complete(id));
+        assertArrayEquals(CONTENT, Files.readAllBytes(file.getValue()));
+        assertTrue(resumableUploadService.getSession(id).isEmpty());
+    }
+
+    @Test
+    void testCompleteWithGapIsRejected() throws Exception {
+        UploadSession session = resumableUploadService.initiate("big.txt", "text/plain", CONTENT.length, "tester");
+        putRange(session.getId(), 0, 9);
+
+        assertThrows(IllegalArgumentException.class, () -> resumableUploadService.complete(session.getId()));
+        verify(ingestionService, never()).submitFile(any(), any(), any());
+    }
+
+    @Test
+    void testCompleteKeepsSessionWhenQueueIsFull() throws Exception {
+        UploadSession session = resumableUploadService.initiate("big.txt", "text/plain", CONTENT.length, "tester");
+        putRange(session.getId(), 0, 15);
+        putRange(session.getId(), 16, CONTENT.length - 1);
+        when(ingestionService.submitFile(any(), any(), any())).thenThrow(new IngestionQueueFullException("full"));
+
+        assertThrows(IngestionQueueFullException.class, () -> resumableUploadService.complete(session.getId()));
+        assertTrue(resumableUploadService.getSession(session.getId()).isPresent());
+    }
+
+    @Test
+    void testInvalidContentRangeIsRejected() throws Exception {
+        String id = resumableUploadService.initiate("big.txt", "text/plain", CONTENT.length, "tester").getId();
+
+        assertThrows(IllegalArgumentException.class,
+                () -> resumableUploadService.writeRange(id, "bytes 0-9/999", new ByteArrayInputStream(CONTENT)));
+        assertThrows(IllegalArgumentException.class,
+                () -> resumableUploadService.writeRange(id, "bytes 0-20/" + CONTENT.length, new ByteArrayInputStream(CONTENT)));
+        assertThrows(IllegalArgumentException.class,
+                () -> resumableUploadService.writeRange(id, "0-9", new ByteArrayInputStream(CONTENT)));
+    }
+
+    @Test
+    void testShortBodyDoesNotMarkRange() throws Exception {
+        UploadSession session = resumableUploadService.initiate("big.txt", "text/plain", CONTENT.length, "tester");
+
+        assertThrows(IllegalArgumentException.class, () -> resumableUploadService.writeRange(
+                session.getId(), "bytes 0-9/" + CONTENT.length, new ByteArrayInputStream(CONTENT, 0, 4)));
+        assertTrue(session.getReceived().isEmpty());
+    }
+
+    @Test
+    void testMislabelledFirstRangeAbortsUpload() throws Exception {
+        byte[] zip = {'P', 'K', 3, 4, 20, 0, 0, 0, 8, 0};
+        String id = resumableUploadService.initiate("report.pdf", "application/pdf", 1000, "tester").getId();
+
+        assertThrows(IllegalArgumentException.class,
+                () -> resumableUploadService.writeRange(id, "bytes 0-9/1000", new ByteArrayInputStream(zip)));
+        assertTrue(resumableUploadService.getSession(id).isEmpty());
+        assertFalse(Files.exists(uploadDir.resolve(id + ".part")));
+    }
+
+    @Test
+    void testInitiateRejectsUnsupportedType() {
+        assertThrows(IllegalArgumentException.class,
+                () -> resumableUploadService.initiate("image.png", "image/png", 10, "tester"));
+    }
+
+    @Test
+    void testAbortDeletesPartialFile() throws Exception {
+        String id = resumableUploadService.initiate("big.txt", "text/plain", CONTENT.length, "tester").getId();
+        assertTrue(Files.exists(uploadDir.resolve(id + ".part")));
+
+        resumableUploadService.abort(id);
+
+        assertFalse(Files.exists(uploadDir.resolve(id + ".part")));
+        assertTrue(resumableUploadService.getSession(id).isEmpty());
+    }
+
+    private void putRange(String id, int start, int end) throws Exception {
+        resumableUploadService.writeRange(id, "bytes " + start + "-" + end + "/" + CONTENT.length,
+                new ByteArrayInputStream(CONTENT, start, end - start + 1));
+    }
+}
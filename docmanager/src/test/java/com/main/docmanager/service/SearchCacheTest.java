@@ -0,0 +1,186 @@
+package com.main.docmanager.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.main.docmanager.dto.CountMode;
+import com.main.docmanager.dto.SearchResultDTO;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+public class SearchCacheTest {
+
+    @Mock
+    private QaService qaService;
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private SearchCache searchCache;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(searchCache, "enabled", true);
+        ReflectionTestUtils.setField(searchCache, "maxWeight", DataSize.ofMegabytes(1));
+        ReflectionTestUtils.setField(searchCache, "expireAfterWrite", Duration.ofMinutes(10));
+        searchCache.init();
+    }
+
+    @Test
+    void testRepeatedSearchIsServedFromCache() {
+        Slice<SearchResultDTO> page = page("report");
+        when(qaService.search("report", PageRequest.of(0, 10), CountMode.NONE)).thenReturn(page);
+
+        assertSame(page, searchCache.search("report", PageRequest.of(0, 10), CountMode.NONE));
+        assertSame(page, searchCache.search("report", PageRequest.of(0, 10), CountMode.NONE));
+
+        verify(qaService, times(1)).search(anyString(), any(), any());
+        assertEquals(1, meterRegistry.get("cache.gets").tag("cache", "searchCache").tag("result", "hit").functionCounter().count());
+        assertEquals(1, meterRegistry.get("cache.gets").tag("cache", "searchCache").tag("result", "miss").functionCounter().count());
+    }
+
+    @Test
+    void testKeyCoversPageSortAndCountMode() {
+        when(qaService.search(anyString(), any(), any())).thenAnswer(invocation -> page(invocation.getArgument(0)));
+
+        searchCache.search("report", PageRequest.of(0, 10), CountMode.NONE);
+        searchCache.search("report", PageRequest.of(1, 10), CountMode.NONE);
+        searchCache.search("report", PageRequest.of(0, 20), CountMode.NONE);
+        searchCache.search("report", PageRequest.of(0, 10, Sort.by("title")), CountMode.NONE);
+        searchCache.search("report", PageRequest.of(0, 10), CountMode.EXACT);
+        searchCache.search("Report", PageRequest.of(0, 10), CountMode.NONE);
+
+        verify(qaService, times(6)).search(anyString(), any(), any());
+    }
+
+    @Test
+    void testInvalidateForcesFreshSearch() {
+        Slice<SearchResultDTO> before = page("before");
+        Slice<SearchResultDTO> after = page("after");
+        when(qaService.search("report", PageRequest.of(0, 10), CountMode.NONE)).thenReturn(before, after);
+
+        searchCache.search("report", PageRequest.of(0, 10), CountMode.NONE);
+        searchCache.invalidate();
+
+        assertSame(after, searchCache.search("report", PageRequest.of(0, 10), CountMode.NONE));
+        assertSame(after, searchCache.search("report", PageRequest.of(0, 10), CountMode.NONE));
+        assertEquals(1, meterRegistry.get("docmanager.search.cache.invalidations").functionCounter().count());
+    }
+
+    @Test
+    void testFailedSearchIsNotCached() {
+        Slice<SearchResultDTO> page = page("report");
+        when(qaService.search("report", PageRequest.of(0, 10), CountMode.NONE))
+                .thenThrow(new IllegalStateException("database down")).thenReturn(page);
+
+        assertThrows(IllegalStateException.class, () -> searchCache.search("report", PageRequest.of(0, 10), CountMode.NONE));
+
+        assertSame(page, searchCache.search("report", PageRequest.of(0, 10), CountMode.NONE));
+    }
+
+    @Test
+    void testConcurrentMissesShareOneSearch() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Slice<SearchResultDTO> page = page("report");
+        when(qaService.search("report", PageRequest.of(0, 10), CountMode.NONE)).thenAnswer(invocation -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return page;
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Future<Slice<SearchResultDTO>> first = executor.submit(() -> searchCache.search("report", PageRequest.of(0, 10), CountMode.NONE));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            List<Future<Slice<SearchResultDTO>>> waiting = List.of(
+                    executor.submit(() -> searchCache.search("report", PageRequest.of(0, 10), CountMode.NONE)),
+                    executor.submit(() -> searchCache.search("report", PageRequest.of(0, 10), CountMode.NONE)));
+            release.countDown();
+
+            assertSame(page, first.get(5, TimeUnit.SECONDS));
+            for (Future<Slice<SearchResultDTO>> result : waiting) {
+                assertSame(page, result.get(5, TimeUnit.SECONDS));
+            }
+            verify(qaService, times(1)).search(anyString(), any(), any());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testWeightBoundEvicts() {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        ReflectionTestUtils.setField(searchCache, "meterRegistry", registry);
+        ReflectionTestUtils.setField(searchCache, "maxWeight", DataSize.ofKilobytes(64));
+        searchCache.init();
+        when(qaService.search(anyString(), any(), any())).thenAnswer(invocation -> page("x".repeat(4000)));
+
+        for (int i = 0; i < 100; i++) {
+            searchCache.search("query" + i, PageRequest.of(0, 10), CountMode.NONE);
+        }
+        // Caffeine evicts in its maintenance cycle; run it now instead of waiting for the common pool
+        ((AsyncCache<?, ?>) ReflectionTestUtils.getField(searchCache, "cache")).synchronous().cleanUp();
+
+        double weight = registry.get("docmanager.search.cache.weight").gauge().value();
+        assertTrue(weight > 0 && weight <= 64 * 1024, "weight " + weight);
+        assertTrue(registry.get("cache.evictions").tag("cache", "searchCache").functionCounter().count() > 0);
+    }
+
+    @Test
+    void testWeightCountsResultText() {
+        SearchCache.Key key = new SearchCache.Key(0, "report", 0, 10, Sort.unsorted(), CountMode.NONE);
+
+        assertTrue(SearchCache.weigh(key, page("x".repeat(1000))) > 2000);
+        assertTrue(SearchCache.weigh(key, page("x")) < 1000);
+    }
+
+    @Test
+    void testDisabledCacheAlwaysSearches() {
+        ReflectionTestUtils.setField(searchCache, "enabled", false);
+        when(qaService.search("report", PageRequest.of(0, 10), CountMode.NONE)).thenReturn(page("report"));
+
+        searchCache.search("report", PageRequest.of(0, 10), CountMode.NONE);
+        searchCache.search("report", PageRequest.of(0, 10), CountMode.NONE);
+
+        verify(qaService, times(2)).search(anyString(), any(), any());
+    }
+
+    private static Slice<SearchResultDTO> page(String snippet) {
+        return new SliceImpl<>(List.of(new SearchResultDTO(1L, "Report", snippet, LocalDateTime.of(2025, 1, 1, 0, 0), "user")),
+                PageRequest.of(0, 10), false);
+    }
+}